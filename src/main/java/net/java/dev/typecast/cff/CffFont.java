@@ -17,114 +17,421 @@
  */
 package net.java.dev.typecast.cff;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.util.List;
+import net.java.dev.typecast.ot.table.Cff2Table;
 import net.java.dev.typecast.ot.table.CffTable;
+import net.java.dev.typecast.ot.table.ItemVariationStore;
 
 /**
- *
+ * A single font within a CFF or CFF2 table.  CID-keyed fonts, which have an
+ * FDArray of Font DICTs rather than a single Private DICT, are also
+ * supported: each Font DICT's Private DICT and local subroutines are only
+ * read when a glyph that uses them is first interpreted.
+ * <p>
+ * Interpreted outlines are kept in a bounded, least-recently-used cache, so
+ * glyphs that are drawn repeatedly are only interpreted once.  Charstrings
+ * may also be desubroutinized as they are first requested, so that their
+ * interpretation doesn't need to chase subroutine calls.</p>
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class CffFont {
-    
+
+    // The predefined charsets, by their charset offsets
+    private static final int ISO_ADOBE_CHARSET = 0;
+
+    // The last SID of the ISOAdobe charset, in which a glyph's SID is its ID
+    private static final int ISO_ADOBE_LAST_SID = 228;
+
     private final CffTable _table;
+    private final byte[] _buf;
+    private final Index _globalSubrIndex;
+    private final ItemVariationStore _vstore;
     private final Dict _topDict;
     private final Index _charStringsIndex;
-    private final Dict _privateDict;
-    private final Index _localSubrIndex;
     private final Charset _charset;
-    private final Charstring[] _charstrings;
+
+    // Per Font DICT, where a non-CID-keyed font has just the one
+    private final Dict[] _fontDicts;
+    private final Dict[] _privateDicts;
+    private final Index[] _localSubrIndexes;
+    private final FDSelect _fdSelect;
+
+    private volatile byte[][] _flattenedCharstrings;
+    private final OutlineCache _outlineCache =
+            new OutlineCache(OutlineCache.DEFAULT_SIZE);
+    private T2Interpreter _interpreter;
 
     public CffFont(
             CffTable table,
             int index,
             Dict topDict) throws IOException {
+        this(table, table.getBuffer(), table.getGlobalSubrIndex(), null, topDict);
+    }
+
+    /**
+     * Creates the font held by a CFF2 table.
+     * @param table the CFF2 table
+     * @param topDict the table's Top DICT
+     * @throws IOException
+     */
+    public CffFont(Cff2Table table, Dict topDict) throws IOException {
+        this(null, table.getBuffer(), table.getGlobalSubrIndex(),
+                table.getVariationStore(), topDict);
+    }
+
+    private CffFont(
+            CffTable table,
+            byte[] buf,
+            Index globalSubrIndex,
+            ItemVariationStore vstore,
+            Dict topDict) throws IOException {
         _table = table;
+        _buf = buf;
+        _globalSubrIndex = globalSubrIndex;
+        _vstore = vstore;
         _topDict = topDict;
 
+        // CFF2 INDEXes have 32-bit counts
+        int countSize = isCff2() ? 4 : 2;
+
         // Charstrings INDEX
         // We load this before Charsets because we may need to know the number
         // of glyphs
-        Integer charStringsOffset = (Integer) _topDict.getValue(17);
-        DataInput di = _table.getDataInputForOffset(charStringsOffset);
-        _charStringsIndex = new Index(di);
+        _charStringsIndex = new Index(
+                _buf,
+                _topDict.getCharStringsOffset(),
+                countSize);
         int glyphCount = _charStringsIndex.getCount();
 
-        // Private DICT
-        List<Integer> privateSizeAndOffset = (List<Integer>) _topDict.getValue(18);
-        di = _table.getDataInputForOffset(privateSizeAndOffset.get(1));
-        _privateDict = new Dict(di, privateSizeAndOffset.get(0));
+        // CID-keyed and CFF2 fonts have an FDArray, a Font DICT INDEX
+        if (_topDict.containsKey(Dict.FD_ARRAY)) {
+            TopDictIndex fdArray = new TopDictIndex(
+                    _buf,
+                    _topDict.getFDArrayOffset(),
+                    countSize);
+            _fontDicts = new Dict[fdArray.getCount()];
+            for (int i = 0; i < fdArray.getCount(); ++i) {
+                _fontDicts[i] = fdArray.getTopDict(i);
+            }
+        } else {
+            _fontDicts = new Dict[] { _topDict };
+        }
 
-        // Local Subrs INDEX
-        Integer localSubrsOffset = (Integer) _privateDict.getValue(19);
-        if (localSubrsOffset != null) {
-            di = table.getDataInputForOffset(privateSizeAndOffset.get(1) + localSubrsOffset);
-            _localSubrIndex = new Index(di);
+        // FDSelect, which a CFF2 font with a single Font DICT may omit
+        if (_topDict.containsKey(Dict.FD_SELECT)) {
+            DataInput di = getDataInputForOffset(_topDict.getFDSelectOffset());
+            int format = di.readUnsignedByte();
+            switch (format) {
+                case 0:
+                    _fdSelect = new FDSelectFormat0(di, glyphCount);
+                    break;
+                case 3:
+                    _fdSelect = new FDSelectFormat3(di);
+                    break;
+                case 4:
+                    _fdSelect = new FDSelectFormat4(di);
+                    break;
+                default:
+                    _fdSelect = null;
+            }
         } else {
-            _localSubrIndex = null;
-            //throw new Exception();
+            _fdSelect = null;
         }
+        _privateDicts = new Dict[_fontDicts.length];
+        _localSubrIndexes = new Index[_fontDicts.length];
 
         // Charsets
-        Integer charsetOffset = (Integer) _topDict.getValue(15);
-        di = table.getDataInputForOffset(charsetOffset);
-        int format = di.readUnsignedByte();
-        switch (format) {
-            case 0:
-                _charset = new CharsetFormat0(di, glyphCount);
-                break;
-            case 1:
-                _charset = new CharsetFormat1(di, glyphCount);
-                break;
-            case 2:
-                _charset = new CharsetFormat2(di, glyphCount);
-                break;
-            default:
-                _charset = null;
-                //throw new Exception();
-        }
+        int charsetOffset = _topDict.getCharsetOffset();
+        if (charsetOffset > 2) {
+            DataInput di = getDataInputForOffset(charsetOffset);
+            int format = di.readUnsignedByte();
+            switch (format) {
+                case 0:
+                    _charset = new CharsetFormat0(di, glyphCount);
+                    break;
+                case 1:
+                    _charset = new CharsetFormat1(di, glyphCount);
+                    break;
+                case 2:
+                    _charset = new CharsetFormat2(di, glyphCount);
+                    break;
+                default:
+                    _charset = null;
+                    //throw new Exception();
+            }
+        } else {
 
-        // Create the charstrings
-        _charstrings = new Charstring[glyphCount];
-        for (int i = 0; i < glyphCount; ++i) {
-            int offset = _charStringsIndex.getOffset(i) - 1;
-            int len = _charStringsIndex.getOffset(i + 1) - offset - 1;
-            _charstrings[i] = new CharstringType2(
-                    this,
-                    index,
-                    table.getStringIndex().getString(_charset.getSID(i)),
-                    _charStringsIndex.getData(),
-                    offset,
-                    len);
+            // One of the predefined charsets, or a CFF2 font, which has none
+            _charset = null;
         }
     }
 
+    private DataInput getDataInputForOffset(int offset) {
+        return new DataInputStream(new ByteArrayInputStream(
+                _buf, offset, _buf.length - offset));
+    }
+
+    /**
+     * @return the CFF table holding the font, or null if the font is held by
+     * a CFF2 table
+     */
     public CffTable getTable() {
         return _table;
     }
 
+    /**
+     * @return true if the font is held by a CFF2 table
+     */
+    public final boolean isCff2() {
+        return _table == null;
+    }
+
+    public Index getGlobalSubrIndex() {
+        return _globalSubrIndex;
+    }
+
+    /**
+     * @return the CFF2 variation store, or null if the font isn't variable
+     */
+    public ItemVariationStore getVariationStore() {
+        return _vstore;
+    }
+
+    public Dict getTopDict() {
+        return _topDict;
+    }
+
     public Index getCharStringsIndex() {
         return _charStringsIndex;
     }
 
+    /**
+     * @return true if this is a CID-keyed font, with an FDArray and FDSelect
+     */
+    public final boolean isCIDFont() {
+        return _topDict.isCIDFont();
+    }
+
+    /**
+     * @return the number of Font DICTs, which is one for a font that isn't
+     * CID-keyed
+     */
+    public int getFDCount() {
+        return _fontDicts.length;
+    }
+
+    /**
+     * @param gid the glyph ID
+     * @return the index of the Font DICT used by the glyph
+     */
+    public int getFD(int gid) {
+        return _fdSelect != null ? _fdSelect.getFD(gid) : 0;
+    }
+
     public Dict getPrivateDict() {
-        return _privateDict;
+        return getPrivateDictForFD(0);
     }
 
     public Index getLocalSubrIndex() {
-        return _localSubrIndex;
+        return getLocalSubrIndexForFD(0);
+    }
+
+    /**
+     * @param gid the glyph ID
+     * @return the Private DICT that applies to the glyph
+     */
+    public Dict getPrivateDict(int gid) {
+        return getPrivateDictForFD(getFD(gid));
+    }
+
+    /**
+     * @param gid the glyph ID
+     * @return the local subroutines that apply to the glyph, or null if there
+     * are none
+     */
+    public Index getLocalSubrIndex(int gid) {
+        return getLocalSubrIndexForFD(getFD(gid));
+    }
+
+    /**
+     * The Private DICT is read on first use, and then retained.
+     */
+    private Dict getPrivateDictForFD(int fd) {
+        Dict privateDict = _privateDicts[fd];
+        if (privateDict == null) {
+            Dict fontDict = _fontDicts[fd];
+            if (!fontDict.containsKey(Dict.PRIVATE)) {
+                return null;
+            }
+            privateDict = new Dict(
+                    _buf,
+                    fontDict.getPrivateOffset(),
+                    fontDict.getPrivateSize(),
+                    _vstore);
+            _privateDicts[fd] = privateDict;
+        }
+        return privateDict;
+    }
+
+    /**
+     * The Local Subrs INDEX is read on first use, and then retained.
+     */
+    private Index getLocalSubrIndexForFD(int fd) {
+        Index localSubrIndex = _localSubrIndexes[fd];
+        if (localSubrIndex == null) {
+            Dict privateDict = getPrivateDictForFD(fd);
+            if (privateDict == null) {
+                return null;
+            }
+            if (!privateDict.containsKey(Dict.SUBRS)) {
+                return null;
+            }
+            localSubrIndex = new Index(
+                    _buf,
+                    _fontDicts[fd].getPrivateOffset()
+                            + privateDict.getSubrsOffset(),
+                    isCff2() ? 4 : 2);
+            _localSubrIndexes[fd] = localSubrIndex;
+        }
+        return localSubrIndex;
     }
 
     public Charset getCharset() {
         return _charset;
     }
 
+    /**
+     * Charstrings are created on demand, as views onto the CharStrings INDEX,
+     * so fonts with many glyphs don't pay for them all up front.
+     * @param gid the glyph ID
+     * @return the glyph's charstring
+     */
     public Charstring getCharstring(int gid) {
-        return _charstrings[gid];
+        // Read the field once, as desubroutinizing may be switched off
+        byte[][] flattenedCharstrings = _flattenedCharstrings;
+        if (flattenedCharstrings != null) {
+            byte[] flattened = flattenedCharstrings[gid];
+            if (flattened == null) {
+                flattened = CharstringFlattener.flatten(this, gid);
+                if (flattened != null) {
+                    flattenedCharstrings[gid] = flattened;
+                }
+            }
+            if (flattened != null) {
+                return new CharstringType2(
+                        this, gid, null, flattened, 0, flattened.length);
+            }
+        }
+        return new CharstringType2(
+                this,
+                gid,
+                null,
+                _charStringsIndex.getData(),
+                _charStringsIndex.getItemOffset(gid),
+                _charStringsIndex.getItemLength(gid));
     }
     
     public int getCharstringCount() {
-        return _charstrings.length;
+        return _charStringsIndex.getCount();
+    }
+
+    /**
+     * @return true if charstrings are desubroutinized
+     */
+    public boolean isDesubroutinized() {
+        return _flattenedCharstrings != null;
+    }
+
+    /**
+     * When enabled, each charstring has its subroutine calls inlined the
+     * first time it is requested, and the flattened charstring is retained.
+     * Charstrings that can't be flattened are returned as they are.
+     * @param desubroutinized true to desubroutinize charstrings
+     */
+    public synchronized void setDesubroutinized(boolean desubroutinized) {
+        if (desubroutinized && _flattenedCharstrings == null) {
+            _flattenedCharstrings = new byte[getCharstringCount()][];
+        } else if (!desubroutinized) {
+            _flattenedCharstrings = null;
+        }
+    }
+
+    /**
+     * @param size the maximum number of outlines to retain, or zero to
+     * disable caching
+     */
+    public void setOutlineCacheSize(int size) {
+        synchronized (_outlineCache) {
+            _outlineCache.setMaxSize(size);
+        }
+    }
+
+    /**
+     * Takes the font's idle interpreter, or a new one if another thread is
+     * using it.  Each run resets the interpreter, so it can be reused for any
+     * charstring of the font.
+     */
+    T2Interpreter takeInterpreter() {
+        synchronized (_outlineCache) {
+            T2Interpreter interpreter = _interpreter;
+            _interpreter = null;
+            return interpreter != null ? interpreter : new T2Interpreter();
+        }
+    }
+
+    void releaseInterpreter(T2Interpreter interpreter) {
+        synchronized (_outlineCache) {
+            _interpreter = interpreter;
+        }
+    }
+
+    /**
+     * @param gid the glyph ID
+     * @return the glyph's interpreted outline, from the cache if it has been
+     * interpreted recently, or null if the charstring couldn't be interpreted
+     */
+    public T2Outline getOutline(int gid) {
+        T2Outline outline;
+        synchronized (_outlineCache) {
+            outline = _outlineCache.get(gid);
+        }
+        if (outline == null) {
+            T2Interpreter interpreter = takeInterpreter();
+            outline = interpreter.executeOutline(
+                    (CharstringType2) getCharstring(gid));
+            releaseInterpreter(interpreter);
+            if (outline != null) {
+                synchronized (_outlineCache) {
+                    _outlineCache.put(gid, outline);
+                }
+            }
+        }
+        return outline;
+    }
+
+    /**
+     * Glyphs of a font with the predefined ISOAdobe charset are named by
+     * their IDs, which are also their SIDs.  Fonts with the predefined Expert
+     * or ExpertSubset charsets, and CFF2 fonts, don't have glyph names.
+     * @param gid the glyph ID
+     * @return the glyph name, as mapped by the charset, or for a CID-keyed
+     * font, a name made from the CID, or null if the glyph has no name
+     */
+    public String getGlyphName(int gid) {
+        if (_charset == null) {
+            if (!isCff2()
+                    && _topDict.getCharsetOffset() == ISO_ADOBE_CHARSET
+                    && gid <= ISO_ADOBE_LAST_SID) {
+                return _table.getStringIndex().getString(gid);
+            }
+            return null;
+        }
+        if (isCIDFont()) {
+            return "cid" + _charset.getSID(gid);
+        }
+        return _table.getStringIndex().getString(_charset.getSID(gid));
     }
 }
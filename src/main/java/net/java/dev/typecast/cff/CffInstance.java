@@ -0,0 +1,107 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.table.ItemVariationStore;
+
+/**
+ * An instance of a variable CFF2 font at a fixed point in its design space.
+ * The region scalars of the instance are evaluated once, up front, so that
+ * each blend costs just a few multiplications, and the outlines of the
+ * instance are kept in their own bounded cache.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class CffInstance {
+
+    private final CffFont _font;
+    private final float[] _coords;
+    private final double[][] _scalars;
+    private final OutlineCache _outlineCache =
+            new OutlineCache(OutlineCache.DEFAULT_SIZE);
+
+    /**
+     * @param font the variable font
+     * @param coords the normalized coordinates of the instance, one per
+     * axis, each ranging from -1 to 1
+     */
+    public CffInstance(CffFont font, float[] coords) {
+        _font = font;
+        _coords = Arrays.copyOf(coords, coords.length);
+        ItemVariationStore vstore = font.getVariationStore();
+        if (vstore != null) {
+            _scalars = new double[vstore.getItemVariationDataCount()][];
+            for (int i = 0; i < _scalars.length; ++i) {
+                _scalars[i] = vstore.getScalars(i, _coords);
+            }
+        } else {
+            _scalars = new double[0][];
+        }
+    }
+
+    public CffFont getFont() {
+        return _font;
+    }
+
+    public float[] getCoordinates() {
+        return Arrays.copyOf(_coords, _coords.length);
+    }
+
+    /**
+     * @param vsindex the index of the Item Variation Data
+     * @return the scalars of the data's regions at this instance
+     */
+    double[] getScalars(int vsindex) {
+        return vsindex < _scalars.length ? _scalars[vsindex] : null;
+    }
+
+    /**
+     * @param size the maximum number of outlines to retain, or zero to
+     * disable caching
+     */
+    public void setOutlineCacheSize(int size) {
+        synchronized (_outlineCache) {
+            _outlineCache.setMaxSize(size);
+        }
+    }
+
+    /**
+     * @param gid the glyph ID
+     * @return the glyph's outline at this instance, or null if the charstring
+     * couldn't be interpreted
+     */
+    public T2Outline getOutline(int gid) {
+        T2Outline outline;
+        synchronized (_outlineCache) {
+            outline = _outlineCache.get(gid);
+        }
+        if (outline == null) {
+            T2Interpreter interpreter = _font.takeInterpreter();
+            outline = interpreter.executeOutline(
+                    (CharstringType2) _font.getCharstring(gid), this);
+            _font.releaseInterpreter(interpreter);
+            if (outline != null) {
+                synchronized (_outlineCache) {
+                    _outlineCache.put(gid, outline);
+                }
+            }
+        }
+        return outline;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.table.ItemVariationStore;
+
+/**
+ * Desubroutinizes Type 2 charstrings, inlining the bodies of the local and
+ * global subroutines they call, so that the result can be interpreted without
+ * any calls.  Charstrings that compute subroutine numbers, or otherwise use
+ * the arithmetic and storage operators, are left alone.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+class CharstringFlattener {
+
+    private static final int SUBR_NESTING_LIMIT = 10;
+
+    private final byte[] _buf;
+    private final Index _globalSubrIndex;
+    private final Index _localSubrIndex;
+    private final ItemVariationStore _vstore;
+    private int _vsindex;
+
+    private byte[] _out = new byte[256];
+    private int _outLength;
+    private int _operandCount;
+    private int _lastOperandStart;
+    private double _lastOperand;
+    private int _stemCount;
+    private boolean _ended;
+
+    private CharstringFlattener(CffFont font, int gid) {
+        _buf = font.getCharStringsIndex().getData();
+        _globalSubrIndex = font.getGlobalSubrIndex();
+        _localSubrIndex = font.getLocalSubrIndex(gid);
+        _vstore = font.getVariationStore();
+        Dict privateDict = font.getPrivateDict(gid);
+        _vsindex = privateDict != null ? privateDict.getVariationStoreIndex() : 0;
+    }
+
+    /**
+     * @param font the font
+     * @param gid the glyph ID
+     * @return the glyph's charstring with all subroutine calls inlined, or
+     * null if it can't be flattened
+     */
+    static byte[] flatten(CffFont font, int gid) {
+        Index charStringsIndex = font.getCharStringsIndex();
+        CharstringFlattener flattener = new CharstringFlattener(font, gid);
+        int offset = charStringsIndex.getItemOffset(gid);
+        if (!flattener.copy(offset, offset + charStringsIndex.getItemLength(gid), 0)) {
+            return null;
+        }
+        return Arrays.copyOf(flattener._out, flattener._outLength);
+    }
+
+    /**
+     * Copies the charstring between ip and end, recursing into subroutines,
+     * until the end is reached, or a return or endchar is encountered.
+     */
+    private boolean copy(int ip, int end, int depth) {
+        while (ip < end && !_ended) {
+            int b0 = _buf[ip] & 0xff;
+            if (b0 >= 32 || b0 == 28) {
+                int length = operandLength(b0);
+                _lastOperandStart = _outLength;
+                _lastOperand = operandValue(ip, b0);
+                append(ip, length);
+                ++_operandCount;
+                ip += length;
+                continue;
+            }
+            switch (b0) {
+            case T2Mnemonic.CALLSUBR:
+            case T2Mnemonic.CALLGSUBR:
+                Index subrIndex = b0 == T2Mnemonic.CALLSUBR
+                        ? _localSubrIndex
+                        : _globalSubrIndex;
+                if (subrIndex == null
+                        || _lastOperandStart < 0
+                        || depth == SUBR_NESTING_LIMIT) {
+                    return false;
+                }
+                int i = (int) _lastOperand + T2Interpreter.bias(subrIndex);
+                if (i < 0 || i >= subrIndex.getCount()) {
+                    return false;
+                }
+
+                // Drop the subroutine number, as the call itself goes
+                _outLength = _lastOperandStart;
+                _lastOperandStart = -1;
+                --_operandCount;
+                int offset = subrIndex.getItemOffset(i);
+                if (!copy(offset, offset + subrIndex.getItemLength(i), depth + 1)) {
+                    return false;
+                }
+                ++ip;
+                break;
+            case T2Mnemonic.RETURN:
+                return true;
+            case T2Mnemonic.ENDCHAR:
+                append(ip, 1);
+                _ended = true;
+                return true;
+            case T2Mnemonic.HSTEM:
+            case T2Mnemonic.VSTEM:
+            case T2Mnemonic.HSTEMHM:
+            case T2Mnemonic.VSTEMHM:
+                _stemCount += _operandCount / 2;
+                appendOperator(ip, 1);
+                ++ip;
+                break;
+            case T2Mnemonic.HINTMASK:
+            case T2Mnemonic.CNTRMASK:
+
+                // Any operands are an implied vstemhm, and the mask is sized
+                // by the number of stems
+                _stemCount += _operandCount / 2;
+                int length = 1 + (_stemCount + 7) / 8;
+                appendOperator(ip, length);
+                ip += length;
+                break;
+            case T2Mnemonic.VSINDEX:
+                if (_lastOperandStart < 0) {
+                    return false;
+                }
+                _vsindex = (int) _lastOperand;
+                appendOperator(ip, 1);
+                ++ip;
+                break;
+            case T2Mnemonic.BLEND:
+
+                // The blended values remain on the stack
+                if (_lastOperandStart < 0 || _vstore == null) {
+                    return false;
+                }
+                int n = (int) _lastOperand;
+                int k = _vstore.getRegionIndexCount(_vsindex);
+                append(ip, 1);
+                _operandCount -= n * k + 1;
+                _lastOperandStart = -1;
+                ++ip;
+                break;
+            case T2Mnemonic.ESCAPE:
+                int b1 = _buf[ip + 1] & 0xff;
+                if (b1 < T2Mnemonic.HFLEX || b1 > T2Mnemonic.FLEX1) {
+                    return false;
+                }
+                appendOperator(ip, 2);
+                ip += 2;
+                break;
+            default:
+                appendOperator(ip, 1);
+                ++ip;
+            }
+        }
+        return true;
+    }
+
+    private void appendOperator(int ip, int length) {
+        append(ip, length);
+        _operandCount = 0;
+        _lastOperandStart = -1;
+    }
+
+    private void append(int ip, int length) {
+        if (_outLength + length > _out.length) {
+            _out = Arrays.copyOf(_out, Math.max(_out.length * 2, _outLength + length));
+        }
+        System.arraycopy(_buf, ip, _out, _outLength, length);
+        _outLength += length;
+    }
+
+    private static int operandLength(int b0) {
+        if (b0 <= 246) {
+            return b0 == 28 ? 3 : 1;
+        } else if (b0 <= 254) {
+            return 2;
+        } else {
+            return 5;
+        }
+    }
+
+    private double operandValue(int ip, int b0) {
+        if (32 <= b0 && b0 <= 246) {
+            return b0 - 139;
+        } else if (247 <= b0 && b0 <= 250) {
+            return (b0 - 247) * 256 + (_buf[ip + 1] & 0xff) + 108;
+        } else if (251 <= b0 && b0 <= 254) {
+            return -(b0 - 251) * 256 - (_buf[ip + 1] & 0xff) - 108;
+        } else if (b0 == 28) {
+            return (short) ((_buf[ip + 1] & 0xff) << 8 | (_buf[ip + 2] & 0xff));
+        } else {
+            return ((_buf[ip + 1] & 0xff) << 24 | (_buf[ip + 2] & 0xff) << 16
+                    | (_buf[ip + 3] & 0xff) << 8 | (_buf[ip + 4] & 0xff)) / 65536.0;
+        }
+    }
+}
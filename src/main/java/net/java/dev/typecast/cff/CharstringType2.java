@@ -40,8 +40,8 @@ public class CharstringType2 extends Charstring {
         "escape",
         "-Reserved-",
         "endchar",
-        "-Reserved-",
-        "-Reserved-",
+        "vsindex",
+        "blend",
         "-Reserved-",
         "hstemhm",
         "hintmask",
@@ -104,7 +104,7 @@ public class CharstringType2 extends Charstring {
     private final CffFont _font;
     private final int _index;
     private final String _name;
-    private final int[] _data;
+    private final byte[] _data;
     private final int _offset;
     private final int _length;
 
@@ -119,7 +119,7 @@ public class CharstringType2 extends Charstring {
             CffFont font,
             int index,
             String name,
-            int[] data,
+            byte[] data,
             int offset,
             int length) {
         _font = font;
@@ -139,8 +139,15 @@ public class CharstringType2 extends Charstring {
         return _index;
     }
 
+    /**
+     * @return the name given to the charstring, or if there isn't one, the
+     * glyph name looked up from the font's charset
+     */
     @Override
     public String getName() {
+        if (_name == null && _font != null) {
+            return _font.getGlyphName(_index);
+        }
         return _name;
     }
     
@@ -171,13 +178,20 @@ public class CharstringType2 extends Charstring {
         return _offset;
     }
 
+    /**
+     * @return the index of the byte following the charstring
+     */
+    public int getEndIndex() {
+        return _offset + _length;
+    }
+
     public boolean isOperandAtIndex(int ip) {
-        int b0 = _data[ip];
+        int b0 = _data[ip] & 0xff;
         return (32 <= b0 && b0 <= 255) || b0 == 28;
     }
 
     public Number operandAtIndex(int ip) {
-        int b0 = _data[ip];
+        int b0 = _data[ip] & 0xff;
         if (32 <= b0 && b0 <= 246) {
 
             // 1 byte integer
@@ -185,34 +199,59 @@ public class CharstringType2 extends Charstring {
         } else if (247 <= b0 && b0 <= 250) {
 
             // 2 byte integer
-            int b1 = _data[ip + 1];
+            int b1 = _data[ip + 1] & 0xff;
             return (b0 - 247) * 256 + b1 + 108;
         } else if (251 <= b0 && b0 <= 254) {
 
             // 2 byte integer
-            int b1 = _data[ip + 1];
+            int b1 = _data[ip + 1] & 0xff;
             return -(b0 - 251) * 256 - b1 - 108;
         } else if (b0 == 28) {
 
             // 3 byte integer
-            int b1 = (byte)_data[ip + 1];
-            int b2 = _data[ip + 2];
+            int b1 = _data[ip + 1];
+            int b2 = _data[ip + 2] & 0xff;
             return b1 << 8 | b2;
         } else if (b0 == 255) {
 
             // 16-bit signed integer with 16 bits of fraction
-            int b1 = (byte) _data[ip + 1];
-            int b2 = _data[ip + 2];
-            int b3 = _data[ip + 3];
-            int b4 = _data[ip + 4];
+            int b1 = _data[ip + 1];
+            int b2 = _data[ip + 2] & 0xff;
+            int b3 = _data[ip + 3] & 0xff;
+            int b4 = _data[ip + 4] & 0xff;
             return (float) ((b1 << 8 | b2) + ((b3 << 8 | b4) / 65536.0));
         } else {
             return null;
         }
     }
 
+    /**
+     * Decodes the operand at the given index as a primitive value, avoiding
+     * the boxing of {@link #operandAtIndex(int)}.
+     * @param ip the index of the first byte of the operand
+     * @return the value of the operand, or NaN if there isn't an operand at
+     * the index
+     */
+    public double operandValueAtIndex(int ip) {
+        int b0 = _data[ip] & 0xff;
+        if (32 <= b0 && b0 <= 246) {
+            return b0 - 139;
+        } else if (247 <= b0 && b0 <= 250) {
+            return (b0 - 247) * 256 + (_data[ip + 1] & 0xff) + 108;
+        } else if (251 <= b0 && b0 <= 254) {
+            return -(b0 - 251) * 256 - (_data[ip + 1] & 0xff) - 108;
+        } else if (b0 == 28) {
+            return (short) ((_data[ip + 1] & 0xff) << 8 | (_data[ip + 2] & 0xff));
+        } else if (b0 == 255) {
+            return ((_data[ip + 1] & 0xff) << 24 | (_data[ip + 2] & 0xff) << 16
+                    | (_data[ip + 3] & 0xff) << 8 | (_data[ip + 4] & 0xff)) / 65536.0;
+        } else {
+            return Double.NaN;
+        }
+    }
+
     public int nextOperandIndex(int ip) {
-        int b0 = _data[ip];
+        int b0 = _data[ip] & 0xff;
         if (32 <= b0 && b0 <= 246) {
 
             // 1 byte integer
@@ -238,7 +277,7 @@ public class CharstringType2 extends Charstring {
     }
     
     public int byteAtIndex(int ip) {
-        return _data[ip];
+        return _data[ip] & 0xff;
     }
     
     public boolean moreBytes(int ip) {
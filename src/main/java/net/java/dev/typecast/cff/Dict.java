@@ -20,21 +20,70 @@ package net.java.dev.typecast.cff;
 import java.io.DataInput;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import net.java.dev.typecast.ot.table.ItemVariationStore;
 
 /**
- *
+ * A CFF DICT.  The operands are decoded into a primitive array, and each
+ * entry records its operator and the range of operands that precede it.
+ * DICTs only hold a handful of entries, so they are simply scanned when
+ * looked up.
  * @author dschweinsberg
  */
 public class Dict {
-    
-    private final Map<Integer, Object> _entries = new HashMap<>();
-    private final int[] _data;
+
+    /**
+     * Top DICT operators
+     */
+    public static final int CHARSET = 15;
+    public static final int CHAR_STRINGS = 17;
+    public static final int PRIVATE = 18;
+    public static final int VSTORE = 24;
+    public static final int FONT_MATRIX = 0x0c07;
+    public static final int ROS = 0x0c1e;
+    public static final int FD_ARRAY = 0x0c24;
+    public static final int FD_SELECT = 0x0c25;
+
+    /**
+     * Private DICT operators
+     */
+    public static final int SUBRS = 19;
+    public static final int DEFAULT_WIDTH_X = 20;
+    public static final int NOMINAL_WIDTH_X = 21;
+    public static final int VSINDEX = 22;
+    public static final int BLEND = 23;
+
+    private static final double[] DEFAULT_FONT_MATRIX = {
+        0.001, 0, 0, 0.001, 0, 0
+    };
+
+    private final byte[] _data;
+    private final ItemVariationStore _vstore;
     private int _index;
 
-    public Dict(int[] data, int offset, int length) {
+    private int[] _keys = new int[8];
+    private int[] _operandStart = new int[8];
+    private int[] _operandCount = new int[8];
+    private int _entryCount;
+    private double[] _operands = new double[16];
+    private int _operandsLength;
+
+    public Dict(byte[] data, int offset, int length) {
+        this(data, offset, length, null);
+    }
+
+    /**
+     * Creates a CFF2 DICT, where the operands may be blended.  The DICT
+     * holds the values of the default instance.
+     * @param data the buffer holding the DICT
+     * @param offset the position of the DICT within the buffer
+     * @param length the length of the DICT
+     * @param vstore the font's variation store, or null if there isn't one
+     */
+    public Dict(byte[] data, int offset, int length, ItemVariationStore vstore) {
         _data = data;
+        _vstore = vstore;
         _index = offset;
         while (_index < offset + length) {
             addKeyAndValueEntry();
@@ -42,122 +91,334 @@ public class Dict {
     }
 
     public Dict(DataInput di, int length) throws IOException {
-        _data = new int[length];
-        for (int i = 0; i < length; ++i) {
-            _data[i] = di.readUnsignedByte();
-        }
+        _data = new byte[length];
+        _vstore = null;
+        di.readFully(_data);
         _index = 0;
         while (_index < length) {
             addKeyAndValueEntry();
         }
     }
 
+    /**
+     * @param key the operator, with escaped operators given as 12 in the
+     * high byte and the second byte of the operator in the low byte
+     * @return true if the DICT has an entry for the operator
+     */
+    public boolean containsKey(int key) {
+        return findEntry(key) >= 0;
+    }
+
+    /**
+     * @param key the operator
+     * @return the number of operands the operator has, or zero if the DICT
+     * doesn't have an entry for it
+     */
+    public int getOperandCount(int key) {
+        int entry = findEntry(key);
+        return entry >= 0 ? _operandCount[entry] : 0;
+    }
+
+    /**
+     * @param key the operator
+     * @param i the index of the operand
+     * @param defaultValue the value to return if the operand isn't present
+     * @return the operand
+     */
+    public double getDouble(int key, int i, double defaultValue) {
+        int entry = findEntry(key);
+        if (entry < 0 || i >= _operandCount[entry]) {
+            return defaultValue;
+        }
+        return _operands[_operandStart[entry] + i];
+    }
+
+    /**
+     * @param key the operator
+     * @param i the index of the operand
+     * @param defaultValue the value to return if the operand isn't present
+     * @return the operand, truncated to an integer
+     */
+    public int getInt(int key, int i, int defaultValue) {
+        int entry = findEntry(key);
+        if (entry < 0 || i >= _operandCount[entry]) {
+            return defaultValue;
+        }
+        return (int) _operands[_operandStart[entry] + i];
+    }
+
+    /**
+     * @param key the operator
+     * @param defaultValue the value to return if the operator isn't present
+     * @return the first operand, truncated to an integer
+     */
+    public int getInt(int key, int defaultValue) {
+        return getInt(key, 0, defaultValue);
+    }
+
+    /**
+     * @param key the operator
+     * @return a copy of all the operands, or null if the operator isn't
+     * present
+     */
+    public double[] getDoubles(int key) {
+        int entry = findEntry(key);
+        if (entry < 0) {
+            return null;
+        }
+        double[] values = new double[_operandCount[entry]];
+        System.arraycopy(_operands, _operandStart[entry], values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * @param key the operator
+     * @return the operand as an Integer or Double, a List of them if there
+     * is more than one operand, or null if the operator isn't present
+     */
     public Object getValue(int key) {
-        return _entries.get(key);
+        int entry = findEntry(key);
+        if (entry < 0) {
+            return null;
+        }
+        if (_operandCount[entry] == 1) {
+            return box(_operands[_operandStart[entry]]);
+        }
+        List<Object> values = new ArrayList<>(_operandCount[entry]);
+        for (int i = 0; i < _operandCount[entry]; ++i) {
+            values.add(box(_operands[_operandStart[entry] + i]));
+        }
+        return values;
     }
 
-    private void addKeyAndValueEntry() {
-        ArrayList<Object> operands = new ArrayList<>();
-        Object operand = null;
-        while (isOperandAtIndex()) {
-            operand = nextOperand();
-            operands.add(operand);
+    public int getCharsetOffset() {
+        return getInt(CHARSET, 0);
+    }
+
+    public int getCharStringsOffset() {
+        return getInt(CHAR_STRINGS, 0);
+    }
+
+    public int getPrivateSize() {
+        return getInt(PRIVATE, 0, 0);
+    }
+
+    public int getPrivateOffset() {
+        return getInt(PRIVATE, 1, 0);
+    }
+
+    public double[] getFontMatrix() {
+        double[] matrix = getDoubles(FONT_MATRIX);
+        return matrix != null ? matrix : DEFAULT_FONT_MATRIX.clone();
+    }
+
+    /**
+     * @return true if the DICT is the Top DICT of a CID-keyed font
+     */
+    public boolean isCIDFont() {
+        return containsKey(ROS);
+    }
+
+    public int getFDArrayOffset() {
+        return getInt(FD_ARRAY, 0);
+    }
+
+    public int getFDSelectOffset() {
+        return getInt(FD_SELECT, 0);
+    }
+
+    /**
+     * @return the offset of the local subrs, relative to the start of the
+     * Private DICT, or zero if there are none
+     */
+    public int getSubrsOffset() {
+        return getInt(SUBRS, 0);
+    }
+
+    public double getDefaultWidthX() {
+        return getDouble(DEFAULT_WIDTH_X, 0, 0);
+    }
+
+    public double getNominalWidthX() {
+        return getDouble(NOMINAL_WIDTH_X, 0, 0);
+    }
+
+    /**
+     * @return the offset of the CFF2 variation store, or zero if there isn't
+     * one
+     */
+    public int getVariationStoreOffset() {
+        return getInt(VSTORE, 0);
+    }
+
+    /**
+     * @return the index of the Item Variation Data used by the charstrings
+     * of a CFF2 Private DICT
+     */
+    public int getVariationStoreIndex() {
+        return getInt(VSINDEX, 0);
+    }
+
+    private int findEntry(int key) {
+
+        // Search backwards, so that a repeated operator overrides an earlier
+        // one
+        for (int i = _entryCount - 1; i >= 0; --i) {
+            if (_keys[i] == key) {
+                return i;
+            }
         }
-        int operator = _data[_index++];
-        if (operator == 12) {
-            operator <<= 8;
-            operator |= _data[_index++];
+        return -1;
+    }
+
+    private static Object box(double value) {
+        if (value == (int) value) {
+            return (int) value;
         }
-        if (operands.size() == 1) {
-            _entries.put(operator, operand);
-        } else {
-            _entries.put(operator, operands);
+        return value;
+    }
+
+    private void addKeyAndValueEntry() {
+        int start = _operandsLength;
+        int operator;
+        do {
+            while (isOperandAtIndex()) {
+                double operand = nextOperand();
+                if (_operandsLength == _operands.length) {
+                    _operands = Arrays.copyOf(_operands, _operands.length * 2);
+                }
+                _operands[_operandsLength++] = operand;
+            }
+            operator = _data[_index++] & 0xff;
+            if (operator == 12) {
+                operator <<= 8;
+                operator |= _data[_index++] & 0xff;
+            }
+        } while (operator == BLEND && _vstore != null && blend(start));
+        if (_entryCount == _keys.length) {
+            _keys = Arrays.copyOf(_keys, _entryCount * 2);
+            _operandStart = Arrays.copyOf(_operandStart, _entryCount * 2);
+            _operandCount = Arrays.copyOf(_operandCount, _entryCount * 2);
         }
+        _keys[_entryCount] = operator;
+        _operandStart[_entryCount] = start;
+        _operandCount[_entryCount] = _operandsLength - start;
+        ++_entryCount;
+    }
+
+    /**
+     * Evaluates a blend for the default instance, by dropping the deltas and
+     * leaving the default values to be taken by the operator that follows.
+     */
+    private boolean blend(int start) {
+        if (_operandsLength == start) {
+            return false;
+        }
+        int n = (int) _operands[_operandsLength - 1];
+        int k = _vstore.getRegionIndexCount(getVariationStoreIndex());
+        _operandsLength = Math.max(start, _operandsLength - 1 - n * k);
+        return true;
     }
 
     private boolean isOperandAtIndex() {
-        int b0 = _data[_index];
+        int b0 = _data[_index] & 0xff;
         return (32 <= b0 && b0 <= 254) || b0 == 28 || b0 == 29 || b0 == 30;
     }
 
-    //        private boolean isOperatorAtIndex() {
-    //            int b0 = _data[_index];
-    //            return 0 <= b0 && b0 <= 21;
-    //        }
-    private Object nextOperand() {
-        int b0 = _data[_index];
+    private double nextOperand() {
+        int b0 = _data[_index] & 0xff;
         if (32 <= b0 && b0 <= 246) {
             // 1 byte integer
             ++_index;
             return b0 - 139;
         } else if (247 <= b0 && b0 <= 250) {
             // 2 byte integer
-            int b1 = _data[_index + 1];
+            int b1 = _data[_index + 1] & 0xff;
             _index += 2;
             return (b0 - 247) * 256 + b1 + 108;
         } else if (251 <= b0 && b0 <= 254) {
             // 2 byte integer
-            int b1 = _data[_index + 1];
+            int b1 = _data[_index + 1] & 0xff;
             _index += 2;
             return -(b0 - 251) * 256 - b1 - 108;
         } else if (b0 == 28) {
             // 3 byte integer
-            int b1 = _data[_index + 1];
-            int b2 = _data[_index + 2];
+            int b1 = _data[_index + 1] & 0xff;
+            int b2 = _data[_index + 2] & 0xff;
             _index += 3;
-            return b1 << 8 | b2;
+            return (short) (b1 << 8 | b2);
         } else if (b0 == 29) {
             // 5 byte integer
-            int b1 = _data[_index + 1];
-            int b2 = _data[_index + 2];
-            int b3 = _data[_index + 3];
-            int b4 = _data[_index + 4];
+            int b1 = _data[_index + 1] & 0xff;
+            int b2 = _data[_index + 2] & 0xff;
+            int b3 = _data[_index + 3] & 0xff;
+            int b4 = _data[_index + 4] & 0xff;
             _index += 5;
             return b1 << 24 | b2 << 16 | b3 << 8 | b4;
         } else if (b0 == 30) {
-            // Real number
-            StringBuilder fString = new StringBuilder();
-            int nibble1 = 0;
-            int nibble2 = 0;
             ++_index;
-            while ((nibble1 != 0xf) && (nibble2 != 0xf)) {
-                nibble1 = _data[_index] >> 4;
-                nibble2 = _data[_index] & 0xf;
-                ++_index;
-                fString.append(decodeRealNibble(nibble1));
-                fString.append(decodeRealNibble(nibble2));
-            }
-            return Float.valueOf(fString.toString());
+            return nextReal();
         } else {
-            return null;
+            return 0;
         }
     }
 
-    private String decodeRealNibble(int nibble) {
-        if (nibble < 0xa) {
-            return Integer.toString(nibble);
-        } else if (nibble == 0xa) {
-            return ".";
-        } else if (nibble == 0xb) {
-            return "E";
-        } else if (nibble == 0xc) {
-            return "E-";
-        } else if (nibble == 0xe) {
-            return "-";
+    /**
+     * Decodes a real number from its packed BCD nibbles.
+     */
+    private double nextReal() {
+        double mantissa = 0;
+        int fractionDigits = 0;
+        int exponent = 0;
+        boolean negative = false;
+        boolean negativeExponent = false;
+        boolean inFraction = false;
+        boolean inExponent = false;
+        int nibble = 0;
+        int i = 0;
+        while (nibble != 0xf) {
+            int b = _data[_index + (i >> 1)] & 0xff;
+            nibble = (i & 1) == 0 ? b >> 4 : b & 0xf;
+            ++i;
+            if (nibble < 0xa) {
+                if (inExponent) {
+                    exponent = exponent * 10 + nibble;
+                } else {
+                    mantissa = mantissa * 10 + nibble;
+                    if (inFraction) {
+                        ++fractionDigits;
+                    }
+                }
+            } else if (nibble == 0xa) {
+                inFraction = true;
+            } else if (nibble == 0xb) {
+                inExponent = true;
+            } else if (nibble == 0xc) {
+                inExponent = true;
+                negativeExponent = true;
+            } else if (nibble == 0xe) {
+                negative = true;
+            }
         }
-        return "";
+        _index += (i + 1) >> 1;
+        int scale = (negativeExponent ? -exponent : exponent) - fractionDigits;
+        double value = scale < 0
+                ? mantissa / Math.pow(10, -scale)
+                : mantissa * Math.pow(10, scale);
+        return negative ? -value : value;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Integer key : _entries.keySet()) {
+        for (int i = 0; i < _entryCount; ++i) {
+            int key = _keys[i];
             if ((key & 0xc00) == 0xc00) {
                 sb.append("12 ").append(key & 0xff).append(": ");
             } else {
-                sb.append(key.toString()).append(": ");
+                sb.append(key).append(": ");
             }
-            sb.append(_entries.get(key).toString()).append("\n");
+            sb.append(getValue(key)).append("\n");
         }
         return sb.toString();
     }
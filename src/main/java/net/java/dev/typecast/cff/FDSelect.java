@@ -0,0 +1,38 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+/**
+ * Maps the glyphs of a CID-keyed font to the Font DICTs in its FDArray.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public abstract class FDSelect {
+
+    FDSelect() {
+    }
+
+    public abstract int getFormat();
+
+    /**
+     * @param gid the glyph ID
+     * @return the index of the glyph's Font DICT within the FDArray
+     */
+    public abstract int getFD(int gid);
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * An FDSelect with one FD index byte per glyph.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class FDSelectFormat0 extends FDSelect {
+
+    private final byte[] _fds;
+
+    public FDSelectFormat0(DataInput di, int glyphCount) throws IOException {
+        _fds = new byte[glyphCount];
+        di.readFully(_fds);
+    }
+
+    @Override
+    public int getFormat() {
+        return 0;
+    }
+
+    @Override
+    public int getFD(int gid) {
+        return _fds[gid] & 0xff;
+    }
+
+}
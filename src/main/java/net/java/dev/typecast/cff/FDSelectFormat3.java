@@ -0,0 +1,70 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * An FDSelect made up of ranges of glyphs sharing the same FD index, which
+ * are binary searched.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class FDSelectFormat3 extends FDSelect {
+
+    private final int[] _first;
+    private final byte[] _fd;
+
+    public FDSelectFormat3(DataInput di) throws IOException {
+        int rangeCount = di.readUnsignedShort();
+
+        // The extra entry holds the sentinel, the glyph following the last
+        // range
+        _first = new int[rangeCount + 1];
+        _fd = new byte[rangeCount];
+        for (int i = 0; i < rangeCount; ++i) {
+            _first[i] = di.readUnsignedShort();
+            _fd[i] = di.readByte();
+        }
+        _first[rangeCount] = di.readUnsignedShort();
+    }
+
+    @Override
+    public int getFormat() {
+        return 3;
+    }
+
+    @Override
+    public int getFD(int gid) {
+        int lo = 0;
+        int hi = _fd.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (gid < _first[mid]) {
+                hi = mid - 1;
+            } else if (gid >= _first[mid + 1]) {
+                lo = mid + 1;
+            } else {
+                return _fd[mid] & 0xff;
+            }
+        }
+        return 0;
+    }
+
+}
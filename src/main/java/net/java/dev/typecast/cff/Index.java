@@ -17,34 +17,55 @@
  */
 package net.java.dev.typecast.cff;
 
-import java.io.DataInput;
-import java.io.IOException;
-
 /**
- *
+ * A CFF INDEX, read in place from the buffer holding the whole CFF table.
+ * Neither the offset array nor the object data are copied, so the
+ * potentially very large CharStrings INDEX costs no more than the table
+ * buffer it already lives in.
  * @author dschweinsberg
  */
 public class Index {
     
+    private final byte[] _buf;
     private final int _count;
     private final int _offSize;
-    private final int[] _offset;
-    private final int[] _data;
+    private final int _offsetArrayStart;
+    private final int _dataStart;
+    private final int _end;
 
-    public Index(DataInput di) throws IOException {
-        _count = di.readUnsignedShort();
-        _offset = new int[_count + 1];
-        _offSize = di.readUnsignedByte();
-        for (int i = 0; i < _count + 1; ++i) {
-            int thisOffset = 0;
-            for (int j = 0; j < _offSize; ++j) {
-                thisOffset |= di.readUnsignedByte() << ((_offSize - j - 1) * 8);
-            }
-            _offset[i] = thisOffset;
+    /**
+     * @param buf the buffer holding the CFF data
+     * @param offset the position of the INDEX within the buffer
+     */
+    public Index(byte[] buf, int offset) {
+        this(buf, offset, 2);
+    }
+
+    /**
+     * @param buf the buffer holding the CFF data
+     * @param offset the position of the INDEX within the buffer
+     * @param countSize the size of the count field, which is two bytes in
+     * CFF, and four in CFF2
+     */
+    public Index(byte[] buf, int offset, int countSize) {
+        _buf = buf;
+        int count = 0;
+        for (int i = 0; i < countSize; ++i) {
+            count = count << 8 | (buf[offset + i] & 0xff);
         }
-        _data = new int[getDataLength()];
-        for (int i = 0; i < getDataLength(); ++i) {
-            _data[i] = di.readUnsignedByte();
+        _count = count;
+        if (_count == 0) {
+
+            // An empty INDEX is just the count
+            _offSize = 0;
+            _offsetArrayStart = offset + countSize;
+            _dataStart = offset + countSize;
+            _end = offset + countSize;
+        } else {
+            _offSize = buf[offset + countSize] & 0xff;
+            _offsetArrayStart = offset + countSize + 1;
+            _dataStart = _offsetArrayStart + (_count + 1) * _offSize;
+            _end = _dataStart + getDataLength();
         }
     }
 
@@ -52,16 +73,60 @@ public class Index {
         return _count;
     }
 
+    /**
+     * @param index the object index, from zero up to and including count
+     * @return the offset of the object, relative to the byte preceding the
+     * object data (so the first offset is always one)
+     */
     public final int getOffset(int index) {
-        return _offset[index];
+        int pos = _offsetArrayStart + index * _offSize;
+        int offset = 0;
+        for (int j = 0; j < _offSize; ++j) {
+            offset = offset << 8 | (_buf[pos + j] & 0xff);
+        }
+        return offset;
+    }
+
+    /**
+     * @param index the object index
+     * @return the position of the object's data within the buffer
+     */
+    public final int getItemOffset(int index) {
+        return _dataStart + getOffset(index) - 1;
+    }
+
+    /**
+     * @param index the object index
+     * @return the length of the object's data
+     */
+    public final int getItemLength(int index) {
+        return getOffset(index + 1) - getOffset(index);
     }
 
     public final int getDataLength() {
-        return _offset[_offset.length - 1] - 1;
+        return _count > 0 ? getOffset(_count) - 1 : 0;
+    }
+
+    /**
+     * @return the position of the object data within the buffer
+     */
+    public final int getDataOffset() {
+        return _dataStart;
+    }
+
+    /**
+     * @return the position of the first byte following the INDEX
+     */
+    public final int getEndOffset() {
+        return _end;
     }
 
-    public final int[] getData() {
-        return _data;
+    /**
+     * @return the buffer holding the CFF data, which is shared and must not
+     * be modified
+     */
+    public final byte[] getData() {
+        return _buf;
     }
 
     @Override
@@ -70,17 +135,17 @@ public class Index {
         sb.append("DICT\n");
         sb.append("count: ").append(_count).append("\n");
         sb.append("offSize: ").append(_offSize).append("\n");
-        for (int i = 0; i < _count + 1; ++i) {
-            sb.append("offset[").append(i).append("]: ").append(_offset[i]).append("\n");
+        for (int i = 0; i < _count + 1 && _count > 0; ++i) {
+            sb.append("offset[").append(i).append("]: ").append(getOffset(i)).append("\n");
         }
         sb.append("data:");
-        for (int i = 0; i < _data.length; ++i) {
+        for (int i = 0; i < getDataLength(); ++i) {
             if (i % 8 == 0) {
                 sb.append("\n");
             } else {
                 sb.append(" ");
             }
-            sb.append(_data[i]);
+            sb.append(_buf[_dataStart + i] & 0xff);
         }
         sb.append("\n");
         return sb.toString();
@@ -15,28 +15,25 @@
  */
 package net.java.dev.typecast.cff;
 
-import java.io.DataInput;
-import java.io.IOException;
-
 /**
  *
  * @author dschweinsberg
  */
 public class NameIndex extends Index {
     
-    public NameIndex(DataInput di) throws IOException {
-        super(di);
+    public NameIndex(byte[] buf, int offset) {
+        super(buf, offset);
     }
 
     private String getName(int index) {
         String name;
-        int offset = getOffset(index) - 1;
-        int len = getOffset(index + 1) - offset - 1;
+        int offset = getItemOffset(index);
+        int len = getItemLength(index);
         // Ensure the name hasn't been deleted
         if (getData()[offset] != 0) {
             StringBuilder sb = new StringBuilder();
             for (int i = offset; i < offset + len; ++i) {
-                sb.append((char) getData()[i]);
+                sb.append((char) (getData()[i] & 0xff));
             }
             name = sb.toString();
         } else {
@@ -0,0 +1,61 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used map of glyph IDs to outlines.  Callers
+ * synchronize on the cache.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+class OutlineCache extends LinkedHashMap<Integer, T2Outline> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int DEFAULT_SIZE = 256;
+
+    private int _maxSize;
+
+    OutlineCache(int maxSize) {
+        super(16, 0.75f, true);
+        _maxSize = maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        _maxSize = maxSize;
+        Iterator<Integer> it = keySet().iterator();
+        while (size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    @Override
+    public T2Outline put(Integer gid, T2Outline outline) {
+        return _maxSize > 0 ? super.put(gid, outline) : null;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, T2Outline> eldest) {
+        return size() > _maxSize;
+    }
+}
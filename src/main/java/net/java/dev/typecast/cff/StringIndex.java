@@ -17,17 +17,14 @@
  */
 package net.java.dev.typecast.cff;
 
-import java.io.DataInput;
-import java.io.IOException;
-
 /**
  *
  * @author dschweinsberg
  */
 public class StringIndex extends Index {
     
-    public StringIndex(DataInput di) throws IOException {
-        super(di);
+    public StringIndex(byte[] buf, int offset) {
+        super(buf, offset);
     }
 
     public String getString(int index) {
@@ -38,11 +35,11 @@ public class StringIndex extends Index {
             if (index >= getCount()) {
                 return null;
             }
-            int offset = getOffset(index) - 1;
-            int len = getOffset(index + 1) - offset - 1;
+            int offset = getItemOffset(index);
+            int len = getItemLength(index);
             StringBuilder sb = new StringBuilder();
             for (int i = offset; i < offset + len; ++i) {
-                sb.append((char) getData()[i]);
+                sb.append((char) (getData()[i] & 0xff));
             }
             return sb.toString();
         }
@@ -18,97 +18,111 @@
 
 package net.java.dev.typecast.cff;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import net.java.dev.typecast.ot.Point;
+import net.java.dev.typecast.ot.table.ItemVariationStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Type 2 Charstring Interpreter.  Operator descriptions are quoted from
  * Adobe's Type 2 Charstring Format document -- 5117.Type2.pdf.
+ * <p>
+ * The argument stack and transient array hold primitive doubles, and path
+ * operators consume their arguments in place, from the bottom of the stack
+ * upwards, emitting points directly into primitive coordinate buffers.  The
+ * buffers are retained between calls, so an interpreter that is reused for
+ * many glyphs allocates little more than the resulting points.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class T2Interpreter {
-    
-    private static class SubrPair {
-        final CharstringType2 cs;
-        final int ip;
-        SubrPair(CharstringType2 cs, int ip) {
-            this.cs = cs;
-            this.ip = ip;
-        }
-    }
-    
-    private static final int ARGUMENT_STACK_LIMIT = 48;
+
+    // The CFF2 limit, which is larger than the 48 of CFF
+    private static final int ARGUMENT_STACK_LIMIT = 513;
     private static final int SUBR_STACK_LIMIT = 10;
     private static final int TRANSIENT_ARRAY_ELEMENT_COUNT = 32;
-    
+
     private static final Logger logger = LoggerFactory.getLogger(T2Interpreter.class);
-    
-    private final Number[] _argStack = new Number[ARGUMENT_STACK_LIMIT];
+
+    private final double[] _argStack = new double[ARGUMENT_STACK_LIMIT];
     private int _argStackIndex = 0;
-    private final SubrPair[] _subrStack = new SubrPair[SUBR_STACK_LIMIT];
+    private final CharstringType2[] _subrStackCs = new CharstringType2[SUBR_STACK_LIMIT];
+    private final int[] _subrStackIp = new int[SUBR_STACK_LIMIT];
+    private final int[] _subrStackEnd = new int[SUBR_STACK_LIMIT];
     private int _subrStackIndex = 0;
-    private final Number[] _transientArray = new Number[TRANSIENT_ARRAY_ELEMENT_COUNT];
-    
+    private final double[] _transientArray = new double[TRANSIENT_ARRAY_ELEMENT_COUNT];
+
     private int _stemCount = 0;
-    private ArrayList<Integer> _hstems;
-    private ArrayList<Integer> _vstems;
-    
-    private ArrayList<Point> _points;
+    private int[] _hstems = new int[16];
+    private int _hstemCount = 0;
+    private int[] _vstems = new int[16];
+    private int _vstemCount = 0;
+
+    private int[] _pointX = new int[64];
+    private int[] _pointY = new int[64];
+    private boolean[] _pointOnCurve = new boolean[64];
+    private boolean[] _pointEndOfContour = new boolean[64];
+    private int _pointCount = 0;
+    private double _x;
+    private double _y;
+
+    private CffFont _font;
     private Index _localSubrIndex;
     private Index _globalSubrIndex;
     private CharstringType2 _localSubrs;
     private CharstringType2 _globalSubrs;
     private CharstringType2 _cs;
     private int _ip;
+    private int _end;
+    private CffInstance _instance;
+    private int _vsindex;
 
     /** Creates a new instance of T2Interpreter */
     public T2Interpreter() {
     }
-    
-    public Integer[] getHStems() {
-        Integer[] array = new Integer[_hstems.size()];
-        return _hstems.toArray(array);
+
+    /**
+     * @return the horizontal stem hints from the most recent execution, as
+     * pairs of edge and width values
+     */
+    public int[] getHStems() {
+        return Arrays.copyOf(_hstems, _hstemCount);
     }
-    
-    public Integer[] getVStems() {
-        Integer[] array = new Integer[_vstems.size()];
-        return _vstems.toArray(array);
+
+    /**
+     * @return the vertical stem hints from the most recent execution, as
+     * pairs of edge and width values
+     */
+    public int[] getVStems() {
+        return Arrays.copyOf(_vstems, _vstemCount);
     }
-    
+
     /**
      * Moves the current point to a position at the relative coordinates
      * (dx1, dy1).
      */
     private void _rmoveto() {
-        int dy1 = popArg().intValue();
-        int dx1 = popArg().intValue();
+        int base = getArgCount() - 2;
+        moveTo(_x + arg(base), _y + arg(base + 1));
         clearArg();
-        Point lastPoint = getLastPoint();
-        moveTo(lastPoint.x + dx1, lastPoint.y + dy1);
     }
 
     /**
      * Moves the current point dx1 units in the horizontal direction.
      */
     private void _hmoveto() {
-        int dx1 = popArg().intValue();
+        moveTo(_x + arg(getArgCount() - 1), _y);
         clearArg();
-        Point lastPoint = getLastPoint();
-        moveTo(lastPoint.x + dx1, lastPoint.y);
     }
-    
+
     /**
      * Moves the current point dy1 units in the vertical direction.
      */
     private void _vmoveto() {
-        int dy1 = popArg().intValue();
+        moveTo(_x, _y + arg(getArgCount() - 1));
         clearArg();
-        Point lastPoint = getLastPoint();
-        moveTo(lastPoint.x, lastPoint.y + dy1);
     }
-    
+
     /**
      * Appends a line from the current point to a position at the
      * relative coordinates dxa, dya. Additional rlineto operations are
@@ -116,20 +130,13 @@ public class T2Interpreter {
      * lines is determined from the number of arguments on the stack.
      */
     private void _rlineto() {
-        int count = getArgCount() / 2;
-        int[] dx = new int[count];
-        int[] dy = new int[count];
-        for (int i = 0; i < count; ++i) {
-            dy[count - i - 1] = popArg().intValue();
-            dx[count - i - 1] = popArg().intValue();
-        }
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            lineTo(lastPoint.x + dx[i], lastPoint.y + dy[i]);
+        int count = getArgCount() & ~1;
+        for (int i = 0; i < count; i += 2) {
+            lineTo(_x + arg(i), _y + arg(i + 1));
         }
         clearArg();
     }
-    
+
     /**
      * Appends a horizontal line of length dx1 to the current point.
      * With an odd number of arguments, subsequent argument pairs
@@ -141,22 +148,9 @@ public class T2Interpreter {
      * number of arguments on the stack.
      */
     private void _hlineto() {
-        int count = getArgCount();
-        Number[] nums = new Number[count];
-        for (int i = 0; i < count; ++i) {
-            nums[count - i - 1] = popArg();
-        }
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            if (i % 2 == 0) {
-                lineTo(lastPoint.x + nums[i].intValue(), lastPoint.y);
-            } else {
-                lineTo(lastPoint.x, lastPoint.y + nums[i].intValue());
-            }
-        }
-        clearArg();
+        alternatingLineTo(true);
     }
-    
+
     /**
      * Appends a vertical line of length dy1 to the current point. With
      * an odd number of arguments, subsequent argument pairs are
@@ -168,22 +162,22 @@ public class T2Interpreter {
      * number of arguments on the stack.
      */
     private void _vlineto() {
+        alternatingLineTo(false);
+    }
+
+    private void alternatingLineTo(boolean horizontal) {
         int count = getArgCount();
-        Number[] nums = new Number[count];
-        for (int i = 0; i < count; ++i) {
-            nums[count - i - 1] = popArg();
-        }
         for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            if (i % 2 == 0) {
-                lineTo(lastPoint.x, lastPoint.y + nums[i].intValue());
+            if (horizontal) {
+                lineTo(_x + arg(i), _y);
             } else {
-                lineTo(lastPoint.x + nums[i].intValue(), lastPoint.y);
+                lineTo(_x, _y + arg(i));
             }
+            horizontal = !horizontal;
         }
         clearArg();
     }
-    
+
     /**
      * Appends a Bezier curve, defined by dxa...dyc, to the current
      * point. For each subsequent set of six arguments, an additional
@@ -193,34 +187,16 @@ public class T2Interpreter {
      * stack.
      */
     private void _rrcurveto() {
-        int count = getArgCount() / 6;
-        int[] dxa = new int[count];
-        int[] dya = new int[count];
-        int[] dxb = new int[count];
-        int[] dyb = new int[count];
-        int[] dxc = new int[count];
-        int[] dyc = new int[count];
-        for (int i = 0; i < count; ++i) {
-            dyc[count - i - 1] = popArg().intValue();
-            dxc[count - i - 1] = popArg().intValue();
-            dyb[count - i - 1] = popArg().intValue();
-            dxb[count - i - 1] = popArg().intValue();
-            dya[count - i - 1] = popArg().intValue();
-            dxa[count - i - 1] = popArg().intValue();
-        }
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            int xa = lastPoint.x + dxa[i];
-            int ya = lastPoint.y + dya[i];
-            int xb = xa + dxb[i];
-            int yb = ya + dyb[i];
-            int xc = xb + dxc[i];
-            int yc = yb + dyc[i];
-            curveTo(xa, ya, xb, yb, xc, yc);
+        int count = getArgCount() - getArgCount() % 6;
+        for (int i = 0; i < count; i += 6) {
+            relativeCurveTo(
+                    arg(i), arg(i + 1),
+                    arg(i + 2), arg(i + 3),
+                    arg(i + 4), arg(i + 5));
         }
         clearArg();
     }
-    
+
     /**
      * Appends one or more Bezier curves, as described by the
      * dxa...dxc set of arguments, to the current point. For each curve,
@@ -229,33 +205,22 @@ public class T2Interpreter {
      * case). Note the argument order for the odd argument case.
      */
     private void _hhcurveto() {
-        int count = getArgCount() / 4;
-        int dy1 = 0;
-        int[] dxa = new int[count];
-        int[] dxb = new int[count];
-        int[] dyb = new int[count];
-        int[] dxc = new int[count];
-        for (int i = 0; i < count; ++i) {
-            dxc[count - i - 1] = popArg().intValue();
-            dyb[count - i - 1] = popArg().intValue();
-            dxb[count - i - 1] = popArg().intValue();
-            dxa[count - i - 1] = popArg().intValue();
-        }
-        if (getArgCount() == 1) {
-            dy1 = popArg().intValue();
+        int count = getArgCount();
+        int i = 0;
+        double dy1 = 0;
+        if (count % 2 == 1) {
+            dy1 = arg(i++);
         }
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            int xa = lastPoint.x + dxa[i];
-            int ya = lastPoint.y + (i == 0 ? dy1 : 0);
-            int xb = xa + dxb[i];
-            int yb = ya + dyb[i];
-            int xc = xb + dxc[i];
-            curveTo(xa, ya, xb, yb, xc, yb);
+        for (; i + 4 <= count; i += 4) {
+            relativeCurveTo(
+                    arg(i), dy1,
+                    arg(i + 1), arg(i + 2),
+                    arg(i + 3), 0);
+            dy1 = 0;
         }
         clearArg();
     }
-    
+
     /**
      * Appends one or more Bezier curves to the current point. The
      * tangent for the first Bezier must be horizontal, and the second
@@ -267,102 +232,9 @@ public class T2Interpreter {
      * end horizontal/vertical.
      */
     private void _hvcurveto() {
-        if (getArgCount() % 8 <= 1) {
-            int count = getArgCount() / 8;
-            int[] dxa = new int[count];
-            int[] dxb = new int[count];
-            int[] dyb = new int[count];
-            int[] dyc = new int[count];
-            int[] dyd = new int[count];
-            int[] dxe = new int[count];
-            int[] dye = new int[count];
-            int[] dxf = new int[count];
-            int dyf = 0;
-            if (getArgCount() % 8 == 1) {
-                dyf = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                dxf[count - i - 1] = popArg().intValue();
-                dye[count - i - 1] = popArg().intValue();
-                dxe[count - i - 1] = popArg().intValue();
-                dyd[count - i - 1] = popArg().intValue();
-                dyc[count - i - 1] = popArg().intValue();
-                dyb[count - i - 1] = popArg().intValue();
-                dxb[count - i - 1] = popArg().intValue();
-                dxa[count - i - 1] = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                Point lastPoint = getLastPoint();
-                int xa = lastPoint.x + dxa[i];
-                int ya = lastPoint.y;
-                int xb = xa + dxb[i];
-                int yb = ya + dyb[i];
-                int yc = yb + dyc[i];
-                int yd = yc + dyd[i];
-                int xe = xb + dxe[i];
-                int ye = yd + dye[i];
-                int xf = xe + dxf[i];
-                int yf = ye + (i == count - 1 ? dyf : 0);
-                curveTo(xa, ya, xb, yb, xb, yc);
-                curveTo(xb, yd, xe, ye, xf, yf);
-            }
-        } else {
-            int count = getArgCount() / 8;
-            int[] dya = new int[count];
-            int[] dxb = new int[count];
-            int[] dyb = new int[count];
-            int[] dxc = new int[count];
-            int[] dxd = new int[count];
-            int[] dxe = new int[count];
-            int[] dye = new int[count];
-            int[] dyf = new int[count];
-            int dxf = 0;
-            if (getArgCount() % 4 == 1) {
-                dxf = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                dyf[count - i - 1] = popArg().intValue();
-                dye[count - i - 1] = popArg().intValue();
-                dxe[count - i - 1] = popArg().intValue();
-                dxd[count - i - 1] = popArg().intValue();
-                dxc[count - i - 1] = popArg().intValue();
-                dyb[count - i - 1] = popArg().intValue();
-                dxb[count - i - 1] = popArg().intValue();
-                dya[count - i - 1] = popArg().intValue();
-            }
-            int dy3 = popArg().intValue();
-            int dy2 = popArg().intValue();
-            int dx2 = popArg().intValue();
-            int dx1 = popArg().intValue();
-            
-            Point lastPoint = getLastPoint();
-            int x1 = lastPoint.x + dx1;
-            int y1 = lastPoint.y;
-            int x2 = x1 + dx2;
-            int y2 = y1 + dy2;
-            int x3 = x2 + (count == 0 ? dxf : 0);
-            int y3 = y2 + dy3;
-            curveTo(x1, y1, x2, y2, x3, y3);
-
-            for (int i = 0; i < count; ++i) {
-                lastPoint = getLastPoint();
-                int xa = lastPoint.x;
-                int ya = lastPoint.y + dya[i];
-                int xb = xa + dxb[i];
-                int yb = ya + dyb[i];
-                int xc = xb + dxc[i];
-                int xd = xc + dxd[i];
-                int xe = xd + dxe[i];
-                int ye = yb + dye[i];
-                int xf = xe + (i == count - 1 ? dxf : 0);
-                int yf = ye + dyf[i];
-                curveTo(xa, ya, xb, yb, xc, yb);
-                curveTo(xd, yb, xe, ye, xf, yf);
-            }
-        }
-        clearArg();
+        alternatingCurveTo(true);
     }
-    
+
     /**
      * Is equivalent to one rrcurveto for each set of six arguments
      * dxa...dyc, followed by exactly one rlineto using the dxd, dyd
@@ -370,39 +242,18 @@ public class T2Interpreter {
      * on the argument stack.
      */
     private void _rcurveline() {
-        int count = (getArgCount() - 2) / 6;
-        int[] dxa = new int[count];
-        int[] dya = new int[count];
-        int[] dxb = new int[count];
-        int[] dyb = new int[count];
-        int[] dxc = new int[count];
-        int[] dyc = new int[count];
-        int dyd = popArg().intValue();
-        int dxd = popArg().intValue();
-        for (int i = 0; i < count; ++i) {
-            dyc[count - i - 1] = popArg().intValue();
-            dxc[count - i - 1] = popArg().intValue();
-            dyb[count - i - 1] = popArg().intValue();
-            dxb[count - i - 1] = popArg().intValue();
-            dya[count - i - 1] = popArg().intValue();
-            dxa[count - i - 1] = popArg().intValue();
-        }
-        int xc = 0;
-        int yc = 0;
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            int xa = lastPoint.x + dxa[i];
-            int ya = lastPoint.y + dya[i];
-            int xb = xa + dxb[i];
-            int yb = ya + dyb[i];
-            xc = xb + dxc[i];
-            yc = yb + dyc[i];
-            curveTo(xa, ya, xb, yb, xc, yc);
+        int count = getArgCount();
+        int i = 0;
+        for (; i + 6 <= count - 2; i += 6) {
+            relativeCurveTo(
+                    arg(i), arg(i + 1),
+                    arg(i + 2), arg(i + 3),
+                    arg(i + 4), arg(i + 5));
         }
-        lineTo(xc + dxd, yc + dyd);
+        lineTo(_x + arg(i), _y + arg(i + 1));
         clearArg();
     }
-    
+
     /**
      * Is equivalent to one rlineto for each pair of arguments beyond
      * the six arguments dxb...dyd needed for the one rrcurveto
@@ -410,37 +261,18 @@ public class T2Interpreter {
      * items on the argument stack.
      */
     private void _rlinecurve() {
-        int count = (getArgCount() - 6) / 2;
-        int[] dxa = new int[count];
-        int[] dya = new int[count];
-        int dyd = popArg().intValue();
-        int dxd = popArg().intValue();
-        int dyc = popArg().intValue();
-        int dxc = popArg().intValue();
-        int dyb = popArg().intValue();
-        int dxb = popArg().intValue();
-        for (int i = 0; i < count; ++i) {
-            dya[count - i - 1] = popArg().intValue();
-            dxa[count - i - 1] = popArg().intValue();
-        }
-        int xa = 0;
-        int ya = 0;
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            xa = lastPoint.x + dxa[i];
-            ya = lastPoint.y + dya[i];
-            lineTo(xa, ya);
+        int count = getArgCount();
+        int i = 0;
+        for (; i + 2 <= count - 6; i += 2) {
+            lineTo(_x + arg(i), _y + arg(i + 1));
         }
-        int xb = xa + dxb;
-        int yb = ya + dyb;
-        int xc = xb + dxc;
-        int yc = yb + dyc;
-        int xd = xc + dxd;
-        int yd = yc + dyd;
-        curveTo(xb, yb, xc, yc, xd, yd);
+        relativeCurveTo(
+                arg(i), arg(i + 1),
+                arg(i + 2), arg(i + 3),
+                arg(i + 4), arg(i + 5));
         clearArg();
     }
-    
+
     /**
      * Appends one or more Bezier curves to the current point, where
      * the first tangent is vertical and the second tangent is horizontal.
@@ -448,102 +280,35 @@ public class T2Interpreter {
      * description of hvcurveto for more information.
      */
     private void _vhcurveto() {
-        if (getArgCount() % 8 <= 1) {
-            int count = getArgCount() / 8;
-            int[] dya = new int[count];
-            int[] dxb = new int[count];
-            int[] dyb = new int[count];
-            int[] dxc = new int[count];
-            int[] dxd = new int[count];
-            int[] dxe = new int[count];
-            int[] dye = new int[count];
-            int[] dyf = new int[count];
-            int dxf = 0;
-            if (getArgCount() % 8 == 1) {
-                dxf = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                dyf[count - i - 1] = popArg().intValue();
-                dye[count - i - 1] = popArg().intValue();
-                dxe[count - i - 1] = popArg().intValue();
-                dxd[count - i - 1] = popArg().intValue();
-                dxc[count - i - 1] = popArg().intValue();
-                dyb[count - i - 1] = popArg().intValue();
-                dxb[count - i - 1] = popArg().intValue();
-                dya[count - i - 1] = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                Point lastPoint = getLastPoint();
-                int xa = lastPoint.x;
-                int ya = lastPoint.y + dya[i];
-                int xb = xa + dxb[i];
-                int yb = ya + dyb[i];
-                int xc = xb + dxc[i];
-                int xd = xc + dxd[i];
-                int xe = xd + dxe[i];
-                int ye = yb + dye[i];
-                int xf = xe + (i == count - 1 ? dxf : 0);
-                int yf = ye + dyf[i];
-                curveTo(xa, ya, xb, yb, xc, yb);
-                curveTo(xd, yb, xe, ye, xf, yf);
-            }
-        } else {
-            int count = getArgCount() / 8;
-            int[] dxa = new int[count];
-            int[] dxb = new int[count];
-            int[] dyb = new int[count];
-            int[] dyc = new int[count];
-            int[] dyd = new int[count];
-            int[] dxe = new int[count];
-            int[] dye = new int[count];
-            int[] dxf = new int[count];
-            int dyf = 0;
-            if (getArgCount() % 4 == 1) {
-                dyf = popArg().intValue();
-            }
-            for (int i = 0; i < count; ++i) {
-                dxf[count - i - 1] = popArg().intValue();
-                dye[count - i - 1] = popArg().intValue();
-                dxe[count - i - 1] = popArg().intValue();
-                dyd[count - i - 1] = popArg().intValue();
-                dyc[count - i - 1] = popArg().intValue();
-                dyb[count - i - 1] = popArg().intValue();
-                dxb[count - i - 1] = popArg().intValue();
-                dxa[count - i - 1] = popArg().intValue();
-            }
-            int dx3 = popArg().intValue();
-            int dy2 = popArg().intValue();
-            int dx2 = popArg().intValue();
-            int dy1 = popArg().intValue();
-
-            Point lastPoint = getLastPoint();
-            int x1 = lastPoint.x;
-            int y1 = lastPoint.y + dy1;
-            int x2 = x1 + dx2;
-            int y2 = y1 + dy2;
-            int x3 = x2 + dx3;
-            int y3 = y2 + (count == 0 ? dyf : 0);
-            curveTo(x1, y1, x2, y2, x3, y3);
-
-            for (int i = 0; i < count; ++i) {
-                lastPoint = getLastPoint();
-                int xa = lastPoint.x + dxa[i];
-                int ya = lastPoint.y;
-                int xb = xa + dxb[i];
-                int yb = ya + dyb[i];
-                int yc = yb + dyc[i];
-                int yd = yc + dyd[i];
-                int xe = xb + dxe[i];
-                int ye = yd + dye[i];
-                int xf = xe + dxf[i];
-                int yf = ye + (i == count - 1 ? dyf : 0);
-                curveTo(xa, ya, xb, yb, xb, yc);
-                curveTo(xb, yd, xe, ye, xf, yf);
+        alternatingCurveTo(false);
+    }
+
+    /**
+     * The curves described by hvcurveto and vhcurveto alternate between
+     * starting horizontal and ending vertical, and starting vertical and
+     * ending horizontal, with an optional final argument giving the
+     * otherwise zero end delta of the last curve.
+     */
+    private void alternatingCurveTo(boolean horizontal) {
+        int count = getArgCount();
+        for (int i = 0; i + 4 <= count; i += 4) {
+            double last = (count - i == 5) ? arg(i + 4) : 0;
+            if (horizontal) {
+                relativeCurveTo(
+                        arg(i), 0,
+                        arg(i + 1), arg(i + 2),
+                        last, arg(i + 3));
+            } else {
+                relativeCurveTo(
+                        0, arg(i),
+                        arg(i + 1), arg(i + 2),
+                        arg(i + 3), last);
             }
+            horizontal = !horizontal;
         }
         clearArg();
     }
-    
+
     /**
      * Appends one or more curves to the current point. If the argument
      * count is a multiple of four, the curve starts and ends vertical. If
@@ -551,34 +316,22 @@ public class T2Interpreter {
      * vertical tangent.
      */
     private void _vvcurveto() {
-        int count = getArgCount() / 4;
-        int dx1 = 0;
-        int[] dya = new int[count];
-        int[] dxb = new int[count];
-        int[] dyb = new int[count];
-        int[] dyc = new int[count];
-        for (int i = 0; i < count; ++i) {
-            dyc[count - i - 1] = popArg().intValue();
-            dyb[count - i - 1] = popArg().intValue();
-            dxb[count - i - 1] = popArg().intValue();
-            dya[count - i - 1] = popArg().intValue();
-        }
-        if (getArgCount() == 1) {
-            dx1 = popArg().intValue();
+        int count = getArgCount();
+        int i = 0;
+        double dx1 = 0;
+        if (count % 2 == 1) {
+            dx1 = arg(i++);
         }
-        for (int i = 0; i < count; ++i) {
-            Point lastPoint = getLastPoint();
-            int xa = lastPoint.x + (i == 0 ? dx1 : 0);
-            int ya = lastPoint.y + dya[i];
-            int xb = xa + dxb[i];
-            int yb = ya + dyb[i];
-            int yc = yb + dyc[i];
-            curveTo(xa, ya, xb, yb, xb, yc);
+        for (; i + 4 <= count; i += 4) {
+            relativeCurveTo(
+                    dx1, arg(i),
+                    arg(i + 1), arg(i + 2),
+                    0, arg(i + 3));
+            dx1 = 0;
         }
-        
         clearArg();
     }
-    
+
     /**
      * Causes two Bézier curves, as described by the arguments (as
      * shown in Figure 2 below), to be rendered as a straight line when
@@ -587,10 +340,11 @@ public class T2Interpreter {
      * pixels.
      */
     private void _flex() {
-        
+        relativeCurveTo(arg(0), arg(1), arg(2), arg(3), arg(4), arg(5));
+        relativeCurveTo(arg(6), arg(7), arg(8), arg(9), arg(10), arg(11));
         clearArg();
     }
-    
+
     /**
      * Causes the two curves described by the arguments dx1...dx6 to
      * be rendered as a straight line when the flex depth is less than
@@ -598,10 +352,12 @@ public class T2Interpreter {
      * flex depth is greater than or equal to 0.5 device pixels.
      */
     private void _hflex() {
-        
+        double dy2 = arg(2);
+        relativeCurveTo(arg(0), 0, arg(1), dy2, arg(3), 0);
+        relativeCurveTo(arg(4), 0, arg(5), -dy2, arg(6), 0);
         clearArg();
     }
-    
+
     /**
      * Causes the two curves described by the arguments to be
      * rendered as a straight line when the flex depth is less than 0.5
@@ -609,10 +365,14 @@ public class T2Interpreter {
      * than or equal to 0.5 device pixels.
      */
     private void _hflex1() {
-        
+        double dy1 = arg(1);
+        double dy2 = arg(3);
+        double dy5 = arg(7);
+        relativeCurveTo(arg(0), dy1, arg(2), dy2, arg(4), 0);
+        relativeCurveTo(arg(5), 0, arg(6), dy5, arg(8), -(dy1 + dy2 + dy5));
         clearArg();
     }
-    
+
     /**
      * Causes the two curves described by the arguments to be
      * rendered as a straight line when the flex depth is less than 0.5
@@ -620,10 +380,22 @@ public class T2Interpreter {
      * than or equal to 0.5 device pixels.
      */
     private void _flex1() {
-        
+        double dx = 0;
+        double dy = 0;
+        for (int i = 0; i < 10; i += 2) {
+            dx += arg(i);
+            dy += arg(i + 1);
+        }
+        double d6 = arg(10);
+        relativeCurveTo(arg(0), arg(1), arg(2), arg(3), arg(4), arg(5));
+        if (Math.abs(dx) > Math.abs(dy)) {
+            relativeCurveTo(arg(6), arg(7), arg(8), arg(9), d6, -dy);
+        } else {
+            relativeCurveTo(arg(6), arg(7), arg(8), arg(9), -dx, d6);
+        }
         clearArg();
     }
-    
+
     /**
      * Finishes a charstring outline definition, and must be the
      * last operator in a character's outline.
@@ -631,151 +403,133 @@ public class T2Interpreter {
     private void _endchar() {
         endContour();
         clearArg();
-        while (_subrStackIndex > 0) {
-            SubrPair sp = popSubr();
-            _cs = sp.cs;
-            _ip = sp.ip;
+        if (_subrStackIndex > 0) {
+            _cs = _subrStackCs[0];
+            _ip = _subrStackIp[0];
+            _end = _subrStackEnd[0];
+            _subrStackIndex = 0;
         }
     }
-    
+
     /**
      * Specifies one or more horizontal stem hints. This allows multiple pairs
      * of numbers, limited by the stack depth, to be used as arguments to a
      * single hstem operator.
      */
     private void _hstem() {
-        int pairCount = getArgCount() / 2;
-        for (int i = 0; i < pairCount; ++i) {
-            _hstems.add(0, popArg().intValue());
-            _hstems.add(0, popArg().intValue());
-        }
-
-        if (getArgCount() > 0) {
-            
-            // This will be the width value
-            popArg();
-        }
+        _hstems = addStems(_hstems, _hstemCount);
+        _hstemCount += getArgCount() & ~1;
+        clearArg();
     }
-    
+
     /**
      * Specifies one or more vertical stem hints between the x coordinates x
      * and x+dx, where x is relative to the origin of the coordinate axes.
      */
     private void _vstem() {
-        int pairCount = getArgCount() / 2;
-        for (int i = 0; i < pairCount; ++i) {
-            _vstems.add(0, popArg().intValue());
-            _vstems.add(0, popArg().intValue());
-        }
-
-        if (getArgCount() > 0) {
-            
-            // This will be the width value
-            popArg();
-        }
+        _vstems = addStems(_vstems, _vstemCount);
+        _vstemCount += getArgCount() & ~1;
+        clearArg();
     }
-    
+
     /**
      * Has the same meaning as hstem, except that it must be used in place
      * of hstem if the charstring contains one or more hintmask operators.
      */
     private void _hstemhm() {
-        _stemCount += getArgCount() / 2;
-        int pairCount = getArgCount() / 2;
-        for (int i = 0; i < pairCount; ++i) {
-            _hstems.add(0, popArg().intValue());
-            _hstems.add(0, popArg().intValue());
-        }
-
-        if (getArgCount() > 0) {
-            
-            // This will be the width value
-            popArg();
-        }
+        _hstem();
     }
-    
+
     /**
      * Has the same meaning as vstem, except that it must be used in place
      * of vstem if the charstring contains one or more hintmask operators.
      */
     private void _vstemhm() {
-        _stemCount += getArgCount() / 2;
+        _vstem();
+    }
+
+    /**
+     * Appends the stem pairs on the argument stack (skipping any width
+     * value at the bottom) to the given array, growing it if need be.
+     */
+    private int[] addStems(int[] stems, int stemCount) {
         int pairCount = getArgCount() / 2;
-        for (int i = 0; i < pairCount; ++i) {
-            _vstems.add(0, popArg().intValue());
-            _vstems.add(0, popArg().intValue());
+        _stemCount += pairCount;
+        if (stemCount + pairCount * 2 > stems.length) {
+            stems = Arrays.copyOf(stems, Math.max(stems.length * 2, stemCount + pairCount * 2));
         }
-
-        if (getArgCount() > 0) {
-            
-            // This will be the width value
-            popArg();
+        int base = getArgCount() % 2;
+        for (int i = 0; i < pairCount * 2; ++i) {
+            stems[stemCount + i] = (int) arg(base + i);
         }
+        return stems;
     }
-    
+
     /**
      * Specifies which hints are active and which are not active.
      */
     private void _hintmask() {
-        _stemCount += getArgCount() / 2;
+        if (getArgCount() > 1) {
+
+            // An implied vstemhm
+            _vstem();
+        }
         _ip += (_stemCount - 1) / 8 + 1;
         clearArg();
     }
-    
+
     /**
      * Specifies the counter spaces to be controlled, and their
      * relative priority.
      */
     private void _cntrmask() {
-        _stemCount += getArgCount() / 2;
-        _ip += (_stemCount - 1) / 8 + 1;
-        clearArg();
+        _hintmask();
     }
-    
+
     /**
      * Returns the absolute value of num.
      */
     private void _abs() {
-        double num = popArg().doubleValue();
+        double num = popArg();
         pushArg(Math.abs(num));
     }
-    
+
     /**
      * Returns the sum of the two numbers num1 and num2.
      */
     private void _add() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num1 + num2);
     }
-    
+
     /**
      * Returns the result of subtracting num2 from num1.
      */
     private void _sub() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num1 - num2);
     }
-    
+
     /**
      * Returns the quotient of num1 divided by num2. The result is
      * undefined if overflow occurs and is zero for underflow.
      */
     private void _div() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num1 / num2);
     }
-    
+
     /**
      * Returns the negative of num.
      */
     private void _neg() {
-        double num = popArg().doubleValue();
+        double num = popArg();
         pushArg(-num);
     }
-    
+
     /**
      * Returns a pseudo random number num2 in the range (0,1], that
      * is, greater than zero and less than or equal to one.
@@ -783,43 +537,43 @@ public class T2Interpreter {
     private void _random() {
         pushArg(1.0 - Math.random());
     }
-    
+
     /**
      * Returns the product of num1 and num2. If overflow occurs, the
      * result is undefined, and zero is returned for underflow.
      */
     private void _mul() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num1 * num2);
     }
-    
+
     /**
      * Returns the square root of num. If num is negative, the result is
      * undefined.
      */
     private void _sqrt() {
-        double num = popArg().doubleValue();
+        double num = popArg();
         pushArg(Math.sqrt(num));
     }
-    
+
     /**
      * Removes the top element num from the Type 2 argument stack.
      */
     private void _drop() {
         popArg();
     }
-    
+
     /**
      * Exchanges the top two elements on the argument stack.
      */
     private void _exch() {
-        Number num2 = popArg();
-        Number num1 = popArg();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num2);
         pushArg(num1);
     }
-    
+
     /**
      * Retrieves the element i from the top of the argument stack and
      * pushes a copy of that element onto that stack. If i is negative,
@@ -827,17 +581,13 @@ public class T2Interpreter {
      * undefined.
      */
     private void _index() {
-        int i = popArg().intValue();
-        Number[] nums = new Number[i];
-        for (int j = 0; j < i; ++j) {
-            nums[j] = popArg();
+        int i = (int) popArg();
+        if (i < 0) {
+            i = 0;
         }
-        for (int j = i - 1; j >= 0; --j) {
-            pushArg(nums[j]);
-        }
-        pushArg(nums[i]);
+        pushArg(_argStack[_argStackIndex - 1 - i]);
     }
-    
+
     /**
      * Performs a circular shift of the elements num(N-1) ... num0 on
      * the argument stack by the amount J. Positive J indicates upward
@@ -846,35 +596,49 @@ public class T2Interpreter {
      * operation is undefined.
      */
     private void _roll() {
-        int j = popArg().intValue();
-        int n = popArg().intValue();
-        Number[] nums = new Number[n];
-        for (int i = 0; i < n; ++i) {
-            nums[i] = popArg();
+        int j = (int) popArg();
+        int n = (int) popArg();
+        if (n <= 0) {
+            return;
+        }
+        j %= n;
+        if (j < 0) {
+            j += n;
         }
-        for (int i = n - 1; i >= 0; --i) {
-            pushArg(nums[(n + i + j) % n]);
+
+        // Rotate in place by reversing the whole range, then each part
+        int start = _argStackIndex - n;
+        reverseArgs(start, _argStackIndex - 1);
+        reverseArgs(start, start + j - 1);
+        reverseArgs(start + j, _argStackIndex - 1);
+    }
+
+    private void reverseArgs(int from, int to) {
+        while (from < to) {
+            double tmp = _argStack[from];
+            _argStack[from++] = _argStack[to];
+            _argStack[to--] = tmp;
         }
     }
-    
+
     /**
      * Duplicates the top element on the argument stack.
      */
     private void _dup() {
-        Number any = popArg();
+        double any = popArg();
         pushArg(any);
         pushArg(any);
     }
-    
+
     /**
      * Stores val into the transient array at the location given by i.
      */
     private void _put() {
-        int i = popArg().intValue();
-        Number val = popArg();
+        int i = (int) popArg();
+        double val = popArg();
         _transientArray[i] = val;
     }
-    
+
     /**
      * Retrieves the value stored in the transient array at the location
      * given by i and pushes the value onto the argument stack. If get
@@ -882,61 +646,61 @@ public class T2Interpreter {
      * charstring, the value returned is undefined.
      */
     private void _get() {
-        int i = popArg().intValue();
+        int i = (int) popArg();
         pushArg(_transientArray[i]);
     }
-    
+
     /**
      * Puts a 1 on the stack if num1 and num2 are both non-zero, and
      * puts a 0 on the stack if either argument is zero.
      */
     private void _and() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg((num1!=0.0) && (num2!=0.0) ? 1 : 0);
     }
-    
+
     /**
      * Puts a 1 on the stack if either num1 or num2 are non-zero, and
      * puts a 0 on the stack if both arguments are zero.
      */
     private void _or() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg((num1!=0.0) || (num2!=0.0) ? 1 : 0);
     }
-    
+
     /**
      * Returns a 0 if num1 is non-zero; returns a 1 if num1 is zero.
      */
     private void _not() {
-        double num1 = popArg().doubleValue();
+        double num1 = popArg();
         pushArg((num1!=0.0) ? 0 : 1);
     }
-    
+
     /**
      * Puts a 1 on the stack if num1 equals num2, otherwise a 0 (zero)
      * is put on the stack.
      */
     private void _eq() {
-        double num2 = popArg().doubleValue();
-        double num1 = popArg().doubleValue();
+        double num2 = popArg();
+        double num1 = popArg();
         pushArg(num1 == num2 ? 1 : 0);
     }
-    
+
     /**
      * Leaves the value s1 on the stack if v1 ? v2, or leaves s2 on the
      * stack if v1 > v2. The value of s1 and s2 is usually the biased
      * number of a subroutine.
      */
     private void _ifelse() {
-        double v2 = popArg().doubleValue();
-        double v1 = popArg().doubleValue();
-        Number s2 = popArg();
-        Number s1 = popArg();
+        double v2 = popArg();
+        double v1 = popArg();
+        double s2 = popArg();
+        double s1 = popArg();
         pushArg(v1 <= v2 ? s1 : s2);
     }
-    
+
     /**
      * Calls a charstring subroutine with index subr# (actually the subr
      * number plus the subroutine bias number, as described in section
@@ -948,80 +712,142 @@ public class T2Interpreter {
      * Calling an undefined subr (gsubr) has undefined results.
      */
     private void _callsubr() {
-        int bias;
-        int subrsCount = _localSubrIndex.getCount();
-        if (subrsCount < 1240) {
-            bias = 107;
-        } else if (subrsCount < 33900) {
-            bias = 1131;
-        } else {
-            bias = 32768;
-        }
-        int i = popArg().intValue();
-        int offset = _localSubrIndex.getOffset(i + bias) - 1;
-        pushSubr(new SubrPair(_cs, _ip));
+        int i = (int) popArg();
+        i += bias(_localSubrIndex);
+        pushSubr(_cs, _ip, _end);
         _cs = _localSubrs;
-        _ip = offset;
+        _ip = _localSubrIndex.getItemOffset(i);
+        _end = _ip + _localSubrIndex.getItemLength(i);
     }
-    
+
     /**
      * Operates in the same manner as callsubr except that it calls a
      * global subroutine.
      */
     private void _callgsubr() {
-        int bias;
-        int subrsCount = _globalSubrIndex.getCount();
+        int i = (int) popArg();
+        i += bias(_globalSubrIndex);
+        pushSubr(_cs, _ip, _end);
+        _cs = _globalSubrs;
+        _ip = _globalSubrIndex.getItemOffset(i);
+        _end = _ip + _globalSubrIndex.getItemLength(i);
+    }
+
+    static int bias(Index subrIndex) {
+        int subrsCount = subrIndex.getCount();
         if (subrsCount < 1240) {
-            bias = 107;
+            return 107;
         } else if (subrsCount < 33900) {
-            bias = 1131;
+            return 1131;
         } else {
-            bias = 32768;
+            return 32768;
         }
-        int i = popArg().intValue();
-        int offset = _globalSubrIndex.getOffset(i + bias) - 1;
-        pushSubr(new SubrPair(_cs, _ip));
-        _cs = _globalSubrs;
-        _ip = offset;
     }
-    
+
     /**
      * Returns from either a local or global charstring subroutine, and
      * continues execution after the corresponding call(g)subr.
      */
     private void _return() {
-        SubrPair sp = popSubr();
-        _cs = sp.cs;
-        _ip = sp.ip;
+        --_subrStackIndex;
+        _cs = _subrStackCs[_subrStackIndex];
+        _ip = _subrStackIp[_subrStackIndex];
+        _end = _subrStackEnd[_subrStackIndex];
+        _subrStackCs[_subrStackIndex] = null;
     }
-    
-    public Point[] execute(CharstringType2 cs) {
-        _localSubrIndex = cs.getFont().getLocalSubrIndex();
-        _globalSubrIndex = cs.getFont().getTable().getGlobalSubrIndex();
-        _localSubrs = new CharstringType2(
-                null,
-                0,
-                "Local subrs",
-                _localSubrIndex.getData(),
-                _localSubrIndex.getOffset(0) - 1,
-                _localSubrIndex.getDataLength());
-        _globalSubrs = new CharstringType2(
-                null,
-                0,
-                "Global subrs",
-                _globalSubrIndex.getData(),
-                _globalSubrIndex.getOffset(0) - 1,
-                _globalSubrIndex.getDataLength());
+
+    /**
+     * CFF2: Selects the Item Variation Data used by subsequent blends, in
+     * place of the one given by the Private DICT.
+     */
+    private void _vsindex() {
+        _vsindex = (int) popArg();
+        clearArg();
+    }
+
+    /**
+     * CFF2: Replaces the n default values on the stack, and the n sets of
+     * region deltas following them, with the values for the instance being
+     * interpreted.
+     */
+    private void _blend() {
+        int n = (int) popArg();
+        if (_vsindex < 0) {
+            Dict privateDict = _font.getPrivateDict(_cs.getIndex());
+            _vsindex = privateDict != null ? privateDict.getVariationStoreIndex() : 0;
+        }
+        ItemVariationStore vstore = _font.getVariationStore();
+        int k = vstore != null ? vstore.getRegionIndexCount(_vsindex) : 0;
+        int base = getArgCount() - n * (k + 1);
+        double[] scalars = _instance != null ? _instance.getScalars(_vsindex) : null;
+        if (scalars != null) {
+            for (int i = 0; i < n; ++i) {
+                double value = _argStack[base + i];
+                int deltas = base + n + i * k;
+                for (int j = 0; j < k; ++j) {
+                    value += _argStack[deltas + j] * scalars[j];
+                }
+                _argStack[base + i] = value;
+            }
+        }
+        _argStackIndex = base + n;
+    }
+
+    private boolean run(CharstringType2 cs, CffInstance instance) {
+        if (_font != cs.getFont()) {
+            _font = cs.getFont();
+            _globalSubrIndex = _font.getGlobalSubrIndex();
+            _globalSubrs = new CharstringType2(
+                    null,
+                    0,
+                    "Global subrs",
+                    _globalSubrIndex.getData(),
+                    _globalSubrIndex.getDataOffset(),
+                    _globalSubrIndex.getDataLength());
+        }
+
+        // In a CID-keyed font, the local subrs depend upon the glyph's FD
+        Index localSubrIndex = _font.getLocalSubrIndex(cs.getIndex());
+        if (_localSubrIndex != localSubrIndex) {
+            _localSubrIndex = localSubrIndex;
+            _localSubrs = _localSubrIndex != null
+                    ? new CharstringType2(
+                            null,
+                            0,
+                            "Local subrs",
+                            _localSubrIndex.getData(),
+                            _localSubrIndex.getDataOffset(),
+                            _localSubrIndex.getDataLength())
+                    : null;
+        }
         _cs = cs;
+        _instance = instance;
+        _vsindex = -1;
 
-        _hstems = new ArrayList<>();
-        _vstems = new ArrayList<>();
+        _argStackIndex = 0;
+        _subrStackIndex = 0;
+        _stemCount = 0;
+        _hstemCount = 0;
+        _vstemCount = 0;
+        _pointCount = 0;
+        _x = 0;
+        _y = 0;
 
-        _points = new ArrayList<>();
         _ip = _cs.getFirstIndex();
-        while (_cs.moreBytes(_ip)) {
+        _end = _cs.getEndIndex();
+        while (true) {
+            if (_ip >= _end) {
+
+                // CFF2 charstrings and subroutines end without an endchar or
+                // return
+                if (_subrStackIndex == 0) {
+                    break;
+                }
+                _return();
+                continue;
+            }
             while (_cs.isOperandAtIndex(_ip)) {
-                pushArg(_cs.operandAtIndex(_ip));
+                pushArg(_cs.operandValueAtIndex(_ip));
                 _ip = _cs.nextOperandIndex(_ip);
             }
             int operator = _cs.byteAtIndex(_ip++);
@@ -1104,7 +930,7 @@ public class T2Interpreter {
                     break;
                 default:
                     //throw new Exception();
-                    return null;
+                    return false;
                 }
             } else {
 
@@ -1140,6 +966,12 @@ public class T2Interpreter {
                 case T2Mnemonic.ENDCHAR:
                     _endchar();
                     break;
+                case T2Mnemonic.VSINDEX:
+                    _vsindex();
+                    break;
+                case T2Mnemonic.BLEND:
+                    _blend();
+                    break;
                 case T2Mnemonic.HSTEMHM:
                     _hstemhm();
                     break;
@@ -1181,98 +1013,163 @@ public class T2Interpreter {
                     break;
                 default:
                     //throw new Exception();
-                    return null;
+                    return false;
                 }
             }
         }
-        Point[] pointArray = new Point[_points.size()];
-        _points.toArray(pointArray);
+        endContour();
+        return true;
+    }
+
+    public Point[] execute(CharstringType2 cs) {
+        if (!run(cs, null)) {
+            return null;
+        }
+        Point[] pointArray = new Point[_pointCount];
+        for (int i = 0; i < _pointCount; ++i) {
+            pointArray[i] = new Point(
+                    _pointX[i],
+                    _pointY[i],
+                    _pointOnCurve[i],
+                    _pointEndOfContour[i]);
+        }
         return pointArray;
     }
 
+    /**
+     * Interprets the charstring into an immutable outline, which unlike the
+     * points returned by {@link #execute(CharstringType2)} may be shared.
+     * @param cs the charstring to interpret
+     * @return the outline, or null if the charstring couldn't be interpreted
+     */
+    public T2Outline executeOutline(CharstringType2 cs) {
+        return executeOutline(cs, null);
+    }
+
+    /**
+     * Interprets a CFF2 charstring for an instance of the variable font,
+     * evaluating its blends with the instance's region scalars.
+     * @param cs the charstring to interpret
+     * @param instance the instance, or null for the default instance
+     * @return the outline, or null if the charstring couldn't be interpreted
+     */
+    public T2Outline executeOutline(CharstringType2 cs, CffInstance instance) {
+        if (!run(cs, instance)) {
+            return null;
+        }
+        return new T2Outline(
+                Arrays.copyOf(_pointX, _pointCount),
+                Arrays.copyOf(_pointY, _pointCount),
+                Arrays.copyOf(_pointOnCurve, _pointCount),
+                Arrays.copyOf(_pointEndOfContour, _pointCount),
+                getHStems(),
+                getVStems());
+    }
+
     /**
      * The number of arguments on the argument stack
      */
     private int getArgCount() {
         return _argStackIndex;
     }
-    
+
+    /**
+     * The argument at index i, counting up from the bottom of the stack
+     */
+    private double arg(int i) {
+        return _argStack[i];
+    }
+
     /**
      * Pop a value off the argument stack
      */
-    private Number popArg() {
+    private double popArg() {
+        double n = _argStack[--_argStackIndex];
         if (logger.isTraceEnabled()) {
             logger.trace(
                     "popArg: {} {}",
-                    _argStack[_argStackIndex - 1],
-                    java.util.Arrays.copyOfRange(_argStack, 0, _argStackIndex - 1));
+                    n,
+                    Arrays.copyOfRange(_argStack, 0, _argStackIndex));
         }
-        return _argStack[--_argStackIndex];
+        return n;
     }
 
     /**
      * Push a value on to the argument stack
      */
-    private void pushArg(Number n) {
+    private void pushArg(double n) {
         _argStack[_argStackIndex++] = n;
         if (logger.isTraceEnabled()) {
             logger.trace(
                     "pushArg: {} {}",
                     n,
-                    java.util.Arrays.copyOfRange(_argStack, 0, _argStackIndex - 1));
+                    Arrays.copyOfRange(_argStack, 0, _argStackIndex - 1));
         }
     }
-    
-    /**
-     * Pop a value off the subroutine stack
-     */
-    private SubrPair popSubr() {
-        return _subrStack[--_subrStackIndex];
-    }
 
     /**
-     * Push a value on to the subroutine stack
+     * Push a return location on to the subroutine stack
      */
-    private void pushSubr(SubrPair sp) {
-        _subrStack[_subrStackIndex] = sp;
+    private void pushSubr(CharstringType2 cs, int ip, int end) {
+        _subrStackCs[_subrStackIndex] = cs;
+        _subrStackIp[_subrStackIndex] = ip;
+        _subrStackEnd[_subrStackIndex] = end;
         _subrStackIndex++;
     }
-    
+
     /**
      * Clear the argument stack
      */
     private void clearArg() {
         _argStackIndex = 0;
     }
-    
-    private Point getLastPoint() {
-        int size = _points.size();
-        if (size > 0) {
-            return _points.get(size - 1);
-        } else {
-            return new Point(0, 0, true, false);
-        }
-    }
-    
-    private void moveTo(int x, int y) {
+
+    private void moveTo(double x, double y) {
         endContour();
-        _points.add(new Point(x, y, true, false));
+        addPoint(x, y, true);
     }
-    
-    private void lineTo(int x, int y) {
-        _points.add(new Point(x, y, true, false));
+
+    private void lineTo(double x, double y) {
+        addPoint(x, y, true);
     }
-    
-    private void curveTo(int cx1, int cy1, int cx2, int cy2, int x, int y) {
-        _points.add(new Point(cx1, cy1, false, false));
-        _points.add(new Point(cx2, cy2, false, false));
-        _points.add(new Point(x, y, true, false));
+
+    /**
+     * Appends a curve whose control and end points are each relative to
+     * the one before, starting at the current point.
+     */
+    private void relativeCurveTo(
+            double dxa, double dya,
+            double dxb, double dyb,
+            double dxc, double dyc) {
+        double xa = _x + dxa;
+        double ya = _y + dya;
+        double xb = xa + dxb;
+        double yb = ya + dyb;
+        addPoint(xa, ya, false);
+        addPoint(xb, yb, false);
+        addPoint(xb + dxc, yb + dyc, true);
+    }
+
+    private void addPoint(double x, double y, boolean onCurve) {
+        if (_pointCount == _pointX.length) {
+            int newLength = _pointCount * 2;
+            _pointX = Arrays.copyOf(_pointX, newLength);
+            _pointY = Arrays.copyOf(_pointY, newLength);
+            _pointOnCurve = Arrays.copyOf(_pointOnCurve, newLength);
+            _pointEndOfContour = Arrays.copyOf(_pointEndOfContour, newLength);
+        }
+        _pointX[_pointCount] = (int) x;
+        _pointY[_pointCount] = (int) y;
+        _pointOnCurve[_pointCount] = onCurve;
+        _pointEndOfContour[_pointCount] = false;
+        ++_pointCount;
+        _x = x;
+        _y = y;
     }
-    
+
     private void endContour() {
-        Point lastPoint = getLastPoint();
-        if (lastPoint != null) {
-            lastPoint.endOfContour = true;
+        if (_pointCount > 0) {
+            _pointEndOfContour[_pointCount - 1] = true;
         }
     }
 }
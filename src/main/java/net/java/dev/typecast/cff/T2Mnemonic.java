@@ -38,6 +38,8 @@ class T2Mnemonic {
     public static final short RETURN = 0x0b;
     public static final short ESCAPE = 0x0c;
     public static final short ENDCHAR = 0x0e;
+    public static final short VSINDEX = 0x0f;
+    public static final short BLEND = 0x10;
     public static final short HSTEMHM = 0x12;
     public static final short HINTMASK = 0x13;
     public static final short CNTRMASK = 0x14;
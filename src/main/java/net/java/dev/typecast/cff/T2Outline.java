@@ -0,0 +1,100 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.Point;
+
+/**
+ * The result of interpreting a Type 2 charstring: the points of its cubic
+ * outline, and its stem hints.  An outline is immutable, so it can be cached
+ * and shared, with callers being given copies of its points.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class T2Outline {
+
+    private final int[] _x;
+    private final int[] _y;
+    private final boolean[] _onCurve;
+    private final boolean[] _endOfContour;
+    private final int[] _hstems;
+    private final int[] _vstems;
+
+    T2Outline(
+            int[] x,
+            int[] y,
+            boolean[] onCurve,
+            boolean[] endOfContour,
+            int[] hstems,
+            int[] vstems) {
+        _x = x;
+        _y = y;
+        _onCurve = onCurve;
+        _endOfContour = endOfContour;
+        _hstems = hstems;
+        _vstems = vstems;
+    }
+
+    public int getPointCount() {
+        return _x.length;
+    }
+
+    public int getX(int i) {
+        return _x[i];
+    }
+
+    public int getY(int i) {
+        return _y[i];
+    }
+
+    public boolean isOnCurve(int i) {
+        return _onCurve[i];
+    }
+
+    public boolean isEndOfContour(int i) {
+        return _endOfContour[i];
+    }
+
+    /**
+     * @return a new array of new points, which the caller is free to modify
+     */
+    public Point[] getPoints() {
+        Point[] points = new Point[_x.length];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = new Point(_x[i], _y[i], _onCurve[i], _endOfContour[i]);
+        }
+        return points;
+    }
+
+    /**
+     * @return a copy of the horizontal stem hints, as pairs of edge and width
+     * values
+     */
+    public int[] getHStems() {
+        return Arrays.copyOf(_hstems, _hstems.length);
+    }
+
+    /**
+     * @return a copy of the vertical stem hints, as pairs of edge and width
+     * values
+     */
+    public int[] getVStems() {
+        return Arrays.copyOf(_vstems, _vstems.length);
+    }
+}
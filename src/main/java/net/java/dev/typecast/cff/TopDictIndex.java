@@ -17,23 +17,22 @@
  */
 package net.java.dev.typecast.cff;
 
-import java.io.DataInput;
-import java.io.IOException;
-
 /**
  *
  * @author dschweinsberg
  */
 public class TopDictIndex extends Index {
     
-    public TopDictIndex(DataInput di) throws IOException {
-        super(di);
+    public TopDictIndex(byte[] buf, int offset) {
+        super(buf, offset);
+    }
+
+    public TopDictIndex(byte[] buf, int offset, int countSize) {
+        super(buf, offset, countSize);
     }
 
     public Dict getTopDict(int index) {
-        int offset = getOffset(index) - 1;
-        int len = getOffset(index + 1) - offset - 1;
-        return new Dict(getData(), offset, len);
+        return new Dict(getData(), getItemOffset(index), getItemLength(index));
     }
 
     @Override
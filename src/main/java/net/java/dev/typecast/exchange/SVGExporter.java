@@ -31,6 +31,8 @@ import net.java.dev.typecast.ot.table.KernSubtable;
 import net.java.dev.typecast.ot.table.KernTable;
 import net.java.dev.typecast.ot.table.KerningPair;
 import net.java.dev.typecast.ot.table.LangSys;
+import net.java.dev.typecast.ot.table.Lookup;
+import net.java.dev.typecast.ot.table.LookupSubtable;
 import net.java.dev.typecast.ot.table.PostTable;
 import net.java.dev.typecast.ot.table.Script;
 import net.java.dev.typecast.ot.table.ScriptTags;
@@ -329,12 +331,9 @@ public class SVGExporter
                     Feature medi = gsub.getFeatureList().findFeature(ls, FEATURE_TAG_MEDI);
                     Feature fina = gsub.getFeatureList().findFeature(ls, FEATURE_TAG_FINA);
 
-                    initialSubst = (SingleSubst)
-                        gsub.getLookupList().getLookup(init, 0).getSubtable(0);
-                    medialSubst = (SingleSubst)
-                        gsub.getLookupList().getLookup(medi, 0).getSubtable(0);
-                    terminalSubst = (SingleSubst)
-                        gsub.getLookupList().getLookup(fina, 0).getSubtable(0);
+                    initialSubst = getSingleSubst(gsub, init);
+                    medialSubst = getSingleSubst(gsub, medi);
+                    terminalSubst = getSingleSubst(gsub, fina);
                 }
             }
         }
@@ -380,6 +379,22 @@ public class SVGExporter
         ps.println(XML_CLOSE_TAG_END);
     }
 
+    /**
+     * @return the first subtable of the feature's first lookup, if the
+     * feature is present and that subtable is a single substitution
+     */
+    private static SingleSubst getSingleSubst(GsubTable gsub, Feature feature) {
+        if (feature == null) {
+            return null;
+        }
+        Lookup lookup = gsub.getLookupList().getLookup(feature, 0);
+        if (lookup == null || lookup.getSubtableCount() == 0) {
+            return null;
+        }
+        LookupSubtable subtable = lookup.getSubtable(0);
+        return subtable instanceof SingleSubst ? (SingleSubst) subtable : null;
+    }
+
     private static String getGlyphAsSVG(
             OTFont font,
             Glyph glyph,
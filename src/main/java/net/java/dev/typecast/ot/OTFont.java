@@ -21,8 +21,15 @@ package net.java.dev.typecast.ot;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import net.java.dev.typecast.ot.layout.KerningMatrix;
+import net.java.dev.typecast.ot.layout.ShapingPlan;
 import net.java.dev.typecast.ot.table.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The TrueType font.
@@ -30,6 +37,12 @@ import net.java.dev.typecast.ot.table.*;
  */
 public abstract class OTFont {
 
+    private static final Logger logger = LoggerFactory.getLogger(OTFont.class);
+
+    private final byte[] _fontData;
+    private final int _tablesOrigin;
+    private final TableDirectory _tableDirectory;
+
     private Os2Table _os2;
     private CmapTable _cmap;
     private HeadTable _head;
@@ -39,7 +52,59 @@ public abstract class OTFont {
     private NameTable _name;
     private PostTable _post;
     private VheaTable _vhea;
+
+    // The cmap subtable characters are mapped with
+    private CmapFormat _unicodeCmap;
+    private boolean _symbolCmap;
+
+    // The layout tables are only read when first asked for
     private GsubTable _gsub;
+    private GposTable _gpos;
+    private GdefTable _gdef;
+    private boolean _gsubLoaded;
+    private boolean _gposLoaded;
+    private boolean _gdefLoaded;
+
+    // As are the vertical metrics
+    private VmtxTable _vmtx;
+    private VorgTable _vorg;
+    private boolean _vmtxLoaded;
+    private boolean _vorgLoaded;
+
+    private final ConcurrentMap<PlanKey, ShapingPlan> _shapingPlans =
+            new ConcurrentHashMap<>();
+    private volatile KerningMatrix _kerningMatrix;
+
+    /** The script, language system and feature set a plan is made for */
+    private static final class PlanKey {
+
+        private final int _scriptTag;
+        private final int _languageTag;
+        private final int[] _featureTags;
+
+        PlanKey(int scriptTag, int languageTag, int[] featureTags) {
+            _scriptTag = scriptTag;
+            _languageTag = languageTag;
+            _featureTags = ShapingPlan.featureSet(featureTags);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey key = (PlanKey) obj;
+            return _scriptTag == key._scriptTag
+                    && _languageTag == key._languageTag
+                    && Arrays.equals(_featureTags, key._featureTags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * _scriptTag + _languageTag)
+                    + Arrays.hashCode(_featureTags);
+        }
+    }
 
     /**
      * @param fontData OpenType/TrueType font file data.
@@ -58,6 +123,9 @@ public abstract class OTFont {
         // Load the table directory
 //        dis.skip(directoryOffset);
         TableDirectory tableDirectory = new TableDirectory(fontData);
+        _fontData = fontData;
+        _tablesOrigin = tablesOrigin;
+        _tableDirectory = tableDirectory;
 
         DataInputStream dis = new DataInputStream(new ByteArrayInputStream(fontData));
         dis.mark(fontData.length);
@@ -90,6 +158,13 @@ public abstract class OTFont {
         // Load all the other required tables
         seekTable(tableDirectory, dis, tablesOrigin, Table.cmap);
         _cmap = new CmapTable(dis);
+        _unicodeCmap = _cmap.getCmapFormat(ID.platformMicrosoft, ID.encodingUnicode);
+        if (_unicodeCmap == null) {
+
+            // This might be a symbol font
+            _unicodeCmap = _cmap.getCmapFormat(ID.platformMicrosoft, ID.encodingSymbol);
+            _symbolCmap = _unicodeCmap != null;
+        }
         length = seekTable(tableDirectory, dis, tablesOrigin, Table.hmtx);
         _hmtx = new HmtxTable(dis, length, _hhea, _maxp);
         length = seekTable(tableDirectory, dis, tablesOrigin, Table.name);
@@ -134,10 +209,387 @@ public abstract class OTFont {
         return _vhea;
     }
 
-    public GsubTable getGsubTable() {
+    /**
+     * @return the 'GSUB' table, which is read on first use, or null if the
+     * font doesn't have one
+     */
+    public synchronized GsubTable getGsubTable() {
+        if (!_gsubLoaded) {
+            _gsubLoaded = true;
+            TableDirectory.Entry entry = _tableDirectory.getEntryByTag(Table.GSUB);
+            try {
+                if (entry != null) {
+                    _gsub = new GsubTable(getTableInput(entry), entry.getLength());
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read 'GSUB' table", e);
+            }
+        }
         return _gsub;
     }
 
+    /**
+     * @return the 'GPOS' table, which is read on first use, or null if the
+     * font doesn't have one
+     */
+    public synchronized GposTable getGposTable() {
+        if (!_gposLoaded) {
+            _gposLoaded = true;
+            TableDirectory.Entry entry = _tableDirectory.getEntryByTag(Table.GPOS);
+            try {
+                if (entry != null) {
+                    _gpos = new GposTable(getTableInput(entry), entry.getLength());
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read 'GPOS' table", e);
+            }
+        }
+        return _gpos;
+    }
+
+    /**
+     * @return the 'GDEF' table, which is read on first use, or null if the
+     * font doesn't have one
+     */
+    public synchronized GdefTable getGdefTable() {
+        if (!_gdefLoaded) {
+            _gdefLoaded = true;
+            TableDirectory.Entry entry = _tableDirectory.getEntryByTag(Table.GDEF);
+            try {
+                if (entry != null) {
+                    _gdef = new GdefTable(getTableInput(entry), entry.getLength());
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read 'GDEF' table", e);
+            }
+        }
+        return _gdef;
+    }
+
+    /**
+     * @return the 'vmtx' table, which is read on first use, or null if the
+     * font doesn't have one, or has no 'vhea' table to read it with
+     */
+    public synchronized VmtxTable getVmtxTable() {
+        if (!_vmtxLoaded) {
+            _vmtxLoaded = true;
+            TableDirectory.Entry entry = _tableDirectory.getEntryByTag(Table.vmtx);
+            try {
+                if (entry != null && _vhea != null) {
+                    _vmtx = new VmtxTable(getTableInput(entry), _vhea, _maxp);
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read 'vmtx' table", e);
+            }
+        }
+        return _vmtx;
+    }
+
+    /**
+     * @return the 'VORG' table, which is read on first use, or null if the
+     * font doesn't have one
+     */
+    public synchronized VorgTable getVorgTable() {
+        if (!_vorgLoaded) {
+            _vorgLoaded = true;
+            TableDirectory.Entry entry = _tableDirectory.getEntryByTag(Table.VORG);
+            try {
+                if (entry != null) {
+                    _vorg = new VorgTable(getTableInput(entry));
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read 'VORG' table", e);
+            }
+        }
+        return _vorg;
+    }
+
+    /**
+     * Where the font has no 'vmtx' table, every glyph has the height of the
+     * typographic ascender and descender, as the OpenType specification
+     * recommends.
+     * @param glyphId the glyph ID
+     * @return the glyph's advance height, in design units
+     */
+    public int getAdvanceHeight(int glyphId) {
+        VmtxTable vmtx = getVmtxTable();
+        return vmtx != null
+                ? vmtx.getAdvanceHeight(glyphId)
+                : _os2.getTypoAscender() - _os2.getTypoDescender();
+    }
+
+    /**
+     * The vertical origin is given by the 'VORG' table, where the font has
+     * one, and is otherwise taken to be the typographic ascender, since
+     * finding it from the top side bearing would need the glyph's outline.
+     * @param glyphId the glyph ID
+     * @return the y coordinate of the glyph's vertical origin, in design
+     * units
+     */
+    public int getVerticalOriginY(int glyphId) {
+        VorgTable vorg = getVorgTable();
+        return vorg != null
+                ? vorg.getVertOriginY(glyphId)
+                : _os2.getTypoAscender();
+    }
+
+    /**
+     * Plans are made on first use, and cached for the life of the font.
+     * @param scriptTag the script tag
+     * @param languageTag the language system tag
+     * @param featureTags the tags of the features to apply, in any order
+     * @return the plan of lookups for the script, language and features
+     * @see ShapingPlan#tag(String)
+     */
+    public ShapingPlan getShapingPlan(
+            int scriptTag,
+            int languageTag,
+            int[] featureTags) {
+        return _shapingPlans.computeIfAbsent(
+                new PlanKey(scriptTag, languageTag, featureTags),
+                key -> new ShapingPlan(getGsubTable(), getGposTable(),
+                        key._scriptTag, key._languageTag, key._featureTags));
+    }
+
+    /**
+     * @param c a Unicode code point
+     * @return the glyph the font's Unicode, or failing that, symbol cmap maps
+     * the character to, or zero if it has none
+     */
+    public int mapChar(int c) {
+        if (_unicodeCmap == null) {
+            return 0;
+        }
+        int glyphId = _unicodeCmap.mapCharCode(c);
+        if (glyphId == 0 && _symbolCmap && c < 0x100) {
+
+            // Symbol fonts usually map their characters from U+F000
+            glyphId = _unicodeCmap.mapCharCode(0xf000 | c);
+        }
+        return glyphId;
+    }
+
+    /**
+     * The matrix is made on first use, for the glyphs of the ASCII and
+     * Latin-1 characters, kerned by the 'kern' feature of the default script
+     * or failing that, of the legacy 'kern' table.
+     * @return the font's kerning matrix
+     */
+    public KerningMatrix getKerningMatrix() {
+        KerningMatrix matrix = _kerningMatrix;
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = _kerningMatrix;
+                if (matrix == null) {
+                    matrix = KerningMatrix.forLatin1(this, getShapingPlan(
+                            ShapingPlan.tag("DFLT"),
+                            ShapingPlan.tag("dflt"),
+                            new int[] { ShapingPlan.tag("kern") }));
+                    _kerningMatrix = matrix;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * @param text the text to measure
+     * @param size the size the text is set at
+     * @param kerning true to kern pairs of glyphs
+     * @return the advance width of the text
+     * @see #measure(CharSequence, int, int, float, boolean, float[])
+     */
+    public float measure(CharSequence text, float size, boolean kerning) {
+        return measure(text, 0, text.length(), size, kerning, null);
+    }
+
+    /**
+     * Measures text by its characters' glyphs, as mapped by the cmap, and
+     * their advance widths and kerning, without substituting or positioning
+     * glyphs by the layout tables.  Nothing is allocated, once the kerning
+     * matrix has been made.  Use a
+     * {@link net.java.dev.typecast.ot.layout.TextShaper} to measure shaped
+     * text.
+     * @param text the text to measure
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @param size the size the text is set at
+     * @param kerning true to kern pairs of glyphs
+     * @param positions the array to receive the position of each character,
+     * relative to the start, and then the advance width of the text, and so
+     * of at least {@code end - start + 1} elements, or null
+     * @return the advance width of the text
+     */
+    public float measure(
+            CharSequence text,
+            int start,
+            int end,
+            float size,
+            boolean kerning,
+            float[] positions) {
+        float scale = size / _head.getUnitsPerEm();
+        KerningMatrix matrix = kerning ? getKerningMatrix() : null;
+        int advance = 0;
+        int previous = -1;
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            boolean pair = Character.isHighSurrogate((char) c)
+                    && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1));
+            if (pair) {
+                c = Character.toCodePoint((char) c, text.charAt(i + 1));
+            }
+            int glyphId = mapChar(c);
+            if (matrix != null && previous >= 0) {
+                advance += matrix.getKerning(previous, glyphId);
+            }
+            if (positions != null) {
+                positions[i - start] = advance * scale;
+                if (pair) {
+                    positions[i + 1 - start] = advance * scale;
+                }
+            }
+            advance += _hmtx.getAdvanceWidth(glyphId);
+            previous = glyphId;
+            if (pair) {
+                i++;
+            }
+        }
+        if (positions != null) {
+            positions[end - start] = advance * scale;
+        }
+        return advance * scale;
+    }
+
+    /**
+     * Measures a run of glyphs by their advance widths and kerning.
+     * @param glyphIds the glyph IDs
+     * @param start the index of the first glyph
+     * @param end the index after the last glyph
+     * @param size the size the glyphs are set at
+     * @param kerning true to kern pairs of glyphs
+     * @param positions the array to receive the position of each glyph,
+     * relative to the start, and then the advance width of the run, and so of
+     * at least {@code end - start + 1} elements, or null
+     * @return the advance width of the run
+     */
+    public float measureGlyphs(
+            int[] glyphIds,
+            int start,
+            int end,
+            float size,
+            boolean kerning,
+            float[] positions) {
+        float scale = size / _head.getUnitsPerEm();
+        KerningMatrix matrix = kerning ? getKerningMatrix() : null;
+        int advance = 0;
+        for (int i = start; i < end; i++) {
+            if (matrix != null && i > start) {
+                advance += matrix.getKerning(glyphIds[i - 1], glyphIds[i]);
+            }
+            if (positions != null) {
+                positions[i - start] = advance * scale;
+            }
+            advance += _hmtx.getAdvanceWidth(glyphIds[i]);
+        }
+        if (positions != null) {
+            positions[end - start] = advance * scale;
+        }
+        return advance * scale;
+    }
+
+    /**
+     * Measures text set vertically by its characters' advance heights, as
+     * {@link #measure(CharSequence, int, int, float, boolean, float[])}
+     * measures it horizontally, though without kerning.
+     * @param text the text to measure
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @param size the size the text is set at
+     * @param positions the array to receive the position of each character,
+     * down from the start, and then the advance height of the text, and so
+     * of at least {@code end - start + 1} elements, or null
+     * @return the advance height of the text
+     */
+    public float measureVertical(
+            CharSequence text,
+            int start,
+            int end,
+            float size,
+            float[] positions) {
+        float scale = size / _head.getUnitsPerEm();
+        VmtxTable vmtx = getVmtxTable();
+        int defaultAdvance = _os2.getTypoAscender() - _os2.getTypoDescender();
+        int advance = 0;
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            boolean pair = Character.isHighSurrogate((char) c)
+                    && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1));
+            if (pair) {
+                c = Character.toCodePoint((char) c, text.charAt(i + 1));
+            }
+            if (positions != null) {
+                positions[i - start] = advance * scale;
+                if (pair) {
+                    positions[i + 1 - start] = advance * scale;
+                }
+            }
+            advance += vmtx != null
+                    ? vmtx.getAdvanceHeight(mapChar(c))
+                    : defaultAdvance;
+            if (pair) {
+                i++;
+            }
+        }
+        if (positions != null) {
+            positions[end - start] = advance * scale;
+        }
+        return advance * scale;
+    }
+
+    /**
+     * Measures a run of glyphs set vertically by their advance heights.
+     * @param glyphIds the glyph IDs
+     * @param start the index of the first glyph
+     * @param end the index after the last glyph
+     * @param size the size the glyphs are set at
+     * @param positions the array to receive the position of each glyph,
+     * down from the start, and then the advance height of the run, and so of
+     * at least {@code end - start + 1} elements, or null
+     * @return the advance height of the run
+     */
+    public float measureGlyphsVertical(
+            int[] glyphIds,
+            int start,
+            int end,
+            float size,
+            float[] positions) {
+        float scale = size / _head.getUnitsPerEm();
+        VmtxTable vmtx = getVmtxTable();
+        int defaultAdvance = _os2.getTypoAscender() - _os2.getTypoDescender();
+        int advance = 0;
+        for (int i = start; i < end; i++) {
+            if (positions != null) {
+                positions[i - start] = advance * scale;
+            }
+            advance += vmtx != null
+                    ? vmtx.getAdvanceHeight(glyphIds[i])
+                    : defaultAdvance;
+        }
+        if (positions != null) {
+            positions[end - start] = advance * scale;
+        }
+        return advance * scale;
+    }
+
+    private DataInputStream getTableInput(TableDirectory.Entry entry) {
+        return new DataInputStream(new ByteArrayInputStream(
+                _fontData,
+                _tablesOrigin + entry.getOffset(),
+                entry.getLength()));
+    }
+
     public int getAscent() {
         return _hhea.getAscender();
     }
@@ -150,6 +602,11 @@ public abstract class OTFont {
         return _maxp.getNumGlyphs();
     }
 
+    /**
+     * @return the font's legacy 'kern' table, or null if it doesn't have one
+     */
+    public abstract KernTable getKernTable();
+
     public abstract Glyph getGlyph(int i);
 
     int seekTable(
@@ -29,6 +29,7 @@ import net.java.dev.typecast.ot.mac.ResourceMap;
 import net.java.dev.typecast.ot.mac.ResourceReference;
 import net.java.dev.typecast.ot.mac.ResourceType;
 import net.java.dev.typecast.ot.table.TTCHeader;
+import net.java.dev.typecast.ot.table.TableDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -110,7 +111,7 @@ class OTFontCollection {
                 int offset = resourceHeader.getDataOffset() +
                         resourceReference.getDataOffset() + 4;
                 byte[] fontData = Files.readAllBytes(file.toPath());
-                _fonts[i] = new TTFont(fontData, offset /*, offset*/);
+                _fonts[i] = createFont(fontData, offset);
             }
 
         } else if (TTCHeader.isTTC(dis)) {
@@ -121,17 +122,27 @@ class OTFontCollection {
             _fonts = new OTFont[_ttcHeader.getDirectoryCount()];
             for (int i = 0; i < _ttcHeader.getDirectoryCount(); i++) {
                 byte[] fontData = Files.readAllBytes(file.toPath());
-                _fonts[i] = new TTFont(fontData, _ttcHeader.getTableDirectory(i));
+                _fonts[i] = createFont(fontData, _ttcHeader.getTableDirectory(i));
             }
         } else {
 
             // This is a standalone font file
             _fonts = new OTFont[1];
             byte[] fontData = Files.readAllBytes(file.toPath());
-            _fonts[0] = new TTFont(fontData, 0);
-
-            // TODO T2Fonts
+            _fonts[0] = createFont(fontData, 0);
         }
         dis.close();
     }
+
+    /**
+     * Creates a T2Font or a TTFont, depending on whether the font has CFF
+     * or TrueType outlines.
+     */
+    private static OTFont createFont(byte[] fontData, int tablesOrigin)
+            throws IOException {
+        if (T2Font.isT2Font(new TableDirectory(fontData))) {
+            return new T2Font(fontData, tablesOrigin);
+        }
+        return new TTFont(fontData, tablesOrigin);
+    }
 }
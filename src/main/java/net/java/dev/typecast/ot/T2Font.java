@@ -0,0 +1,143 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import net.java.dev.typecast.cff.CffFont;
+import net.java.dev.typecast.cff.CffInstance;
+import net.java.dev.typecast.cff.CharstringType2;
+import net.java.dev.typecast.ot.table.Cff2Table;
+import net.java.dev.typecast.ot.table.CffTable;
+import net.java.dev.typecast.ot.table.KernTable;
+import net.java.dev.typecast.ot.table.Table;
+import net.java.dev.typecast.ot.table.TableDirectory;
+
+/**
+ * An OpenType font with PostScript outlines held in a 'CFF ' or 'CFF2'
+ * table.  The charstrings are only interpreted when a glyph is requested.
+ * Glyphs of a variable CFF2 font are those of its default instance, unless
+ * other variation coordinates are set.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class T2Font extends OTFont {
+
+    /**
+     * The sfnt version of a font with CFF data ('OTTO')
+     */
+    public static final int OTTO = 0x4f54544f;
+
+    private CffTable _cff;
+    private Cff2Table _cff2;
+    private KernTable _kern;
+    private CffInstance _instance;
+
+    /**
+     * Constructor
+     *
+     * @param fontData
+     * @param tablesOrigin
+     */
+    public T2Font(byte[] fontData, int tablesOrigin) throws IOException {
+        super(fontData, tablesOrigin);
+
+        TableDirectory tableDirectory = new TableDirectory(fontData);
+
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(fontData));
+        dis.mark(fontData.length);
+        dis.reset();
+
+        int length = seekTable(tableDirectory, dis, tablesOrigin, Table.CFF);
+        if (length > 0) {
+            _cff = new CffTable(dis, length);
+        } else {
+            length = seekTable(tableDirectory, dis, tablesOrigin, Table.CFF2);
+            if (length == 0) {
+                throw new IOException("Missing 'CFF ' or 'CFF2' table");
+            }
+            _cff2 = new Cff2Table(dis, length);
+        }
+
+        length = seekTable(tableDirectory, dis, tablesOrigin, Table.kern);
+        if (length > 0) {
+            _kern = new KernTable(dis);
+        }
+    }
+
+    /**
+     * @param tableDirectory The font's table directory
+     * @return true if the font holds CFF rather than TrueType outlines
+     */
+    public static boolean isT2Font(TableDirectory tableDirectory) {
+        return tableDirectory.getVersion() == OTTO
+                || tableDirectory.getEntryByTag(Table.CFF) != null
+                || tableDirectory.getEntryByTag(Table.CFF2) != null;
+    }
+
+    /**
+     * @return the 'CFF ' table, or null if the font has a 'CFF2' table
+     */
+    public CffTable getCffTable() {
+        return _cff;
+    }
+
+    /**
+     * @return the 'CFF2' table, or null if the font has a 'CFF ' table
+     */
+    public Cff2Table getCff2Table() {
+        return _cff2;
+    }
+
+    /**
+     * @return the font held by the CFF or CFF2 table
+     */
+    public CffFont getCffFont() {
+        return _cff != null ? _cff.getFont(0) : _cff2.getFont();
+    }
+
+    /**
+     * Selects the instance of a variable font that glyphs are created for.
+     * @param coords the normalized coordinates of the instance, one per axis,
+     * each ranging from -1 to 1, or null for the default instance
+     */
+    public void setVariationCoordinates(float[] coords) {
+        _instance = coords != null ? new CffInstance(getCffFont(), coords) : null;
+    }
+
+    @Override
+    public KernTable getKernTable() {
+        return _kern;
+    }
+
+    @Override
+    public Glyph getGlyph(int i) {
+        if (_instance != null) {
+            return new T2Glyph(
+                    _instance,
+                    i,
+                    getHmtxTable().getLeftSideBearing(i),
+                    getHmtxTable().getAdvanceWidth(i));
+        }
+        return new T2Glyph(
+                (CharstringType2) getCffFont().getCharstring(i),
+                getHmtxTable().getLeftSideBearing(i),
+                getHmtxTable().getAdvanceWidth(i));
+    }
+}
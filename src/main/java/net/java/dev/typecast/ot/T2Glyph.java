@@ -19,8 +19,9 @@ package net.java.dev.typecast.ot;
 
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
+import net.java.dev.typecast.cff.CffInstance;
 import net.java.dev.typecast.cff.CharstringType2;
-import net.java.dev.typecast.cff.T2Interpreter;
+import net.java.dev.typecast.cff.T2Outline;
 
 /**
  * An individual Type 2 Charstring glyph within a font.
@@ -29,12 +30,17 @@ import net.java.dev.typecast.cff.T2Interpreter;
 public class T2Glyph extends Glyph {
     private final short _leftSideBearing;
     private final int _advanceWidth;
-    private final Point[] _points;
-    private final Integer[] _hstems;
-    private final Integer[] _vstems;
+    private CharstringType2 _cs;
+    private CffInstance _instance;
+    private final int _gid;
+    private Point[] _points;
+    private int[] _hstems;
+    private int[] _vstems;
 
     /**
      * Construct a Glyph from a PostScript outline described by a Charstring.
+     * The charstring isn't interpreted until the outline or hints are first
+     * asked for, after which the result is retained.
      * @param cs The CharstringType2 describing the glyph.
      * @param lsb The Left Side Bearing.
      * @param advance The advance width.
@@ -45,10 +51,51 @@ public class T2Glyph extends Glyph {
             int advance) {
         _leftSideBearing = lsb;
         _advanceWidth = advance;
-        T2Interpreter t2i = new T2Interpreter();
-        _points = t2i.execute(cs);
-        _hstems = t2i.getHStems();
-        _vstems = t2i.getVStems();
+        _cs = cs;
+        _gid = cs.getIndex();
+    }
+
+    /**
+     * Construct a Glyph from an instance of a variable CFF2 font, which is
+     * interpreted when the outline or hints are first asked for.
+     * @param instance The instance of the font.
+     * @param gid The glyph ID.
+     * @param lsb The Left Side Bearing.
+     * @param advance The advance width.
+     */
+    public T2Glyph(
+            CffInstance instance,
+            int gid,
+            short lsb,
+            int advance) {
+        _leftSideBearing = lsb;
+        _advanceWidth = advance;
+        _instance = instance;
+        _gid = gid;
+    }
+
+    private void interpret() {
+        if (_points == null) {
+
+            // Charstrings belonging to a font go through its outline cache
+            T2Outline outline;
+            if (_instance != null) {
+                outline = _instance.getOutline(_gid);
+            } else {
+                outline = _cs.getFont().getOutline(_gid);
+            }
+            if (outline != null) {
+                _points = outline.getPoints();
+                _hstems = outline.getHStems();
+                _vstems = outline.getVStems();
+            } else {
+                _points = new Point[0];
+                _hstems = new int[0];
+                _vstems = new int[0];
+            }
+            _cs = null;
+            _instance = null;
+        }
     }
 
     @Override
@@ -63,23 +110,28 @@ public class T2Glyph extends Glyph {
 
     @Override
     public Point getPoint(int i) {
+        interpret();
         return _points[i];
     }
 
     @Override
     public int getPointCount() {
+        interpret();
         return _points.length;
     }
 
-    public Integer[] getHStems() {
+    public int[] getHStems() {
+        interpret();
         return _hstems;
     }
 
-    public Integer[] getVStems() {
+    public int[] getVStems() {
+        interpret();
         return _vstems;
     }
     
     public Rectangle2D getBounds() {
+        interpret();
         Rectangle r = null;
         for (Point p : _points) {
             if (r == null) {
@@ -87,6 +87,7 @@ public class TTFont extends OTFont {
         return _gasp;
     }
 
+    @Override
     public KernTable getKernTable() {
         return _kern;
     }
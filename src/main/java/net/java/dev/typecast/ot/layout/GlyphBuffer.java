@@ -0,0 +1,266 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.table.HmtxTable;
+
+/**
+ * A run of glyph IDs that lookups are applied to in place, along with the
+ * cluster each glyph belongs to.  Clusters are usually the indexes of the
+ * characters the glyphs were mapped from, and are carried through
+ * substitutions: glyphs inserted by a multiple substitution take the cluster
+ * of the glyph they replace, and a ligature takes the cluster of its first
+ * component.
+ * <p>
+ * Each glyph also has a position, in design units: its x and y advances,
+ * and the x and y offsets at which it is drawn relative to where its advance
+ * begins.  Positions are set from the font's metrics with
+ * {@link #resetPositions(HmtxTable)}, and then adjusted by GPOS lookups.</p>
+ * <p>
+ * The backing arrays grow as needed, and are exposed directly so that the
+ * glyphs can be read without copying; only the first {@link #getLength()}
+ * entries are meaningful.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class GlyphBuffer {
+
+    // Attachment types
+    static final byte ATTACH_NONE = 0;
+    static final byte ATTACH_MARK = 1;
+    static final byte ATTACH_CURSIVE = 2;
+
+    private int[] _glyphs;
+    private int[] _clusters;
+    private int[] _xAdvances;
+    private int[] _yAdvances;
+    private int[] _xOffsets;
+    private int[] _yOffsets;
+
+    // The glyph that each mark or cursive glyph is attached to, as an offset
+    // from its own index, and the kind of attachment
+    private int[] _attachments;
+    private byte[] _attachmentTypes;
+    private int _length;
+
+    // The positions of matched glyphs, for each nesting depth of lookups
+    private int[][] _scratch = new int[0][];
+
+    public GlyphBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        _glyphs = new int[capacity];
+        _clusters = new int[capacity];
+        _xAdvances = new int[capacity];
+        _yAdvances = new int[capacity];
+        _xOffsets = new int[capacity];
+        _yOffsets = new int[capacity];
+        _attachments = new int[capacity];
+        _attachmentTypes = new byte[capacity];
+    }
+
+    /**
+     * Creates a buffer holding a copy of the glyphs, each in a cluster of its
+     * own index.
+     * @param glyphs the glyph IDs
+     */
+    public GlyphBuffer(int[] glyphs) {
+        this(glyphs.length);
+        for (int i = 0; i < glyphs.length; i++) {
+            add(glyphs[i], i);
+        }
+    }
+
+    public int getLength() {
+        return _length;
+    }
+
+    public int getGlyph(int index) {
+        return _glyphs[index];
+    }
+
+    public void setGlyph(int index, int glyphId) {
+        _glyphs[index] = glyphId;
+    }
+
+    public int getCluster(int index) {
+        return _clusters[index];
+    }
+
+    /**
+     * @return the backing array of glyph IDs, which may be replaced as the
+     * buffer grows
+     */
+    public int[] getGlyphs() {
+        return _glyphs;
+    }
+
+    /**
+     * @return the backing array of clusters, which may be replaced as the
+     * buffer grows
+     */
+    public int[] getClusters() {
+        return _clusters;
+    }
+
+    public int[] getXAdvances() {
+        return _xAdvances;
+    }
+
+    public int[] getYAdvances() {
+        return _yAdvances;
+    }
+
+    public int[] getXOffsets() {
+        return _xOffsets;
+    }
+
+    public int[] getYOffsets() {
+        return _yOffsets;
+    }
+
+    int[] getAttachments() {
+        return _attachments;
+    }
+
+    byte[] getAttachmentTypes() {
+        return _attachmentTypes;
+    }
+
+    /**
+     * Sets the x advance of each glyph to its advance width, and clears all
+     * other positioning.
+     * @param hmtx the font's horizontal metrics
+     */
+    public void resetPositions(HmtxTable hmtx) {
+        for (int i = 0; i < _length; i++) {
+            _xAdvances[i] = hmtx.getAdvanceWidth(_glyphs[i]);
+        }
+        Arrays.fill(_yAdvances, 0, _length, 0);
+        Arrays.fill(_xOffsets, 0, _length, 0);
+        Arrays.fill(_yOffsets, 0, _length, 0);
+        Arrays.fill(_attachments, 0, _length, 0);
+        Arrays.fill(_attachmentTypes, 0, _length, ATTACH_NONE);
+    }
+
+    /**
+     * @return a copy of the glyph IDs
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(_glyphs, _length);
+    }
+
+    public void clear() {
+        _length = 0;
+    }
+
+    public void add(int glyphId, int cluster) {
+        ensureCapacity(_length + 1);
+        _glyphs[_length] = glyphId;
+        _clusters[_length] = cluster;
+        clearPosition(_length);
+        _length++;
+    }
+
+    /**
+     * Replaces one glyph with a sequence of glyphs, each of which takes the
+     * replaced glyph's cluster.  An empty sequence deletes the glyph.
+     * @param index the index of the glyph to replace
+     * @param glyphIds the replacement glyphs
+     */
+    public void replace(int index, int[] glyphIds) {
+        int count = glyphIds.length;
+        if (count == 0) {
+            delete(index);
+            return;
+        }
+        int cluster = _clusters[index];
+        if (count > 1) {
+            ensureCapacity(_length + count - 1);
+            move(index + 1, index + count, _length - index - 1);
+            _length += count - 1;
+        }
+        for (int i = 0; i < count; i++) {
+            _glyphs[index + i] = glyphIds[i];
+            _clusters[index + i] = cluster;
+            clearPosition(index + i);
+        }
+    }
+
+    /**
+     * @param index the index of the glyph to remove
+     */
+    public void delete(int index) {
+        move(index + 1, index, _length - index - 1);
+        _length--;
+    }
+
+    /**
+     * Lookups matching a sequence of glyphs record their positions here
+     * rather than allocating an array for each attempt.  The array is only
+     * valid until the next call for the same nesting depth.
+     * @param depth the nesting depth of the lookup
+     * @param size the number of positions needed
+     * @return an array of at least size positions
+     */
+    int[] getScratch(int depth, int size) {
+        if (depth >= _scratch.length) {
+            _scratch = Arrays.copyOf(_scratch, depth + 1);
+        }
+        int[] scratch = _scratch[depth];
+        if (scratch == null || scratch.length < size) {
+            scratch = new int[size];
+            _scratch[depth] = scratch;
+        }
+        return scratch;
+    }
+
+    private void move(int from, int to, int count) {
+        System.arraycopy(_glyphs, from, _glyphs, to, count);
+        System.arraycopy(_clusters, from, _clusters, to, count);
+        System.arraycopy(_xAdvances, from, _xAdvances, to, count);
+        System.arraycopy(_yAdvances, from, _yAdvances, to, count);
+        System.arraycopy(_xOffsets, from, _xOffsets, to, count);
+        System.arraycopy(_yOffsets, from, _yOffsets, to, count);
+        System.arraycopy(_attachments, from, _attachments, to, count);
+        System.arraycopy(_attachmentTypes, from, _attachmentTypes, to, count);
+    }
+
+    private void clearPosition(int index) {
+        _xAdvances[index] = 0;
+        _yAdvances[index] = 0;
+        _xOffsets[index] = 0;
+        _yOffsets[index] = 0;
+        _attachments[index] = 0;
+        _attachmentTypes[index] = ATTACH_NONE;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > _glyphs.length) {
+            int newCapacity = Math.max(capacity, _glyphs.length + (_glyphs.length >> 1));
+            _glyphs = Arrays.copyOf(_glyphs, newCapacity);
+            _clusters = Arrays.copyOf(_clusters, newCapacity);
+            _xAdvances = Arrays.copyOf(_xAdvances, newCapacity);
+            _yAdvances = Arrays.copyOf(_yAdvances, newCapacity);
+            _xOffsets = Arrays.copyOf(_xOffsets, newCapacity);
+            _yOffsets = Arrays.copyOf(_yOffsets, newCapacity);
+            _attachments = Arrays.copyOf(_attachments, newCapacity);
+            _attachmentTypes = Arrays.copyOf(_attachmentTypes, newCapacity);
+        }
+    }
+}
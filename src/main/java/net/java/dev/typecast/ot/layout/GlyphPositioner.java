@@ -0,0 +1,379 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import net.java.dev.typecast.ot.table.Anchor;
+import net.java.dev.typecast.ot.table.Coverage;
+import net.java.dev.typecast.ot.table.CursivePos;
+import net.java.dev.typecast.ot.table.GdefTable;
+import net.java.dev.typecast.ot.table.GposTable;
+import net.java.dev.typecast.ot.table.Lookup;
+import net.java.dev.typecast.ot.table.LookupSubtable;
+import net.java.dev.typecast.ot.table.MarkArray;
+import net.java.dev.typecast.ot.table.MarkBasePos;
+import net.java.dev.typecast.ot.table.MarkLigPos;
+import net.java.dev.typecast.ot.table.MarkMarkPos;
+import net.java.dev.typecast.ot.table.PairPos;
+import net.java.dev.typecast.ot.table.SequenceContext;
+import net.java.dev.typecast.ot.table.SinglePos;
+import net.java.dev.typecast.ot.table.ValueRecord;
+
+/**
+ * Applies GPOS lookups to the positions of a glyph buffer, in place.  The
+ * buffer's advances should first be set from the font's metrics, with
+ * {@link GlyphBuffer#resetPositions}.
+ * <p>
+ * Runs are taken to be horizontal and in left-to-right order.  Marks are
+ * attached to the last component of a ligature, as the buffer doesn't
+ * record which component each mark followed, and anchors are taken as their
+ * design units coordinates, without contour point or device adjustments.</p>
+ * <p>
+ * A positioner holds no state of its own, so may be shared between threads
+ * as long as each has its own buffer.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class GlyphPositioner extends LayoutEngine {
+
+    /**
+     * @param gpos the font's GPOS table
+     * @param gdef the font's GDEF table, or null if it doesn't have one, in
+     * which case no glyphs are skipped, and marks attach to whichever glyph
+     * precedes them
+     */
+    public GlyphPositioner(GposTable gpos, GdefTable gdef) {
+        super(gpos.getLookupList(), gdef);
+    }
+
+    /**
+     * Applies lookups, and then resolves the offsets of attached marks and
+     * cursive glyphs so that they are relative to each glyph's own origin.
+     * @param buf the glyphs to position
+     * @param lookupIndexes the indexes of the lookups to apply, in order
+     */
+    public void apply(GlyphBuffer buf, int[] lookupIndexes) {
+        for (int lookupIndex : lookupIndexes) {
+            applyForward(buf, getLookupList().getLookup(lookupIndex));
+        }
+        resolveAttachments(buf);
+    }
+
+    @Override
+    int applySubtable(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            LookupSubtable subtable,
+            int depth) {
+        int glyphId = buf.getGlyph(pos);
+        if (subtable instanceof SinglePos) {
+            SinglePos single = (SinglePos) subtable;
+            int coverageIndex = single.getCoverage().findGlyph(glyphId);
+            if (coverageIndex < 0) {
+                return -1;
+            }
+            adjust(buf, pos, single.getValues(), single.getValueIndex(coverageIndex));
+            return pos + 1;
+        } else if (subtable instanceof PairPos) {
+            return applyPair(buf, pos, lookup, (PairPos) subtable);
+        } else if (subtable instanceof CursivePos) {
+            return applyCursive(buf, pos, lookup, (CursivePos) subtable);
+        } else if (subtable instanceof MarkMarkPos) {
+            MarkMarkPos markMark = (MarkMarkPos) subtable;
+            int mark1Index = markMark.getMarkCoverage().findGlyph(glyphId);
+            if (mark1Index < 0) {
+                return -1;
+            }
+            int mark2 = previous(buf, pos, lookup);
+            if (mark2 < 0 || (getGdef() != null
+                    && getGdef().getGlyphClass(buf.getGlyph(mark2)) != GdefTable.MARK)) {
+                return -1;
+            }
+            int mark2Index = markMark.getBaseCoverage().findGlyph(buf.getGlyph(mark2));
+            if (mark2Index < 0) {
+                return -1;
+            }
+            int markClass = markMark.getMarkArray().getMarkClass(mark1Index);
+            if (markClass >= markMark.getMarkClassCount()) {
+                return -1;
+            }
+            return attachMark(buf, pos, markMark.getMarkArray(), mark1Index, mark2,
+                    markMark.getBaseAnchor(mark2Index, markClass));
+        } else if (subtable instanceof MarkBasePos) {
+            MarkBasePos markBase = (MarkBasePos) subtable;
+            int markIndex = markBase.getMarkCoverage().findGlyph(glyphId);
+            if (markIndex < 0) {
+                return -1;
+            }
+            int base = findBase(buf, pos);
+            int baseIndex = base >= 0
+                    ? markBase.getBaseCoverage().findGlyph(buf.getGlyph(base))
+                    : -1;
+            if (baseIndex < 0) {
+                return -1;
+            }
+            int markClass = markBase.getMarkArray().getMarkClass(markIndex);
+            if (markClass >= markBase.getMarkClassCount()) {
+                return -1;
+            }
+            return attachMark(buf, pos, markBase.getMarkArray(), markIndex, base,
+                    markBase.getBaseAnchor(baseIndex, markClass));
+        } else if (subtable instanceof MarkLigPos) {
+            MarkLigPos markLig = (MarkLigPos) subtable;
+            int markIndex = markLig.getMarkCoverage().findGlyph(glyphId);
+            if (markIndex < 0) {
+                return -1;
+            }
+            int ligature = findBase(buf, pos);
+            int ligatureIndex = ligature >= 0
+                    ? markLig.getLigatureCoverage().findGlyph(buf.getGlyph(ligature))
+                    : -1;
+            if (ligatureIndex < 0) {
+                return -1;
+            }
+            int componentCount = markLig.getComponentCount(ligatureIndex);
+            int markClass = markLig.getMarkArray().getMarkClass(markIndex);
+            if (componentCount == 0 || markClass >= markLig.getMarkClassCount()) {
+                return -1;
+            }
+            return attachMark(buf, pos, markLig.getMarkArray(), markIndex, ligature,
+                    markLig.getLigatureAnchor(
+                            ligatureIndex, componentCount - 1, markClass));
+        } else if (subtable instanceof SequenceContext) {
+            return applyContext(buf, pos, lookup, (SequenceContext) subtable, depth);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the adjustment the pair lookups make to the advance of the left
+     * glyph of a pair of adjacent glyphs, without shaping a run.  Within each
+     * lookup the first subtable with a value for the pair is used, and the
+     * values of the lookups are summed.
+     * @param left the glyph ID of the left glyph
+     * @param right the glyph ID of the right glyph
+     * @param lookupIndexes the indexes of the lookups to apply, of which
+     * those without pair adjustment subtables are ignored
+     * @return the kerning of the pair, in design units
+     */
+    public int getPairKerning(int left, int right, int[] lookupIndexes) {
+        int kerning = 0;
+        for (int lookupIndex : lookupIndexes) {
+            Lookup lookup = getLookupList().getLookup(lookupIndex);
+            if (isSkipped(left, lookup) || isSkipped(right, lookup)) {
+                continue;
+            }
+            for (int i = 0; i < lookup.getSubtableCount(); i++) {
+                LookupSubtable subtable = lookup.getSubtable(i);
+                if (!(subtable instanceof PairPos)) {
+                    continue;
+                }
+                PairPos pair = (PairPos) subtable;
+                int coverageIndex = pair.getCoverage().findGlyph(left);
+                if (coverageIndex < 0) {
+                    continue;
+                }
+                int valueIndex = pair.findValues(coverageIndex, left, right);
+                if (valueIndex >= 0) {
+                    kerning += pair.getValues()[valueIndex + 2];
+                    break;
+                }
+            }
+        }
+        return kerning;
+    }
+
+    private int applyPair(GlyphBuffer buf, int pos, Lookup lookup, PairPos pair) {
+        int firstGlyphId = buf.getGlyph(pos);
+        int coverageIndex = pair.getCoverage().findGlyph(firstGlyphId);
+        if (coverageIndex < 0) {
+            return -1;
+        }
+        int second = next(buf, pos, lookup);
+        if (second < 0) {
+            return -1;
+        }
+        int valueIndex = pair.findValues(
+                coverageIndex, firstGlyphId, buf.getGlyph(second));
+        if (valueIndex < 0) {
+            return -1;
+        }
+        short[] values = pair.getValues();
+        adjust(buf, pos, values, valueIndex);
+        adjust(buf, second, values, valueIndex + ValueRecord.SIZE);
+
+        // A second glyph that isn't adjusted may begin the next pair
+        return pair.getValueFormat2() != 0 ? second + 1 : second;
+    }
+
+    /**
+     * Joins the exit anchor of the glyph at pos to the entry anchor of the
+     * following glyph, by adjusting the advance of the one and the offset of
+     * the other.  The y offsets are resolved along the chain of attachments,
+     * which leads towards the end of the run unless the lookup is flagged as
+     * right to left.
+     */
+    private int applyCursive(GlyphBuffer buf, int pos, Lookup lookup, CursivePos cursive) {
+        Coverage coverage = cursive.getCoverage();
+        int coverageIndex = coverage.findGlyph(buf.getGlyph(pos));
+        if (coverageIndex < 0) {
+            return -1;
+        }
+        Anchor exit = cursive.getExitAnchor(coverageIndex);
+        if (exit == null) {
+            return -1;
+        }
+        int next = next(buf, pos, lookup);
+        if (next < 0) {
+            return -1;
+        }
+        int nextIndex = coverage.findGlyph(buf.getGlyph(next));
+        Anchor entry = nextIndex >= 0 ? cursive.getEntryAnchor(nextIndex) : null;
+        if (entry == null) {
+            return -1;
+        }
+        int[] xAdvances = buf.getXAdvances();
+        int[] xOffsets = buf.getXOffsets();
+        xAdvances[pos] = exit.getX() + xOffsets[pos];
+        int d = entry.getX() + xOffsets[next];
+        xAdvances[next] -= d;
+        xOffsets[next] -= d;
+
+        int child = pos;
+        int parent = next;
+        int yOffset = exit.getY() - entry.getY();
+        if ((lookup.getFlag() & Lookup.RIGHT_TO_LEFT) != 0) {
+            child = next;
+            parent = pos;
+            yOffset = -yOffset;
+        }
+
+        // Break any cycle with an earlier attachment in the other direction
+        int[] attachments = buf.getAttachments();
+        byte[] attachmentTypes = buf.getAttachmentTypes();
+        if (attachmentTypes[parent] == GlyphBuffer.ATTACH_CURSIVE
+                && parent + attachments[parent] == child) {
+            attachments[parent] = 0;
+            attachmentTypes[parent] = GlyphBuffer.ATTACH_NONE;
+        }
+        attachments[child] = parent - child;
+        attachmentTypes[child] = GlyphBuffer.ATTACH_CURSIVE;
+        buf.getYOffsets()[child] = yOffset;
+        return next;
+    }
+
+    /**
+     * @return the position of the glyph preceding pos that isn't a mark, or
+     * without a GDEF table to say which glyphs are marks, simply the glyph
+     * preceding pos, or -1 if there is none
+     */
+    private int findBase(GlyphBuffer buf, int pos) {
+        GdefTable gdef = getGdef();
+        int base = pos - 1;
+        if (gdef != null) {
+            while (base >= 0
+                    && gdef.getGlyphClass(buf.getGlyph(base)) == GdefTable.MARK) {
+                base--;
+            }
+        }
+        return base;
+    }
+
+    private static int attachMark(
+            GlyphBuffer buf,
+            int pos,
+            MarkArray markArray,
+            int markIndex,
+            int base,
+            Anchor baseAnchor) {
+        Anchor markAnchor = markArray.getAnchor(markIndex);
+        if (baseAnchor == null || markAnchor == null) {
+            return -1;
+        }
+        buf.getXOffsets()[pos] = baseAnchor.getX() - markAnchor.getX();
+        buf.getYOffsets()[pos] = baseAnchor.getY() - markAnchor.getY();
+        buf.getAttachments()[pos] = base - pos;
+        buf.getAttachmentTypes()[pos] = GlyphBuffer.ATTACH_MARK;
+        return pos + 1;
+    }
+
+    private static void adjust(GlyphBuffer buf, int pos, short[] values, int index) {
+        buf.getXOffsets()[pos] += values[index];
+        buf.getYOffsets()[pos] += values[index + 1];
+        buf.getXAdvances()[pos] += values[index + 2];
+        buf.getYAdvances()[pos] += values[index + 3];
+    }
+
+    /**
+     * Makes the offsets of attached glyphs relative to their own origins,
+     * rather than to the glyphs they are attached to, resolving the glyphs
+     * they are attached to first.
+     */
+    private static void resolveAttachments(GlyphBuffer buf) {
+        for (int i = 0; i < buf.getLength(); i++) {
+            resolveAttachment(buf, i);
+        }
+    }
+
+    /**
+     * Resolves a chain of attachments, such as a run of cursively joined
+     * glyphs, without recursing along it: the chain is followed to the
+     * glyph it hangs from, then each glyph is resolved from there back down.
+     */
+    private static void resolveAttachment(GlyphBuffer buf, int i) {
+        int[] attachments = buf.getAttachments();
+        int[] chain = buf.getScratch(0, buf.getLength());
+        int count = 0;
+        int parent = i;
+        while (attachments[parent] != 0) {
+            int next = parent + attachments[parent];
+            attachments[parent] = 0;
+            if (next < 0 || next >= buf.getLength()) {
+                break;
+            }
+            chain[count++] = parent;
+            parent = next;
+        }
+        for (int k = count - 1; k >= 0; k--) {
+            int child = chain[k];
+            applyAttachment(buf, child, k + 1 < count ? chain[k + 1] : parent);
+        }
+    }
+
+    private static void applyAttachment(GlyphBuffer buf, int i, int parent) {
+        int[] xOffsets = buf.getXOffsets();
+        int[] yOffsets = buf.getYOffsets();
+        yOffsets[i] += yOffsets[parent];
+        if (buf.getAttachmentTypes()[i] == GlyphBuffer.ATTACH_MARK) {
+            xOffsets[i] += xOffsets[parent];
+            int[] xAdvances = buf.getXAdvances();
+            int[] yAdvances = buf.getYAdvances();
+            if (parent < i) {
+                for (int k = parent; k < i; k++) {
+                    xOffsets[i] -= xAdvances[k];
+                    yOffsets[i] -= yAdvances[k];
+                }
+            } else {
+                for (int k = i; k < parent; k++) {
+                    xOffsets[i] += xAdvances[k];
+                    yOffsets[i] += yAdvances[k];
+                }
+            }
+        }
+    }
+}
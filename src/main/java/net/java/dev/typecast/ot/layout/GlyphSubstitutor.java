@@ -0,0 +1,194 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import net.java.dev.typecast.ot.table.AlternateSubst;
+import net.java.dev.typecast.ot.table.GdefTable;
+import net.java.dev.typecast.ot.table.GsubTable;
+import net.java.dev.typecast.ot.table.LigatureSubstFormat1;
+import net.java.dev.typecast.ot.table.LigatureTrie;
+import net.java.dev.typecast.ot.table.Lookup;
+import net.java.dev.typecast.ot.table.LookupSubtable;
+import net.java.dev.typecast.ot.table.MultipleSubst;
+import net.java.dev.typecast.ot.table.ReverseChainSingleSubst;
+import net.java.dev.typecast.ot.table.SequenceContext;
+import net.java.dev.typecast.ot.table.SingleSubst;
+
+/**
+ * Applies GSUB lookups to a glyph buffer, in place.  Each lookup is applied
+ * across the whole buffer before the next, skipping the glyphs that its flags
+ * and the GDEF glyph classes have it ignore.  Alternate substitutions take
+ * the first alternate.
+ * <p>
+ * A substitutor holds no state of its own, so may be shared between threads
+ * as long as each has its own buffer.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class GlyphSubstitutor extends LayoutEngine {
+
+    /**
+     * @param gsub the font's GSUB table
+     * @param gdef the font's GDEF table, or null if it doesn't have one, in
+     * which case no glyphs are skipped
+     */
+    public GlyphSubstitutor(GsubTable gsub, GdefTable gdef) {
+        super(gsub.getLookupList(), gdef);
+    }
+
+    /**
+     * @param buf the glyphs to substitute
+     * @param lookupIndexes the indexes of the lookups to apply, in order
+     */
+    public void apply(GlyphBuffer buf, int[] lookupIndexes) {
+        for (int lookupIndex : lookupIndexes) {
+            applyLookup(buf, lookupIndex);
+        }
+    }
+
+    /**
+     * @param buf the glyphs to substitute
+     * @param lookupIndex the index of the lookup to apply
+     */
+    public void applyLookup(GlyphBuffer buf, int lookupIndex) {
+        Lookup lookup = getLookupList().getLookup(lookupIndex);
+        if (lookup.getSubtableCount() == 0) {
+            return;
+        }
+
+        // Reverse chaining substitutions run from the end of the buffer, and
+        // don't change its length
+        if (lookup.getSubtable(0) instanceof ReverseChainSingleSubst) {
+            for (int pos = buf.getLength() - 1; pos >= 0; pos--) {
+                if (!isSkipped(buf.getGlyph(pos), lookup)) {
+                    applyFirst(buf, pos, lookup, 0);
+                }
+            }
+            return;
+        }
+        applyForward(buf, lookup);
+    }
+
+    @Override
+    int applySubtable(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            LookupSubtable subtable,
+            int depth) {
+        int glyphId = buf.getGlyph(pos);
+        if (subtable instanceof SingleSubst) {
+            SingleSubst single = (SingleSubst) subtable;
+            if (single.getCoverage().findGlyph(glyphId) < 0) {
+                return -1;
+            }
+            buf.setGlyph(pos, single.substitute(glyphId));
+            return pos + 1;
+        } else if (subtable instanceof MultipleSubst) {
+            MultipleSubst multiple = (MultipleSubst) subtable;
+            int coverageIndex = multiple.getCoverage().findGlyph(glyphId);
+            if (coverageIndex < 0) {
+                return -1;
+            }
+            int[] sequence = multiple.getSequence(coverageIndex);
+            buf.replace(pos, sequence);
+            return pos + sequence.length;
+        } else if (subtable instanceof AlternateSubst) {
+            AlternateSubst alternate = (AlternateSubst) subtable;
+            int coverageIndex = alternate.getCoverage().findGlyph(glyphId);
+            if (coverageIndex < 0) {
+                return -1;
+            }
+            int[] alternates = alternate.getAlternates(coverageIndex);
+            if (alternates.length > 0) {
+                buf.setGlyph(pos, alternates[0]);
+            }
+            return pos + 1;
+        } else if (subtable instanceof LigatureSubstFormat1) {
+            return applyLigature(
+                    buf, pos, lookup, (LigatureSubstFormat1) subtable, depth);
+        } else if (subtable instanceof SequenceContext) {
+            return applyContext(buf, pos, lookup, (SequenceContext) subtable, depth);
+        } else if (subtable instanceof ReverseChainSingleSubst) {
+            ReverseChainSingleSubst reverse = (ReverseChainSingleSubst) subtable;
+            int coverageIndex = reverse.getCoverage().findGlyph(glyphId);
+            if (coverageIndex < 0
+                    || !matchBackward(buf, pos, lookup, reverse.getBacktrackCoverages())
+                    || !matchForward(buf, pos, lookup, null, null, false,
+                            reverse.getLookaheadCoverages(), 0, null)) {
+                return -1;
+            }
+            buf.setGlyph(pos, reverse.getSubstitute(coverageIndex));
+            return pos + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the first ligature whose components follow pos, found in one
+     * walk of the subtable's trie.  Glyphs that the lookup skips between the
+     * components, such as marks, are left after the ligature.
+     */
+    private int applyLigature(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            LigatureSubstFormat1 subst,
+            int depth) {
+        int coverageIndex = subst.getCoverage().findGlyph(buf.getGlyph(pos));
+        if (coverageIndex < 0) {
+            return -1;
+        }
+        LigatureTrie trie = subst.getTrie();
+        int node = trie.getRoot(coverageIndex);
+        if (node < 0) {
+            return -1;
+        }
+        int[] positions = buf.getScratch(depth, trie.getMaxDepth());
+        int matched = 0;
+        int ligatureGlyph = -1;
+        int ligatureIndex = Integer.MAX_VALUE;
+        int componentCount = 0;
+        int j = pos;
+        while (true) {
+            if (trie.getLigatureGlyph(node) >= 0
+                    && trie.getLigatureIndex(node) < ligatureIndex) {
+                ligatureGlyph = trie.getLigatureGlyph(node);
+                ligatureIndex = trie.getLigatureIndex(node);
+                componentCount = matched;
+            }
+            j = next(buf, j, lookup);
+            if (j < 0) {
+                break;
+            }
+            node = trie.findChild(node, buf.getGlyph(j));
+            if (node < 0) {
+                break;
+            }
+            positions[matched++] = j;
+        }
+        if (ligatureGlyph < 0) {
+            return -1;
+        }
+        buf.setGlyph(pos, ligatureGlyph);
+        for (int k = componentCount - 1; k >= 0; k--) {
+            buf.delete(positions[k]);
+        }
+        return pos + 1;
+    }
+}
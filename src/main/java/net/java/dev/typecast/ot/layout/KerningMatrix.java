@@ -0,0 +1,162 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.OTFont;
+import net.java.dev.typecast.ot.table.KernTable;
+
+/**
+ * The kerning of every pair of glyphs in a set, such as those of the Latin
+ * characters, worked out in advance and held in a dense matrix, so that
+ * pairs within the set are kerned by indexing.  Pairs with a glyph outside
+ * the set are looked up in the font's tables as they are asked for.
+ * <p>
+ * Kerning comes from the pair adjustments of the plan's GPOS lookups, or
+ * where the plan has no GPOS lookups but asks for the 'kern' feature, from
+ * the font's legacy 'kern' table, as {@link TextShaper} kerns.  Only the
+ * adjustments to the advance of the left glyph of a pair are included.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class KerningMatrix {
+
+    private static final char NONE = 0xffff;
+
+    private final GlyphPositioner _positioner;
+    private final int[] _lookups;
+    private final KernTable _kern;
+
+    // The index of each glyph in the set, or NONE
+    private final char[] _indexes;
+    private final int _glyphCount;
+    private final short[] _kerning;
+
+    /**
+     * @param font the font
+     * @param plan the plan whose lookups kern the pairs, made by the font,
+     * which is best made for the 'kern' feature alone
+     * @param glyphIds the glyphs of the set, of which there may be no more
+     * than 65535, and which may be repeated
+     */
+    public KerningMatrix(OTFont font, ShapingPlan plan, int[] glyphIds) {
+        _positioner = font.getGposTable() != null
+                ? new GlyphPositioner(font.getGposTable(), font.getGdefTable())
+                : null;
+        _lookups = _positioner != null
+                ? plan.getPositioningLookups()
+                : new int[0];
+        _kern = _lookups.length == 0 && plan.hasFeature(ShapingPlan.tag("kern"))
+                ? font.getKernTable()
+                : null;
+
+        int[] glyphs = glyphIds.clone();
+        Arrays.sort(glyphs);
+        int count = 0;
+        for (int i = 0; i < glyphs.length; i++) {
+            if (i == 0 || glyphs[i] != glyphs[i - 1]) {
+                glyphs[count++] = glyphs[i];
+            }
+        }
+        _glyphCount = Math.min(count, NONE);
+        _indexes = new char[_glyphCount > 0 ? glyphs[_glyphCount - 1] + 1 : 0];
+        Arrays.fill(_indexes, NONE);
+        for (int i = 0; i < _glyphCount; i++) {
+            _indexes[glyphs[i]] = (char) i;
+        }
+        _kerning = new short[_glyphCount * _glyphCount];
+        for (int i = 0; i < _glyphCount; i++) {
+            for (int j = 0; j < _glyphCount; j++) {
+                _kerning[i * _glyphCount + j] =
+                        (short) lookupKerning(glyphs[i], glyphs[j]);
+            }
+        }
+    }
+
+    /**
+     * @param font the font, whose cmap maps the characters
+     * @param plan the plan whose lookups kern the pairs
+     * @param firstChar the first character of the range
+     * @param lastChar the last character of the range
+     * @return a matrix of the glyphs the characters of the range map to
+     */
+    public static KerningMatrix forCharacters(
+            OTFont font,
+            ShapingPlan plan,
+            int firstChar,
+            int lastChar) {
+        int[] glyphIds = new int[lastChar - firstChar + 1];
+        int count = 0;
+        for (int c = firstChar; c <= lastChar; c++) {
+            int glyphId = font.mapChar(c);
+            if (glyphId != 0) {
+                glyphIds[count++] = glyphId;
+            }
+        }
+        return new KerningMatrix(font, plan, Arrays.copyOf(glyphIds, count));
+    }
+
+    /**
+     * @param font the font, whose cmap maps the characters
+     * @param plan the plan whose lookups kern the pairs
+     * @return a matrix of the glyphs of the ASCII and Latin-1 characters
+     */
+    public static KerningMatrix forLatin1(OTFont font, ShapingPlan plan) {
+        return forCharacters(font, plan, 0x20, 0xff);
+    }
+
+    private int lookupKerning(int left, int right) {
+        if (_kern != null) {
+            return _kern.getKerning(left, right);
+        }
+        return _positioner != null
+                ? _positioner.getPairKerning(left, right, _lookups)
+                : 0;
+    }
+
+    /**
+     * @return the number of glyphs in the set
+     */
+    public int getGlyphCount() {
+        return _glyphCount;
+    }
+
+    /**
+     * @param glyphId the glyph ID
+     * @return true if the glyph is in the set
+     */
+    public boolean contains(int glyphId) {
+        return glyphId >= 0 && glyphId < _indexes.length && _indexes[glyphId] != NONE;
+    }
+
+    /**
+     * @param left the glyph ID of the left glyph
+     * @param right the glyph ID of the right glyph
+     * @return the kerning of the pair, in design units
+     */
+    public int getKerning(int left, int right) {
+        if (left < _indexes.length && right < _indexes.length) {
+            int i = _indexes[left];
+            int j = _indexes[right];
+            if (i != NONE && j != NONE) {
+                return _kerning[i * _glyphCount + j];
+            }
+        }
+        return lookupKerning(left, right);
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import net.java.dev.typecast.ot.table.ClassDef;
+import net.java.dev.typecast.ot.table.Coverage;
+import net.java.dev.typecast.ot.table.GdefTable;
+import net.java.dev.typecast.ot.table.Lookup;
+import net.java.dev.typecast.ot.table.LookupList;
+import net.java.dev.typecast.ot.table.LookupSubtable;
+import net.java.dev.typecast.ot.table.SequenceContext;
+
+/**
+ * The lookup machinery shared by glyph substitution and positioning: which
+ * glyphs a lookup's flags have it skip over, and the matching of sequence
+ * contexts, whose nested lookups are applied through the subclass.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+abstract class LayoutEngine {
+
+    /**
+     * The deepest that sequence contexts may nest lookups, which guards
+     * against fonts whose lookups invoke each other
+     */
+    static final int MAX_NESTING = 32;
+
+    // The lookup flags that skip glyphs
+    private static final int SKIP_FLAGS = Lookup.IGNORE_BASE_GLYPHS
+            | Lookup.IGNORE_BASE_LIGATURES
+            | Lookup.IGNORE_BASE_MARKS
+            | Lookup.USE_MARK_FILTERING_SET
+            | Lookup.MARK_ATTACHMENT_TYPE;
+
+    private final LookupList _lookupList;
+    private final GdefTable _gdef;
+
+    LayoutEngine(LookupList lookupList, GdefTable gdef) {
+        _lookupList = lookupList;
+        _gdef = gdef;
+    }
+
+    public LookupList getLookupList() {
+        return _lookupList;
+    }
+
+    public GdefTable getGdef() {
+        return _gdef;
+    }
+
+    /**
+     * Applies a subtable at a position in the buffer.
+     * @return the position to continue from, or -1 if the subtable didn't
+     * apply
+     */
+    abstract int applySubtable(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            LookupSubtable subtable,
+            int depth);
+
+    /**
+     * Applies a lookup at each glyph it doesn't skip, from the start of the
+     * buffer, continuing after wherever each application leaves off.  An
+     * application that deletes the glyph leaves off where it was, so that
+     * the glyph following it is examined next.
+     */
+    void applyForward(GlyphBuffer buf, Lookup lookup) {
+        int pos = 0;
+        while (pos < buf.getLength()) {
+            int next = -1;
+            int length = buf.getLength();
+            if (!isSkipped(buf.getGlyph(pos), lookup)) {
+                next = applyFirst(buf, pos, lookup, 0);
+            }
+            pos = next > pos || (next == pos && buf.getLength() < length)
+                    ? next
+                    : pos + 1;
+        }
+    }
+
+    /**
+     * @return the position to continue from, or -1 if none of the lookup's
+     * subtables applied
+     */
+    int applyFirst(GlyphBuffer buf, int pos, Lookup lookup, int depth) {
+        for (int i = 0; i < lookup.getSubtableCount(); i++) {
+            LookupSubtable subtable = lookup.getSubtable(i);
+            if (subtable != null) {
+                int next = applySubtable(buf, pos, lookup, subtable, depth);
+                if (next >= 0) {
+                    return next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Applies the first of a lookup's subtables that applies at a position,
+     * as a sequence context does with its nested lookups.
+     */
+    void applyAt(GlyphBuffer buf, int lookupIndex, int pos, int depth) {
+        if (depth > MAX_NESTING || lookupIndex >= _lookupList.getLookupCount()) {
+            return;
+        }
+        applyFirst(buf, pos, _lookupList.getLookup(lookupIndex), depth);
+    }
+
+    /**
+     * @param glyphId the glyph ID
+     * @param lookup the lookup being applied
+     * @return true if the lookup's flags have it ignore the glyph
+     */
+    boolean isSkipped(int glyphId, Lookup lookup) {
+        int flag = lookup.getFlag();
+        if (_gdef == null || (flag & SKIP_FLAGS) == 0) {
+            return false;
+        }
+        switch (_gdef.getGlyphClass(glyphId)) {
+            case GdefTable.BASE:
+                return (flag & Lookup.IGNORE_BASE_GLYPHS) != 0;
+            case GdefTable.LIGATURE:
+                return (flag & Lookup.IGNORE_BASE_LIGATURES) != 0;
+            case GdefTable.MARK:
+                if ((flag & Lookup.IGNORE_BASE_MARKS) != 0) {
+                    return true;
+                }
+                if ((flag & Lookup.USE_MARK_FILTERING_SET) != 0) {
+                    return !_gdef.isInMarkGlyphSet(
+                            lookup.getMarkFilteringSet(), glyphId);
+                }
+                int markAttachmentType = (flag & Lookup.MARK_ATTACHMENT_TYPE) >> 8;
+                return markAttachmentType != 0
+                        && _gdef.getMarkAttachClass(glyphId) != markAttachmentType;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the position of the next glyph after pos that the lookup
+     * doesn't skip, or -1 if there is none
+     */
+    int next(GlyphBuffer buf, int pos, Lookup lookup) {
+        int[] glyphs = buf.getGlyphs();
+        for (int i = pos + 1; i < buf.getLength(); i++) {
+            if (!isSkipped(glyphs[i], lookup)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position of the previous glyph before pos that the lookup
+     * doesn't skip, or -1 if there is none
+     */
+    int previous(GlyphBuffer buf, int pos, Lookup lookup) {
+        int[] glyphs = buf.getGlyphs();
+        for (int i = pos - 1; i >= 0; i--) {
+            if (!isSkipped(glyphs[i], lookup)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Matches a sequence context at a position, and if it matches, applies
+     * its nested lookups.
+     * @return the position following the matched input, or -1 if the context
+     * didn't match
+     */
+    int applyContext(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            SequenceContext context,
+            int depth) {
+        int glyphId = buf.getGlyph(pos);
+        if (context.getFormat() == 3) {
+            Coverage[] input = context.getInputCoverages();
+            int[] positions = buf.getScratch(depth, input.length);
+            if (input.length > 0
+                    && input[0].findGlyph(glyphId) > -1
+                    && matchForward(buf, pos, lookup, null, null, false, input, 1, positions)
+                    && matchBackward(buf, pos, lookup, context.getBacktrackCoverages())
+                    && matchForward(buf, positions[input.length - 1], lookup,
+                            null, null, false, context.getLookaheadCoverages(), 0, null)) {
+                return applyLookupRecords(buf, positions, input.length,
+                        context.getLookupRecords(), depth);
+            }
+            return -1;
+        }
+
+        int coverageIndex = context.getCoverage().findGlyph(glyphId);
+        if (coverageIndex < 0) {
+            return -1;
+        }
+        boolean byClass = context.getFormat() == 2;
+        SequenceContext.Rule[] rules = context.getRuleSet(byClass
+                ? classOf(context.getInputClassDef(), glyphId)
+                : coverageIndex);
+        if (rules == null) {
+            return -1;
+        }
+        int[] positions = buf.getScratch(depth, context.getMaxInputLength());
+        for (SequenceContext.Rule rule : rules) {
+            int count = rule.getInput().length + 1;
+            if (matchForward(buf, pos, lookup, rule.getInput(),
+                            context.getInputClassDef(), byClass, null, 0, positions)
+                    && matchBackward(buf, pos, lookup, rule.getBacktrack(),
+                            context.getBacktrackClassDef(), byClass)
+                    && matchForward(buf, positions[count - 1], lookup,
+                            rule.getLookahead(), context.getLookaheadClassDef(),
+                            byClass, null, 0, null)) {
+                return applyLookupRecords(
+                        buf, positions, count, rule.getLookupRecords(), depth);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Matches the glyphs following pos against values, which are glyph IDs
+     * or classes, or else against coverages from a starting index.
+     * @param positions if not null, receives pos followed by the positions
+     * of the matched glyphs
+     */
+    boolean matchForward(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            int[] values,
+            ClassDef classDef,
+            boolean byClass,
+            Coverage[] coverages,
+            int coverageStart,
+            int[] positions) {
+        int count = coverages != null
+                ? coverages.length - coverageStart
+                : values.length;
+        if (positions != null) {
+            positions[0] = pos;
+        }
+        int j = pos;
+        for (int i = 0; i < count; i++) {
+            j = next(buf, j, lookup);
+            if (j < 0) {
+                return false;
+            }
+            int glyphId = buf.getGlyph(j);
+            boolean matched = coverages != null
+                    ? coverages[coverageStart + i].findGlyph(glyphId) > -1
+                    : matches(glyphId, values[i], classDef, byClass);
+            if (!matched) {
+                return false;
+            }
+            if (positions != null) {
+                positions[i + 1] = j;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchBackward(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            int[] values,
+            ClassDef classDef,
+            boolean byClass) {
+        int j = pos;
+        for (int value : values) {
+            j = previous(buf, j, lookup);
+            if (j < 0 || !matches(buf.getGlyph(j), value, classDef, byClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches the glyphs preceding pos against coverages, which are in
+     * reverse logical order.
+     */
+    boolean matchBackward(
+            GlyphBuffer buf,
+            int pos,
+            Lookup lookup,
+            Coverage[] coverages) {
+        int j = pos;
+        for (Coverage coverage : coverages) {
+            j = previous(buf, j, lookup);
+            if (j < 0 || coverage.findGlyph(buf.getGlyph(j)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(
+            int glyphId,
+            int value,
+            ClassDef classDef,
+            boolean byClass) {
+        return byClass ? classOf(classDef, glyphId) == value : glyphId == value;
+    }
+
+    private static int classOf(ClassDef classDef, int glyphId) {
+        return classDef != null ? classDef.getGlyphClass(glyphId) : 0;
+    }
+
+    /**
+     * Applies the nested lookups of a matched context, keeping the positions
+     * of the matched glyphs current as substitutions change the length of
+     * the buffer.
+     * @param count the number of matched glyphs
+     * @return the position following the matched input
+     */
+    private int applyLookupRecords(
+            GlyphBuffer buf,
+            int[] positions,
+            int count,
+            int[] lookupRecords,
+            int depth) {
+        for (int i = 0; i < lookupRecords.length; i += 2) {
+            int seqIndex = lookupRecords[i];
+            if (seqIndex >= count) {
+                continue;
+            }
+            int pos = positions[seqIndex];
+            if (pos >= buf.getLength()) {
+                continue;
+            }
+            int length = buf.getLength();
+            applyAt(buf, lookupRecords[i + 1], pos, depth + 1);
+            int delta = buf.getLength() - length;
+            if (delta != 0) {
+                for (int j = 0; j < count; j++) {
+                    if (positions[j] > pos) {
+                        positions[j] = Math.max(positions[j] + delta, pos);
+                    }
+                }
+            }
+        }
+        return Math.min(positions[count - 1] + 1, buf.getLength());
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.java.dev.typecast.ot.OTFont;
+
+/**
+ * Breaks paragraphs into lines of no more than a given width.  Each
+ * paragraph is measured once, by {@link OTFont#measure}, and the widths of
+ * candidate lines are found from the cumulative positions of its
+ * characters, so that no substring is measured again.
+ * <p>
+ * Lines may break after a run of spaces or tabs, which hang past the end of
+ * the line, or after a hyphen.  A {@code GREEDY} breaker fills each line in
+ * turn, and an {@code OPTIMAL} breaker chooses the breaks that minimize the
+ * sum of the squares of the space left at the ends of all lines but the
+ * last, in the manner of Knuth and Plass.  Where a word is wider than a line
+ * it has a line of its own, which overflows.</p>
+ * <p>
+ * Breakers are immutable, and may be used by any number of threads.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class LineBreaker {
+
+    // Modes
+    public static final int GREEDY = 0;
+    public static final int OPTIMAL = 1;
+
+    private final OTFont _font;
+    private final float _size;
+    private final boolean _kerning;
+    private final int _mode;
+
+    /**
+     * @param font the font the paragraphs are set in
+     * @param size the size the paragraphs are set at
+     * @param kerning true to kern pairs of glyphs
+     * @param mode {@code GREEDY} or {@code OPTIMAL}
+     */
+    public LineBreaker(OTFont font, float size, boolean kerning, int mode) {
+        _font = font;
+        _size = size;
+        _kerning = kerning;
+        _mode = mode;
+    }
+
+    public int getMode() {
+        return _mode;
+    }
+
+    /**
+     * @param paragraph the text of the paragraph
+     * @param width the width of a line
+     * @return the index after the end of each line, including any spaces it
+     * ends with, and so of the start of the next line, the last being the
+     * length of the paragraph
+     */
+    public int[] breakLines(CharSequence paragraph, float width) {
+        int length = paragraph.length();
+        if (length == 0) {
+            return new int[0];
+        }
+        float[] positions = new float[length + 1];
+        _font.measure(paragraph, 0, length, _size, _kerning, positions);
+
+        // Each candidate break has the start of the line that follows it,
+        // and the end of the line it ends, without its trailing spaces, the
+        // first being the start of the paragraph
+        int[] starts = new int[length + 1];
+        int[] ends = new int[length + 1];
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            char c = paragraph.charAt(i);
+            int end;
+            if (c == ' ' || c == '\t') {
+                end = i;
+                while (i + 1 < length && isSpace(paragraph.charAt(i + 1))) {
+                    i++;
+                }
+            } else if (c == '-' && i > 0 && !isSpace(paragraph.charAt(i - 1))) {
+                end = i + 1;
+            } else {
+                continue;
+            }
+            if (i + 1 < length) {
+                starts[count] = i + 1;
+                ends[count] = end;
+                count++;
+            }
+        }
+        starts[count] = length;
+        ends[count] = trimEnd(paragraph, length);
+        count++;
+
+        return _mode == OPTIMAL
+                ? breakOptimally(positions, starts, ends, count, width)
+                : breakGreedily(positions, starts, ends, count, width);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static int trimEnd(CharSequence paragraph, int end) {
+        while (end > 0 && isSpace(paragraph.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int[] breakGreedily(
+            float[] positions,
+            int[] starts,
+            int[] ends,
+            int count,
+            float width) {
+        int[] breaks = new int[count - 1];
+        int lineCount = 0;
+        int line = 0;
+        int fits = -1;
+        for (int j = 1; j < count; j++) {
+            if (positions[ends[j]] - positions[starts[line]] <= width) {
+                fits = j;
+            } else if (fits > line) {
+                breaks[lineCount++] = starts[fits];
+                line = fits;
+                fits = -1;
+                j--;
+            } else {
+
+                // The line overflows with a single word
+                breaks[lineCount++] = starts[j];
+                line = j;
+                fits = -1;
+            }
+        }
+        if (line < count - 1) {
+            breaks[lineCount++] = starts[count - 1];
+        }
+        return Arrays.copyOf(breaks, lineCount);
+    }
+
+    private static int[] breakOptimally(
+            float[] positions,
+            int[] starts,
+            int[] ends,
+            int count,
+            float width) {
+        double[] costs = new double[count];
+        int[] previous = new int[count];
+        for (int j = 1; j < count; j++) {
+            costs[j] = Double.POSITIVE_INFINITY;
+            for (int i = j - 1; i >= 0; i--) {
+                float lineWidth = positions[ends[j]] - positions[starts[i]];
+                double cost;
+                if (lineWidth > width) {
+                    if (i < j - 1) {
+
+                        // Lines starting any earlier are wider still
+                        break;
+                    }
+
+                    // A single word wider than a line is allowed, at a cost
+                    // that keeps it to a line of its own
+                    double over = lineWidth - width;
+                    cost = 1e6 * width * width + over * over;
+                } else if (j == count - 1) {
+
+                    // The last line may be as short as it likes
+                    cost = 0;
+                } else {
+                    double slack = width - lineWidth;
+                    cost = slack * slack;
+                }
+                if (costs[i] + cost < costs[j]) {
+                    costs[j] = costs[i] + cost;
+                    previous[j] = i;
+                }
+            }
+        }
+        int lineCount = 0;
+        for (int j = count - 1; j > 0; j = previous[j]) {
+            lineCount++;
+        }
+        int[] breaks = new int[lineCount];
+        for (int j = count - 1; j > 0; j = previous[j]) {
+            breaks[--lineCount] = starts[j];
+        }
+        return breaks;
+    }
+
+    /**
+     * Breaks paragraphs in parallel, each as {@link #breakLines(CharSequence,
+     * float)} would.
+     * @param paragraphs the paragraphs
+     * @param width the width of a line
+     * @param pool the pool to break the paragraphs in
+     * @return the line breaks of each paragraph, in order
+     */
+    public List<int[]> breakLines(
+            List<? extends CharSequence> paragraphs,
+            float width,
+            ForkJoinPool pool) {
+        int[][] breaks = new int[paragraphs.size()][];
+        pool.invoke(new BreakTask(paragraphs, width, breaks, 0, breaks.length));
+        return new ArrayList<>(Arrays.asList(breaks));
+    }
+
+    /** Breaks a range of paragraphs, splitting it between tasks */
+    private final class BreakTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // Paragraphs are short, so aren't worth a task each
+        private static final int THRESHOLD = 8;
+
+        private final List<? extends CharSequence> _paragraphs;
+        private final float _width;
+        private final int[][] _breaks;
+        private final int _start;
+        private final int _end;
+
+        BreakTask(
+                List<? extends CharSequence> paragraphs,
+                float width,
+                int[][] breaks,
+                int start,
+                int end) {
+            _paragraphs = paragraphs;
+            _width = width;
+            _breaks = breaks;
+            _start = start;
+            _end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (_end - _start <= THRESHOLD) {
+                for (int i = _start; i < _end; i++) {
+                    _breaks[i] = breakLines(_paragraphs.get(i), _width);
+                }
+            } else {
+                int middle = (_start + _end) >>> 1;
+                invokeAll(
+                        new BreakTask(_paragraphs, _width, _breaks, _start, middle),
+                        new BreakTask(_paragraphs, _width, _breaks, middle, _end));
+            }
+        }
+    }
+}
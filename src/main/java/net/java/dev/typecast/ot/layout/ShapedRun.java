@@ -0,0 +1,163 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+/**
+ * The glyphs and positions that a run of text was shaped to, held in compact
+ * primitive arrays.  Positions are in font design units, and are scaled to
+ * the run's size by the {@code getScaled} methods.  Runs are immutable.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class ShapedRun {
+
+    private final char[] _glyphs;
+    private final int[] _clusters;
+    private final int[] _xAdvances;
+    private final int[] _xOffsets;
+    private final int[] _yOffsets;
+
+    // Only present where some glyph has a vertical advance, which horizontal
+    // text rarely does
+    private final int[] _yAdvances;
+
+    private final int _advanceWidth;
+    private final int _unitsPerEm;
+    private final float _size;
+
+    /**
+     * @param buf the shaped and positioned glyphs, which are copied
+     * @param unitsPerEm the font's units per em
+     * @param size the size the run is to be set at
+     */
+    public ShapedRun(GlyphBuffer buf, int unitsPerEm, float size) {
+        int length = buf.getLength();
+        _glyphs = new char[length];
+        int[] glyphs = buf.getGlyphs();
+        for (int i = 0; i < length; i++) {
+            _glyphs[i] = (char) glyphs[i];
+        }
+        _clusters = copy(buf.getClusters(), length);
+        _xAdvances = copy(buf.getXAdvances(), length);
+        _xOffsets = copy(buf.getXOffsets(), length);
+        _yOffsets = copy(buf.getYOffsets(), length);
+        int[] yAdvances = null;
+        for (int i = 0; i < length; i++) {
+            if (buf.getYAdvances()[i] != 0) {
+                yAdvances = copy(buf.getYAdvances(), length);
+                break;
+            }
+        }
+        _yAdvances = yAdvances;
+        int advanceWidth = 0;
+        for (int xAdvance : _xAdvances) {
+            advanceWidth += xAdvance;
+        }
+        _advanceWidth = advanceWidth;
+        _unitsPerEm = unitsPerEm;
+        _size = size;
+    }
+
+    private static int[] copy(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    public int getGlyphCount() {
+        return _glyphs.length;
+    }
+
+    public int getGlyph(int index) {
+        return _glyphs[index];
+    }
+
+    /**
+     * @param index the glyph index
+     * @return the index of the first character of the glyph's cluster
+     */
+    public int getCluster(int index) {
+        return _clusters[index];
+    }
+
+    public int getXAdvance(int index) {
+        return _xAdvances[index];
+    }
+
+    public int getYAdvance(int index) {
+        return _yAdvances != null ? _yAdvances[index] : 0;
+    }
+
+    public int getXOffset(int index) {
+        return _xOffsets[index];
+    }
+
+    public int getYOffset(int index) {
+        return _yOffsets[index];
+    }
+
+    /**
+     * @return the sum of the x advances, in design units
+     */
+    public int getAdvanceWidth() {
+        return _advanceWidth;
+    }
+
+    public int getUnitsPerEm() {
+        return _unitsPerEm;
+    }
+
+    public float getSize() {
+        return _size;
+    }
+
+    /**
+     * @return the factor that converts design units to the run's size
+     */
+    public float getScale() {
+        return _size / _unitsPerEm;
+    }
+
+    public float getScaledXAdvance(int index) {
+        return _xAdvances[index] * getScale();
+    }
+
+    public float getScaledAdvanceWidth() {
+        return _advanceWidth * getScale();
+    }
+
+    /**
+     * @return a copy of the glyph IDs
+     */
+    public int[] getGlyphs() {
+        int[] glyphs = new int[_glyphs.length];
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i] = _glyphs[i];
+        }
+        return glyphs;
+    }
+
+    /**
+     * @return an estimate of the memory the run occupies, in bytes
+     */
+    public int getMemorySize() {
+        int length = _glyphs.length;
+        return 48 + 16 * 5 + length * (2 + 4 * 4)
+                + (_yAdvances != null ? 16 + length * 4 : 0);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.java.dev.typecast.ot.OTFont;
+
+/**
+ * A least-recently-used cache of shaped runs, keyed by font, text, script,
+ * language system, feature set and size, and bounded by an estimate of the
+ * memory its runs and keys occupy.  A cache may be shared by any number of
+ * {@link TextShaper}s, and by any number of threads.
+ * <p>
+ * Fonts are held by the keys of their cached runs, and are compared by
+ * identity.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class ShapedRunCache {
+
+    public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+
+    private final LinkedHashMap<Key, ShapedRun> _runs =
+            new LinkedHashMap<>(64, 0.75f, true);
+    private long _maxBytes;
+    private long _bytes;
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    public ShapedRunCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes the estimated memory the cache may occupy, or zero to
+     * disable caching
+     */
+    public ShapedRunCache(long maxBytes) {
+        _maxBytes = maxBytes;
+    }
+
+    static final class Key {
+
+        private final OTFont _font;
+        private final String _text;
+        private final int _scriptTag;
+        private final int _languageTag;
+        private final int[] _featureTags;
+        private final float _size;
+        private final int _hashCode;
+
+        Key(OTFont font,
+                String text,
+                int scriptTag,
+                int languageTag,
+                int[] featureTags,
+                float size) {
+            _font = font;
+            _text = text;
+            _scriptTag = scriptTag;
+            _languageTag = languageTag;
+            _featureTags = ShapingPlan.featureSet(featureTags);
+            _size = size;
+            int h = System.identityHashCode(font);
+            h = 31 * h + text.hashCode();
+            h = 31 * h + scriptTag;
+            h = 31 * h + languageTag;
+            h = 31 * h + Arrays.hashCode(_featureTags);
+            _hashCode = 31 * h + Float.floatToIntBits(size);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return _font == key._font
+                    && _hashCode == key._hashCode
+                    && _scriptTag == key._scriptTag
+                    && _languageTag == key._languageTag
+                    && Float.floatToIntBits(_size) == Float.floatToIntBits(key._size)
+                    && _text.equals(key._text)
+                    && Arrays.equals(_featureTags, key._featureTags);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+
+        int getMemorySize() {
+            return 48 + 40 + _text.length() * 2 + 16 + _featureTags.length * 4;
+        }
+    }
+
+    synchronized ShapedRun get(Key key) {
+        ShapedRun run = _runs.get(key);
+        if (run != null) {
+            _hitCount++;
+        } else {
+            _missCount++;
+        }
+        return run;
+    }
+
+    synchronized void put(Key key, ShapedRun run) {
+        long size = key.getMemorySize() + run.getMemorySize();
+        if (size > _maxBytes) {
+            return;
+        }
+        ShapedRun previous = _runs.put(key, run);
+        if (previous != null) {
+            _bytes -= key.getMemorySize() + previous.getMemorySize();
+        }
+        _bytes += size;
+        trim();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, ShapedRun>> it = _runs.entrySet().iterator();
+        while (_bytes > _maxBytes && it.hasNext()) {
+            Map.Entry<Key, ShapedRun> eldest = it.next();
+            _bytes -= eldest.getKey().getMemorySize()
+                    + eldest.getValue().getMemorySize();
+            it.remove();
+            _evictionCount++;
+        }
+    }
+
+    public synchronized long getMaxBytes() {
+        return _maxBytes;
+    }
+
+    /**
+     * Runs are evicted, least recently used first, until the cache fits.
+     * @param maxBytes the estimated memory the cache may occupy, or zero to
+     * disable caching
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        _maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Removes all runs, leaving the statistics as they are.
+     */
+    public synchronized void clear() {
+        _runs.clear();
+        _bytes = 0;
+    }
+
+    /**
+     * @return the number of cached runs
+     */
+    public synchronized int size() {
+        return _runs.size();
+    }
+
+    /**
+     * @return the estimated memory occupied by the cached runs and their keys
+     */
+    public synchronized long getBytes() {
+        return _bytes;
+    }
+
+    public synchronized long getHitCount() {
+        return _hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return _missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return _evictionCount;
+    }
+
+    /**
+     * @return the proportion of lookups that found a run, or zero if there
+     * have been none
+     */
+    public synchronized double getHitRate() {
+        long lookups = _hitCount + _missCount;
+        return lookups > 0 ? (double) _hitCount / lookups : 0;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts.
+     */
+    public synchronized void resetStatistics() {
+        _hitCount = 0;
+        _missCount = 0;
+        _evictionCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ShapedRunCache: " + _runs.size() + " runs, "
+                + _bytes + "/" + _maxBytes + " bytes, "
+                + _hitCount + " hits, " + _missCount + " misses, "
+                + _evictionCount + " evictions";
+    }
+}
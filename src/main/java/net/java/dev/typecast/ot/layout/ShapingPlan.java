@@ -0,0 +1,263 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.table.Feature;
+import net.java.dev.typecast.ot.table.FeatureList;
+import net.java.dev.typecast.ot.table.GposTable;
+import net.java.dev.typecast.ot.table.GsubTable;
+import net.java.dev.typecast.ot.table.LangSys;
+import net.java.dev.typecast.ot.table.LookupList;
+import net.java.dev.typecast.ot.table.Script;
+import net.java.dev.typecast.ot.table.ScriptList;
+import net.java.dev.typecast.ot.table.TagIndex;
+
+/**
+ * The GSUB and GPOS lookups to apply for a script, language system and set
+ * of features, resolved once so that runs can be shaped without walking the
+ * script, feature and lookup lists again.  The lookups of each table are
+ * applied in lookup list order, each once, whichever features ask for them,
+ * and the language system's required feature is always included.
+ * <p>
+ * Where the font doesn't have the script, the 'DFLT' script is used, and
+ * failing that, 'latn'.  Where the script doesn't have the language system,
+ * its default language system is used.</p>
+ * <p>
+ * Plans are immutable, and are cached by {@code OTFont.getShapingPlan}.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class ShapingPlan {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int _scriptTag;
+    private final int _languageTag;
+    private final int[] _featureTags;
+    private final int[] _substitutionLookups;
+    private final int[] _substitutionFlags;
+    private final int[] _positioningLookups;
+    private final int[] _positioningFlags;
+
+    /**
+     * @param gsub the font's GSUB table, or null if it doesn't have one
+     * @param gpos the font's GPOS table, or null if it doesn't have one
+     * @param scriptTag the script tag
+     * @param languageTag the language system tag
+     * @param featureTags the tags of the features to apply, in any order
+     */
+    public ShapingPlan(
+            GsubTable gsub,
+            GposTable gpos,
+            int scriptTag,
+            int languageTag,
+            int[] featureTags) {
+        _scriptTag = scriptTag;
+        _languageTag = languageTag;
+        _featureTags = featureSet(featureTags);
+        if (gsub != null) {
+            _substitutionLookups = findLookups(gsub.getScriptList(),
+                    gsub.getFeatureList(), gsub.getLookupList().getLookupCount());
+            _substitutionFlags = getFlags(gsub.getLookupList(), _substitutionLookups);
+        } else {
+            _substitutionLookups = EMPTY;
+            _substitutionFlags = EMPTY;
+        }
+        if (gpos != null) {
+            _positioningLookups = findLookups(gpos.getScriptList(),
+                    gpos.getFeatureList(), gpos.getLookupList().getLookupCount());
+            _positioningFlags = getFlags(gpos.getLookupList(), _positioningLookups);
+        } else {
+            _positioningLookups = EMPTY;
+            _positioningFlags = EMPTY;
+        }
+    }
+
+    /**
+     * @param tag a tag of up to four characters, which is padded with spaces
+     * @return the tag as an int
+     * @see TagIndex#valueOf(String)
+     */
+    public static int tag(String tag) {
+        return TagIndex.valueOf(tag);
+    }
+
+    /**
+     * @param featureTags feature tags, in any order and possibly repeated
+     * @return the distinct tags in ascending order, which identify the set
+     */
+    public static int[] featureSet(int[] featureTags) {
+        int[] sorted = featureTags.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private int[] findLookups(
+            ScriptList scriptList,
+            FeatureList featureList,
+            int lookupCount) {
+        LangSys langSys = findLangSys(scriptList);
+        if (langSys == null) {
+            return EMPTY;
+        }
+        boolean[] applied = new boolean[lookupCount];
+        int required = langSys.getReqFeatureIndex();
+        if (required != 0xffff) {
+            addLookups(featureList, required, applied);
+        }
+        for (int i = 0; i < langSys.getFeatureCount(); i++) {
+            int featureIndex = langSys.getFeatureIndex(i);
+            if (featureIndex < featureList.getFeatureCount()
+                    && Arrays.binarySearch(_featureTags,
+                            featureList.getFeatureRecord(featureIndex).getTag()) >= 0) {
+                addLookups(featureList, featureIndex, applied);
+            }
+        }
+        int count = 0;
+        for (boolean b : applied) {
+            if (b) {
+                count++;
+            }
+        }
+        int[] lookups = new int[count];
+        count = 0;
+        for (int i = 0; i < lookupCount; i++) {
+            if (applied[i]) {
+                lookups[count++] = i;
+            }
+        }
+        return lookups;
+    }
+
+    private static void addLookups(
+            FeatureList featureList,
+            int featureIndex,
+            boolean[] applied) {
+        if (featureIndex >= featureList.getFeatureCount()) {
+            return;
+        }
+        Feature feature = featureList.getFeature(featureIndex);
+        for (int i = 0; i < feature.getLookupCount(); i++) {
+            int lookupIndex = feature.getLookupListIndex(i);
+            if (lookupIndex < applied.length) {
+                applied[lookupIndex] = true;
+            }
+        }
+    }
+
+    private LangSys findLangSys(ScriptList scriptList) {
+        Script script = scriptList.findScript(_scriptTag);
+        if (script == null) {
+            script = scriptList.findScript(tag("DFLT"));
+        }
+        if (script == null) {
+            script = scriptList.findScript(tag("latn"));
+        }
+        if (script == null) {
+            return null;
+        }
+        LangSys langSys = script.findLangSys(_languageTag);
+        return langSys != null ? langSys : script.getDefaultLangSys();
+    }
+
+    private static int[] getFlags(LookupList lookupList, int[] lookups) {
+        int[] flags = new int[lookups.length];
+        for (int i = 0; i < lookups.length; i++) {
+            flags[i] = lookupList.getLookup(lookups[i]).getFlag();
+        }
+        return flags;
+    }
+
+    public int getScriptTag() {
+        return _scriptTag;
+    }
+
+    public int getLanguageTag() {
+        return _languageTag;
+    }
+
+    /**
+     * @return the distinct feature tags, in ascending order
+     */
+    public int[] getFeatureTags() {
+        return _featureTags.clone();
+    }
+
+    /**
+     * @param featureTag a feature tag
+     * @return true if the plan was made for the feature
+     */
+    public boolean hasFeature(int featureTag) {
+        return Arrays.binarySearch(_featureTags, featureTag) >= 0;
+    }
+
+    /**
+     * @return the GSUB lookup indexes, in the order they are applied, which
+     * must not be modified
+     */
+    public int[] getSubstitutionLookups() {
+        return _substitutionLookups;
+    }
+
+    /**
+     * @return the lookup flags of each GSUB lookup, which must not be
+     * modified
+     */
+    public int[] getSubstitutionFlags() {
+        return _substitutionFlags;
+    }
+
+    /**
+     * @return the GPOS lookup indexes, in the order they are applied, which
+     * must not be modified
+     */
+    public int[] getPositioningLookups() {
+        return _positioningLookups;
+    }
+
+    /**
+     * @return the lookup flags of each GPOS lookup, which must not be
+     * modified
+     */
+    public int[] getPositioningFlags() {
+        return _positioningFlags;
+    }
+
+    /**
+     * @param substitutor the substitutor for the font the plan was made for
+     * @param buf the glyphs to substitute
+     */
+    public void substitute(GlyphSubstitutor substitutor, GlyphBuffer buf) {
+        substitutor.apply(buf, _substitutionLookups);
+    }
+
+    /**
+     * @param positioner the positioner for the font the plan was made for
+     * @param buf the glyphs to position
+     */
+    public void position(GlyphPositioner positioner, GlyphBuffer buf) {
+        positioner.apply(buf, _positioningLookups);
+    }
+}
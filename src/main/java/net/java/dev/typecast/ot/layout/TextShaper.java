@@ -0,0 +1,153 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import net.java.dev.typecast.ot.OTFont;
+import net.java.dev.typecast.ot.table.KernTable;
+
+/**
+ * Shapes runs of text with a font: characters are mapped to glyphs by the
+ * font's Unicode cmap, substituted by its GSUB lookups and positioned by its
+ * GPOS lookups, as planned by {@link OTFont#getShapingPlan}.  Where the
+ * plan has no GPOS lookups but asks for the 'kern' feature, pairs are kerned
+ * by the font's legacy 'kern' table instead.
+ * <p>
+ * Where the shaper has a {@link ShapedRunCache}, runs that have been shaped
+ * before are returned from the cache, so that text that is laid out again
+ * and again is only shaped once.  Shapers are stateless beyond the cache,
+ * and may be used by any number of threads.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class TextShaper {
+
+    private static final int KERN = ShapingPlan.tag("kern");
+
+    private final OTFont _font;
+    private final GlyphSubstitutor _substitutor;
+    private final GlyphPositioner _positioner;
+    private final KernTable _kern;
+    private final ShapedRunCache _cache;
+
+    public TextShaper(OTFont font) {
+        this(font, null);
+    }
+
+    /**
+     * @param font the font to shape with
+     * @param cache the cache of shaped runs, which may be shared with other
+     * shapers, or null to shape every run
+     */
+    public TextShaper(OTFont font, ShapedRunCache cache) {
+        _font = font;
+        _substitutor = font.getGsubTable() != null
+                ? new GlyphSubstitutor(font.getGsubTable(), font.getGdefTable())
+                : null;
+        _positioner = font.getGposTable() != null
+                ? new GlyphPositioner(font.getGposTable(), font.getGdefTable())
+                : null;
+        _kern = font.getKernTable();
+        _cache = cache;
+    }
+
+    public OTFont getFont() {
+        return _font;
+    }
+
+    /**
+     * @return the cache of shaped runs, or null if the shaper doesn't have
+     * one
+     */
+    public ShapedRunCache getCache() {
+        return _cache;
+    }
+
+    /**
+     * @param text the text to shape
+     * @param scriptTag the script tag
+     * @param languageTag the language system tag
+     * @param featureTags the tags of the features to apply, in any order
+     * @param size the size the run is to be set at
+     * @return the shaped run
+     * @see ShapingPlan#tag(String)
+     */
+    public ShapedRun shape(
+            CharSequence text,
+            int scriptTag,
+            int languageTag,
+            int[] featureTags,
+            float size) {
+        if (_cache == null) {
+            return shapeRun(text, scriptTag, languageTag, featureTags, size);
+        }
+        ShapedRunCache.Key key = new ShapedRunCache.Key(
+                _font, text.toString(), scriptTag, languageTag, featureTags, size);
+        ShapedRun run = _cache.get(key);
+        if (run == null) {
+            run = shapeRun(text, scriptTag, languageTag, featureTags, size);
+            _cache.put(key, run);
+        }
+        return run;
+    }
+
+    private ShapedRun shapeRun(
+            CharSequence text,
+            int scriptTag,
+            int languageTag,
+            int[] featureTags,
+            float size) {
+        GlyphBuffer buf = new GlyphBuffer(text.length());
+        shape(text, _font.getShapingPlan(scriptTag, languageTag, featureTags), buf);
+        return new ShapedRun(buf, _font.getHeadTable().getUnitsPerEm(), size);
+    }
+
+    /**
+     * Shapes text into a buffer, bypassing the cache.
+     * @param text the text to shape
+     * @param plan the plan of lookups, made by this shaper's font
+     * @param buf the buffer to hold the glyphs, which is cleared first
+     */
+    public void shape(CharSequence text, ShapingPlan plan, GlyphBuffer buf) {
+        buf.clear();
+        for (int i = 0; i < text.length(); ) {
+            int c = Character.codePointAt(text, i);
+            buf.add(_font.mapChar(c), i);
+            i += Character.charCount(c);
+        }
+        if (_substitutor != null) {
+            plan.substitute(_substitutor, buf);
+        }
+        buf.resetPositions(_font.getHmtxTable());
+        if (_positioner != null) {
+            plan.position(_positioner, buf);
+        }
+        if (_kern != null
+                && plan.getPositioningLookups().length == 0
+                && plan.hasFeature(KERN)) {
+            kern(buf);
+        }
+    }
+
+    private void kern(GlyphBuffer buf) {
+        int[] glyphs = buf.getGlyphs();
+        int[] xAdvances = buf.getXAdvances();
+        for (int i = 0; i < buf.getLength() - 1; i++) {
+            xAdvances[i] += _kern.getKerning(glyphs[i], glyphs[i + 1]);
+        }
+    }
+}
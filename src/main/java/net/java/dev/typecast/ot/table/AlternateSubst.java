@@ -0,0 +1,78 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Alternate Substitution, which replaces one glyph with one of a set of
+ * alternatives.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class AlternateSubst extends LookupSubtable {
+
+    private final Coverage _coverage;
+    private final int[][] _alternateSets;
+
+    AlternateSubst(DataInputStream dis, int offset) throws IOException {
+        int coverageOffset = dis.readUnsignedShort();
+        int alternateSetCount = dis.readUnsignedShort();
+        int[] alternateSetOffsets = new int[alternateSetCount];
+        for (int i = 0; i < alternateSetCount; i++) {
+            alternateSetOffsets[i] = dis.readUnsignedShort();
+        }
+        _alternateSets = new int[alternateSetCount][];
+        for (int i = 0; i < alternateSetCount; i++) {
+            dis.reset();
+            dis.skipBytes(offset + alternateSetOffsets[i]);
+            _alternateSets[i] = MultipleSubst.readGlyphArray(dis);
+        }
+        dis.reset();
+        dis.skipBytes(offset + coverageOffset);
+        _coverage = Coverage.read(dis);
+    }
+
+    public static AlternateSubst read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new AlternateSubst(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the glyph to be replaced
+     * @return the alternative glyphs, which must not be modified
+     */
+    public int[] getAlternates(int coverageIndex) {
+        return _alternateSets[coverageIndex];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "AlternateSubstFormat1";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * A GPOS anchor point, where marks and cursive glyphs attach.  Contour point
+ * indexes (format 2) and device tables (format 3) are not used, so every
+ * format is taken as its design units coordinates.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class Anchor {
+
+    private final short _x;
+    private final short _y;
+
+    private Anchor(DataInputStream dis) throws IOException {
+        _x = dis.readShort();
+        _y = dis.readShort();
+    }
+
+    /**
+     * @param dis the stream holding the table
+     * @param offset the offset of the anchor table
+     * @return the anchor, or null if it has an unknown format
+     * @throws IOException
+     */
+    static Anchor read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (1 <= format && format <= 3) {
+            return new Anchor(dis);
+        }
+        return null;
+    }
+
+    /**
+     * Reads an array of records of anchor offsets, as held by base arrays,
+     * mark-to-mark arrays and ligature attachments, where null offsets give
+     * null anchors.
+     * @param dis the stream holding the table
+     * @param offset the offset of the array, from which the anchor offsets
+     * are measured
+     * @param anchorCount the number of anchors in each record
+     * @return the anchors, indexed by record and then by mark class
+     * @throws IOException
+     */
+    static Anchor[][] readArray(
+            DataInputStream dis,
+            int offset,
+            int anchorCount) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int recordCount = dis.readUnsignedShort();
+        int[] anchorOffsets = new int[recordCount * anchorCount];
+        for (int i = 0; i < anchorOffsets.length; i++) {
+            anchorOffsets[i] = dis.readUnsignedShort();
+        }
+        Anchor[][] anchors = new Anchor[recordCount][anchorCount];
+        for (int i = 0; i < recordCount; i++) {
+            for (int j = 0; j < anchorCount; j++) {
+                int anchorOffset = anchorOffsets[i * anchorCount + j];
+                if (anchorOffset != 0) {
+                    anchors[i][j] = read(dis, offset + anchorOffset);
+                }
+            }
+        }
+        return anchors;
+    }
+
+    public int getX() {
+        return _x;
+    }
+
+    public int getY() {
+        return _y;
+    }
+}
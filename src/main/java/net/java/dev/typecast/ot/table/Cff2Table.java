@@ -0,0 +1,126 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInput;
+import java.io.IOException;
+import net.java.dev.typecast.cff.CffFont;
+import net.java.dev.typecast.cff.Dict;
+import net.java.dev.typecast.cff.Index;
+
+/**
+ * Compact Font Format 2 Table, which holds the PostScript outlines of a
+ * variable OpenType font.  Unlike CFF, it has a single font, with no names or
+ * strings, and its charstrings may blend values across the font's design
+ * space.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class Cff2Table implements Table {
+
+    private final int _major;
+    private final int _minor;
+    private final int _hdrSize;
+    private final int _topDictLength;
+    private final Dict _topDict;
+    private final Index _globalSubrIndex;
+    private final ItemVariationStore _vstore;
+    private final CffFont _font;
+
+    private final byte[] _buf;
+
+    /** Creates a new instance of Cff2Table
+     * @param di
+     * @param length
+     * @throws java.io.IOException */
+    public Cff2Table(DataInput di, int length) throws IOException {
+
+        // Load entire table into a buffer
+        _buf = new byte[length];
+        di.readFully(_buf);
+
+        // Header
+        _major = _buf[0] & 0xff;
+        _minor = _buf[1] & 0xff;
+        _hdrSize = _buf[2] & 0xff;
+        _topDictLength = (_buf[3] & 0xff) << 8 | (_buf[4] & 0xff);
+
+        // Top DICT, which directly follows the header
+        _topDict = new Dict(_buf, _hdrSize, _topDictLength);
+
+        // Global Subr INDEX
+        _globalSubrIndex = new Index(_buf, _hdrSize + _topDictLength, 4);
+
+        // Variation Store, preceded by its length
+        int vstoreOffset = _topDict.getVariationStoreOffset();
+        _vstore = vstoreOffset > 0
+                ? new ItemVariationStore(_buf, vstoreOffset + 2)
+                : null;
+
+        _font = new CffFont(this, _topDict);
+    }
+
+    /**
+     * @return the buffer holding the entire table, which the INDEX and DICT
+     * structures read from in place, and so must not be modified
+     */
+    public final byte[] getBuffer() {
+        return _buf;
+    }
+
+    public int getMajorVersion() {
+        return _major;
+    }
+
+    public int getMinorVersion() {
+        return _minor;
+    }
+
+    public Dict getTopDict() {
+        return _topDict;
+    }
+
+    public Index getGlobalSubrIndex() {
+        return _globalSubrIndex;
+    }
+
+    /**
+     * @return the variation store, or null if there isn't one
+     */
+    public ItemVariationStore getVariationStore() {
+        return _vstore;
+    }
+
+    public CffFont getFont() {
+        return _font;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("'CFF2' Table - Compact Font Format 2\n------------------------------------\n");
+        sb.append("\nTop DICT\n");
+        sb.append(_topDict.toString());
+        sb.append("\nGlobal Subr INDEX\n");
+        sb.append(_globalSubrIndex.toString());
+        sb.append("\nCharStrings INDEX\n");
+        sb.append(_font.getCharStringsIndex().toString());
+        return sb.toString();
+    }
+
+}
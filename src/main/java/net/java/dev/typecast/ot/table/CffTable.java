@@ -50,7 +50,7 @@ public class CffTable implements Table {
      * @param di
      * @param length
      * @throws java.io.IOException */
-    protected CffTable(DataInput di, int length) throws IOException {
+    public CffTable(DataInput di, int length) throws IOException {
 
         // Load entire table into a buffer, and create another input stream
         _buf = new byte[length];
@@ -64,17 +64,16 @@ public class CffTable implements Table {
         _offSize = di2.readUnsignedByte();
         
         // Name INDEX
-        di2 = getDataInputForOffset(_hdrSize);
-        _nameIndex = new NameIndex(di2);
+        _nameIndex = new NameIndex(_buf, _hdrSize);
         
         // Top DICT INDEX
-        _topDictIndex = new TopDictIndex(di2);
+        _topDictIndex = new TopDictIndex(_buf, _nameIndex.getEndOffset());
 
         // String INDEX
-        _stringIndex = new StringIndex(di2);
+        _stringIndex = new StringIndex(_buf, _topDictIndex.getEndOffset());
         
         // Global Subr INDEX
-        _globalSubrIndex = new Index(di2);
+        _globalSubrIndex = new Index(_buf, _stringIndex.getEndOffset());
         
         // TESTING
 //        Charstring gscs = new CharstringType2(
@@ -103,6 +102,14 @@ public class CffTable implements Table {
                 _buf.length - offset));
     }
 
+    /**
+     * @return the buffer holding the entire table, which the INDEX and DICT
+     * structures read from in place, and so must not be modified
+     */
+    public final byte[] getBuffer() {
+        return _buf;
+    }
+
     public NameIndex getNameIndex() {
         return _nameIndex;
     }
@@ -8,8 +8,10 @@
 
 package net.java.dev.typecast.ot.table;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  *
@@ -19,13 +21,36 @@ public abstract class ClassDef {
 
     public abstract int getFormat();
 
-    protected static ClassDef read(RandomAccessFile raf) throws IOException {
+    /**
+     * @param glyphId The ID of the glyph.
+     * @return The class of the glyph, which is zero for any glyph not
+     * assigned a class.
+     */
+    public abstract int getGlyphClass(int glyphId);
+
+    /**
+     * @return the highest glyph ID assigned a class, or -1 if there are none
+     */
+    public abstract int getLastGlyph();
+
+    /**
+     * @param buf the buffer holding the table, such as a GSUB or GPOS table
+     * @param offset the offset of the class definition within the buffer
+     * @return the class definition, or null if it has an unknown format
+     * @throws IOException
+     */
+    public static ClassDef read(byte[] buf, int offset) throws IOException {
+        return read(new DataInputStream(
+                new ByteArrayInputStream(buf, offset, buf.length - offset)));
+    }
+
+    protected static ClassDef read(DataInput di) throws IOException {
         ClassDef c = null;
-        int format = raf.readUnsignedShort();
+        int format = di.readUnsignedShort();
         if (format == 1) {
-            c = new ClassDefFormat1(raf);
+            c = new ClassDefFormat1(di);
         } else if (format == 2) {
-            c = new ClassDefFormat2(raf);
+            c = new ClassDefFormat2(di);
         }
         return c;
     }
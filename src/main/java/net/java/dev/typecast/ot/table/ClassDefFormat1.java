@@ -8,31 +8,38 @@
 
 package net.java.dev.typecast.ot.table;
 
+import java.io.DataInput;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
- *
+ * Classes of a consecutive run of glyphs.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class ClassDefFormat1 extends ClassDef {
 
-    private int startGlyph;
-    private int glyphCount;
-    private int[] classValues;
+    private final GlyphClassArray _classes;
 
     /** Creates new ClassDefFormat1 */
-    public ClassDefFormat1(RandomAccessFile raf) throws IOException {
-        startGlyph = raf.readUnsignedShort();
-        glyphCount = raf.readUnsignedShort();
-        classValues = new int[glyphCount];
+    public ClassDefFormat1(DataInput di) throws IOException {
+        int startGlyph = di.readUnsignedShort();
+        int glyphCount = di.readUnsignedShort();
+        int[] classValues = new int[glyphCount];
         for (int i = 0; i < glyphCount; i++) {
-            classValues[i] = raf.readUnsignedShort();
+            classValues[i] = di.readUnsignedShort();
         }
+        _classes = new GlyphClassArray(startGlyph, classValues);
     }
 
     public int getFormat() {
         return 1;
     }
 
+    public int getGlyphClass(int glyphId) {
+        return _classes.getGlyphClass(glyphId);
+    }
+
+    public int getLastGlyph() {
+        return _classes.getLastGlyph();
+    }
+
 }
@@ -8,24 +8,65 @@
 
 package net.java.dev.typecast.ot.table;
 
+import java.io.DataInput;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
- *
+ * Classes of ranges of glyphs.  Where the ranges cover most of the glyphs
+ * they span, they are expanded into an array indexed by glyph, and
+ * otherwise the range holding a glyph is found by binary search.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class ClassDefFormat2 extends ClassDef {
 
-    private int classRangeCount;
-    private RangeRecord[] classRangeRecords;
+    /**
+     * The number of glyphs that an expanded array may hold beyond twice the
+     * number of glyphs with classes
+     */
+    private static final int DENSE_SLACK = 256;
+
+    private final int _classRangeCount;
+    private final int[] _starts;
+    private final int[] _ends;
+    private final int[] _classes;
+    private final GlyphClassArray _classArray;
+    private final int _lastGlyph;
 
     /** Creates new ClassDefFormat2 */
-    public ClassDefFormat2(RandomAccessFile raf) throws IOException {
-        classRangeCount = raf.readUnsignedShort();
-        classRangeRecords = new RangeRecord[classRangeCount];
-        for (int i = 0; i < classRangeCount; i++) {
-            classRangeRecords[i] = new RangeRecord(raf);
+    public ClassDefFormat2(DataInput di) throws IOException {
+        _classRangeCount = di.readUnsignedShort();
+        _starts = new int[_classRangeCount];
+        _ends = new int[_classRangeCount];
+        _classes = new int[_classRangeCount];
+        int glyphCount = 0;
+        int firstGlyph = Integer.MAX_VALUE;
+        int lastGlyph = -1;
+        boolean sorted = true;
+        for (int i = 0; i < _classRangeCount; i++) {
+            _starts[i] = di.readUnsignedShort();
+            _ends[i] = di.readUnsignedShort();
+            _classes[i] = di.readUnsignedShort();
+            glyphCount += Math.max(_ends[i] - _starts[i] + 1, 0);
+            firstGlyph = Math.min(firstGlyph, _starts[i]);
+            if (i > 0 && _starts[i] <= _ends[i - 1]) {
+                sorted = false;
+            }
+            lastGlyph = Math.max(lastGlyph, _ends[i]);
+        }
+        _lastGlyph = lastGlyph;
+
+        // Ranges out of order can't be searched, so are always expanded
+        int span = lastGlyph - firstGlyph + 1;
+        if (span > 0 && (!sorted || span <= 2 * glyphCount + DENSE_SLACK)) {
+            int[] classValues = new int[span];
+            for (int i = 0; i < _classRangeCount; i++) {
+                for (int glyphId = _starts[i]; glyphId <= _ends[i]; glyphId++) {
+                    classValues[glyphId - firstGlyph] = _classes[i];
+                }
+            }
+            _classArray = new GlyphClassArray(firstGlyph, classValues);
+        } else {
+            _classArray = null;
         }
     }
 
@@ -33,4 +74,27 @@ public class ClassDefFormat2 extends ClassDef {
         return 2;
     }
 
+    public int getGlyphClass(int glyphId) {
+        if (_classArray != null) {
+            return _classArray.getGlyphClass(glyphId);
+        }
+        int low = 0;
+        int high = _classRangeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (_ends[mid] < glyphId) {
+                low = mid + 1;
+            } else if (_starts[mid] > glyphId) {
+                high = mid - 1;
+            } else {
+                return _classes[mid];
+            }
+        }
+        return 0;
+    }
+
+    public int getLastGlyph() {
+        return _lastGlyph;
+    }
+
 }
@@ -54,11 +54,24 @@ import java.io.DataInput;
 import java.io.IOException;
 
 /**
- *
+ * A Coverage table, which lists the glyphs a lookup subtable applies to,
+ * each with its coverage index.  Glyphs are found by binary search over the
+ * sorted glyphs or ranges, and a coverage that is searched often is compiled
+ * into a bitset, with a running count of the set bits, so that both
+ * membership and the coverage index are found in constant time.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public abstract class Coverage {
 
+    /**
+     * The number of searches after which a coverage compiles itself
+     */
+    static final int COMPILE_THRESHOLD = 256;
+
+    // An approximate count, as racing increments only delay compilation
+    private int _searchCount;
+    private volatile CoverageBitSet _bitSet;
+
     public abstract int getFormat();
 
     /**
@@ -66,10 +79,48 @@ public abstract class Coverage {
      * @return The index of the glyph within the coverage, or -1 if the glyph
      * can't be found.
      */
-    public abstract int findGlyph(int glyphId);
-    
+    public final int findGlyph(int glyphId) {
+        CoverageBitSet bitSet = _bitSet;
+        if (bitSet != null) {
+            return bitSet.findGlyph(glyphId);
+        }
+        if (++_searchCount == COMPILE_THRESHOLD) {
+            compile();
+        }
+        return search(glyphId);
+    }
+
+    /**
+     * @param glyphId The ID of the glyph to find.
+     * @return The index of the glyph within the coverage, or -1 if the glyph
+     * can't be found.
+     */
+    abstract int search(int glyphId);
+
+    /**
+     * @return The covered glyphs, in coverage index order.
+     */
     public abstract int[] getGlyphIds();
-    
+
+    /**
+     * Compiles the coverage into a bitset spanning its lowest to highest
+     * glyph, which for the widest coverage takes around 12 KB.  This happens
+     * of its own accord once a coverage has been searched often.  Coverages
+     * whose indexes aren't in glyph order are left to binary search.
+     */
+    public void compile() {
+        if (_bitSet == null) {
+            _bitSet = CoverageBitSet.create(getGlyphIds());
+        }
+    }
+
+    /**
+     * @return true if the coverage has been compiled into a bitset
+     */
+    public boolean isCompiled() {
+        return _bitSet != null;
+    }
+
     static Coverage read(DataInput di) throws IOException {
         Coverage c = null;
         int format = di.readUnsignedShort();
@@ -0,0 +1,79 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+/**
+ * A compiled coverage: a bitset of the covered glyphs, offset by the lowest
+ * of them, with the number of set bits preceding each 64-bit word, so that
+ * the coverage index of a glyph is the count of set bits below it.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+final class CoverageBitSet {
+
+    private final int _firstGlyph;
+    private final long[] _words;
+    private final int[] _ranks;
+
+    private CoverageBitSet(int firstGlyph, long[] words, int[] ranks) {
+        _firstGlyph = firstGlyph;
+        _words = words;
+        _ranks = ranks;
+    }
+
+    /**
+     * @param glyphIds the covered glyphs, in coverage index order
+     * @return the bitset, or null if the glyphs aren't in ascending order,
+     * in which case their coverage indexes can't be counted from the bits
+     */
+    static CoverageBitSet create(int[] glyphIds) {
+        if (glyphIds.length == 0) {
+            return new CoverageBitSet(0, new long[0], new int[0]);
+        }
+        for (int i = 1; i < glyphIds.length; i++) {
+            if (glyphIds[i] <= glyphIds[i - 1]) {
+                return null;
+            }
+        }
+        int firstGlyph = glyphIds[0];
+        int span = glyphIds[glyphIds.length - 1] - firstGlyph + 1;
+        long[] words = new long[(span + 63) >>> 6];
+        for (int glyphId : glyphIds) {
+            int bit = glyphId - firstGlyph;
+            words[bit >>> 6] |= 1L << bit;
+        }
+        int[] ranks = new int[words.length];
+        for (int i = 1; i < words.length; i++) {
+            ranks[i] = ranks[i - 1] + Long.bitCount(words[i - 1]);
+        }
+        return new CoverageBitSet(firstGlyph, words, ranks);
+    }
+
+    int findGlyph(int glyphId) {
+        int bit = glyphId - _firstGlyph;
+        int word = bit >> 6;
+        if (bit < 0 || word >= _words.length) {
+            return -1;
+        }
+        long mask = 1L << bit;
+        if ((_words[word] & mask) == 0) {
+            return -1;
+        }
+        return _ranks[word] + Long.bitCount(_words[word] & (mask - 1));
+    }
+}
@@ -52,6 +52,7 @@ package net.java.dev.typecast.ot.table;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  *
@@ -77,13 +78,9 @@ public class CoverageFormat1 extends Coverage {
     }
 
     @Override
-    public int findGlyph(int glyphId) {
-        for (int i = 0; i < _glyphCount; i++) {
-            if (_glyphIds[i] == glyphId) {
-                return i;
-            }
-        }
-        return -1;
+    int search(int glyphId) {
+        int i = Arrays.binarySearch(_glyphIds, glyphId);
+        return i >= 0 ? i : -1;
     }
 
     @Override
@@ -52,8 +52,6 @@ package net.java.dev.typecast.ot.table;
 
 import java.io.DataInput;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  *
@@ -62,14 +60,20 @@ import java.util.List;
 public class CoverageFormat2 extends Coverage {
 
     private final int _rangeCount;
-    private final RangeRecord[] _rangeRecords;
+    private final int[] _starts;
+    private final int[] _ends;
+    private final int[] _startCoverageIndexes;
 
     /** Creates new CoverageFormat2 */
     CoverageFormat2(DataInput di) throws IOException {
         _rangeCount = di.readUnsignedShort();
-        _rangeRecords = new RangeRecord[_rangeCount];
+        _starts = new int[_rangeCount];
+        _ends = new int[_rangeCount];
+        _startCoverageIndexes = new int[_rangeCount];
         for (int i = 0; i < _rangeCount; i++) {
-            _rangeRecords[i] = new RangeRecord(di);
+            _starts[i] = di.readUnsignedShort();
+            _ends[i] = di.readUnsignedShort();
+            _startCoverageIndexes[i] = di.readUnsignedShort();
         }
     }
 
@@ -78,12 +82,22 @@ public class CoverageFormat2 extends Coverage {
         return 2;
     }
 
+    /**
+     * Ranges are sorted by glyph and don't overlap, so the range that may
+     * hold the glyph is the first that ends at or after it.
+     */
     @Override
-    public int findGlyph(int glyphId) {
-        for (int i = 0; i < _rangeCount; i++) {
-            int n = _rangeRecords[i].getCoverageIndex(glyphId);
-            if (n > -1) {
-                return n;
+    int search(int glyphId) {
+        int low = 0;
+        int high = _rangeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (_ends[mid] < glyphId) {
+                low = mid + 1;
+            } else if (_starts[mid] > glyphId) {
+                high = mid - 1;
+            } else {
+                return _startCoverageIndexes[mid] + glyphId - _starts[mid];
             }
         }
         return -1;
@@ -91,12 +105,17 @@ public class CoverageFormat2 extends Coverage {
 
     @Override
     public int[] getGlyphIds() {
-        List<Integer> ids = new ArrayList<>();
-        for (RangeRecord record : _rangeRecords) {
-            for (int i = record.getStart(); i < record.getEnd(); ++i) {
-                ids.add(i);
+        int count = 0;
+        for (int i = 0; i < _rangeCount; i++) {
+            count += _ends[i] - _starts[i] + 1;
+        }
+        int[] ids = new int[count];
+        int n = 0;
+        for (int i = 0; i < _rangeCount; i++) {
+            for (int glyphId = _starts[i]; glyphId <= _ends[i]; glyphId++) {
+                ids[n++] = glyphId;
             }
         }
-        return ids.stream().mapToInt(i->i).toArray();
+        return ids;
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Cursive Attachment Positioning, which joins the exit anchor of each glyph
+ * to the entry anchor of the glyph that follows it.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class CursivePos extends LookupSubtable {
+
+    private final Coverage _coverage;
+    private final Anchor[] _entryAnchors;
+    private final Anchor[] _exitAnchors;
+
+    private CursivePos(DataInputStream dis, int offset) throws IOException {
+        int coverageOffset = dis.readUnsignedShort();
+        int entryExitCount = dis.readUnsignedShort();
+        int[] anchorOffsets = new int[2 * entryExitCount];
+        for (int i = 0; i < anchorOffsets.length; i++) {
+            anchorOffsets[i] = dis.readUnsignedShort();
+        }
+        _entryAnchors = new Anchor[entryExitCount];
+        _exitAnchors = new Anchor[entryExitCount];
+        for (int i = 0; i < entryExitCount; i++) {
+            if (anchorOffsets[2 * i] != 0) {
+                _entryAnchors[i] = Anchor.read(dis, offset + anchorOffsets[2 * i]);
+            }
+            if (anchorOffsets[2 * i + 1] != 0) {
+                _exitAnchors[i] = Anchor.read(dis, offset + anchorOffsets[2 * i + 1]);
+            }
+        }
+        _coverage = SequenceContext.readCoverage(dis, offset + coverageOffset);
+    }
+
+    public static CursivePos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new CursivePos(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the glyph
+     * @return the glyph's entry anchor, or null if it has none
+     */
+    public Anchor getEntryAnchor(int coverageIndex) {
+        return _entryAnchors[coverageIndex];
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the glyph
+     * @return the glyph's exit anchor, or null if it has none
+     */
+    public Anchor getExitAnchor(int coverageIndex) {
+        return _exitAnchors[coverageIndex];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "CursivePosFormat1";
+    }
+}
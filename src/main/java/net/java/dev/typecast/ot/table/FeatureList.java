@@ -62,6 +62,7 @@ public class FeatureList {
     private int _featureCount;
     private FeatureRecord[] _featureRecords;
     private Feature[] _features;
+    private TagIndex _index;
 
     /** Creates new FeatureList */
     public FeatureList(DataInputStream dis, int offset) throws IOException {
@@ -82,6 +83,11 @@ public class FeatureList {
             dis.skipBytes(offset + _featureRecords[i].getOffset());
             _features[i] = new Feature(dis);
         }
+        int[] tags = new int[_featureCount];
+        for (int i = 0; i < _featureCount; i++) {
+            tags[i] = _featureRecords[i].getTag();
+        }
+        _index = new TagIndex(tags);
     }
 
     public int getFeatureCount() {
@@ -96,22 +102,44 @@ public class FeatureList {
         return _features[i];
     }
 
+    /**
+     * @param langSys the language system
+     * @param tag the feature tag, padded with spaces if it is shorter than
+     * four characters
+     * @return the language system's feature, or null if it doesn't have it
+     * @see TagIndex#valueOf(String)
+     */
     public Feature findFeature(LangSys langSys, String tag) {
-        if (tag.length() != 4) {
-            return null;
-        }
-        int tagVal = ((tag.charAt(0)<<24)
-            | (tag.charAt(1)<<16)
-            | (tag.charAt(2)<<8)
-            | tag.charAt(3));
-        for (int i = 0; i < _featureCount; i++) {
-            if (_featureRecords[i].getTag() == tagVal) {
-                if (langSys.isFeatureIndexed(i)) {
-                    return _features[i];
-                }
+        return findFeature(langSys, TagIndex.valueOf(tag));
+    }
+
+    /**
+     * @param langSys the language system
+     * @param tag the feature tag
+     * @return the first feature with the tag that the language system uses,
+     * or null if there is none
+     */
+    public Feature findFeature(LangSys langSys, int tag) {
+        int i = findFeatureIndex(langSys, tag);
+        return i >= 0 ? _features[i] : null;
+    }
+
+    /**
+     * @param langSys the language system
+     * @param tag the feature tag
+     * @return the index of the first feature with the tag that the language
+     * system uses, or -1 if there is none
+     */
+    public int findFeatureIndex(LangSys langSys, int tag) {
+        int found = -1;
+        for (int p = _index.first(tag);
+                p < _index.size() && _index.getTag(p) == tag; p++) {
+            int i = _index.getIndex(p);
+            if (langSys.isFeatureIndexed(i) && (found < 0 || i < found)) {
+                found = i;
             }
         }
-        return null;
+        return found;
     }
 
 }
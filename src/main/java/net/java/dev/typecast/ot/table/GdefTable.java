@@ -1,15 +1,220 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 
 package net.java.dev.typecast.ot.table;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
 
 /**
+ * Glyph Definition Table, which classifies glyphs as base glyphs, ligatures,
+ * marks and components, for the benefit of lookups that skip some of them.
+ * <p>
+ * As lookups ask about every glyph they might skip, the class definitions
+ * are compiled into a single array of the properties of each glyph, and the
+ * mark glyph sets into bitsets, so that each question is answered by
+ * indexing.</p>
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
-class GdefTable implements Table {
+public class GdefTable implements Table {
+
+    /**
+     * Glyph classes
+     */
+    public static final int BASE = 1;
+    public static final int LIGATURE = 2;
+    public static final int MARK = 3;
+    public static final int COMPONENT = 4;
+
+    private final int _version;
+    private final ClassDef _glyphClassDef;
+    private final ClassDef _markAttachClassDef;
+    private final Coverage[] _markGlyphSets;
+
+    // The mark attachment class and glyph class of each glyph, as
+    // (markAttachClass << 8 | glyphClass), indexed by glyph ID
+    private final char[] _glyphProperties;
+
+    // The glyphs of each mark glyph set, indexed by glyph ID
+    private final long[][] _markGlyphSetBits;
+
+    public GdefTable(DataInput di, int length) throws IOException {
+
+        // Load into a temporary buffer, and create another input stream
+        byte[] buf = new byte[length];
+        di.readFully(buf);
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(buf));
+
+        // GDEF Header
+        _version = dis.readInt();
+        int glyphClassDefOffset = dis.readUnsignedShort();
+        dis.readUnsignedShort(); // attachListOffset
+        dis.readUnsignedShort(); // ligCaretListOffset
+        int markAttachClassDefOffset = dis.readUnsignedShort();
+        int markGlyphSetsDefOffset =
+                _version >= 0x00010002 ? dis.readUnsignedShort() : 0;
+
+        _glyphClassDef = readClassDef(buf, glyphClassDefOffset);
+        _markAttachClassDef = readClassDef(buf, markAttachClassDefOffset);
+
+        // Mark Glyph Sets, each a coverage
+        if (markGlyphSetsDefOffset > 0) {
+            dis = getDataInputForOffset(buf, markGlyphSetsDefOffset);
+            dis.readUnsignedShort(); // format
+            int markGlyphSetCount = dis.readUnsignedShort();
+            int[] coverageOffsets = new int[markGlyphSetCount];
+            for (int i = 0; i < markGlyphSetCount; i++) {
+                coverageOffsets[i] = dis.readInt();
+            }
+            _markGlyphSets = new Coverage[markGlyphSetCount];
+            for (int i = 0; i < markGlyphSetCount; i++) {
+                _markGlyphSets[i] = Coverage.read(getDataInputForOffset(
+                        buf, markGlyphSetsDefOffset + coverageOffsets[i]));
+            }
+        } else {
+            _markGlyphSets = new Coverage[0];
+        }
+
+        _glyphProperties = compileProperties(_glyphClassDef, _markAttachClassDef);
+        _markGlyphSetBits = new long[_markGlyphSets.length][];
+        for (int i = 0; i < _markGlyphSets.length; i++) {
+            _markGlyphSetBits[i] = compileSet(_markGlyphSets[i]);
+        }
+    }
+
+    private static char[] compileProperties(
+            ClassDef glyphClassDef,
+            ClassDef markAttachClassDef) {
+        int lastGlyph = Math.max(
+                glyphClassDef != null ? glyphClassDef.getLastGlyph() : -1,
+                markAttachClassDef != null ? markAttachClassDef.getLastGlyph() : -1);
+        char[] properties = new char[lastGlyph + 1];
+        for (int glyphId = 0; glyphId <= lastGlyph; glyphId++) {
+            int glyphClass = glyphClassDef != null
+                    ? glyphClassDef.getGlyphClass(glyphId)
+                    : 0;
+            int markAttachClass = markAttachClassDef != null
+                    ? markAttachClassDef.getGlyphClass(glyphId)
+                    : 0;
+
+            // Classes that lookups can't refer to are dropped
+            if (glyphClass > COMPONENT) {
+                glyphClass = 0;
+            }
+            if (markAttachClass > 0xff) {
+                markAttachClass = 0;
+            }
+            properties[glyphId] = (char) (markAttachClass << 8 | glyphClass);
+        }
+        return properties;
+    }
+
+    private static long[] compileSet(Coverage coverage) {
+        if (coverage == null) {
+            return new long[0];
+        }
+        int[] glyphIds = coverage.getGlyphIds();
+        int lastGlyph = -1;
+        for (int glyphId : glyphIds) {
+            lastGlyph = Math.max(lastGlyph, glyphId);
+        }
+        long[] bits = new long[(lastGlyph + 64) >>> 6];
+        for (int glyphId : glyphIds) {
+            bits[glyphId >>> 6] |= 1L << glyphId;
+        }
+        return bits;
+    }
+
+    private static ClassDef readClassDef(byte[] buf, int offset) throws IOException {
+        return offset > 0
+                ? ClassDef.read(getDataInputForOffset(buf, offset))
+                : null;
+    }
+
+    private static DataInputStream getDataInputForOffset(byte[] buf, int offset) {
+        return new DataInputStream(new ByteArrayInputStream(
+                buf, offset, buf.length - offset));
+    }
+
+    public int getVersion() {
+        return _version;
+    }
+
+    /**
+     * @return the glyph class definition, or null if there isn't one
+     */
+    public ClassDef getGlyphClassDef() {
+        return _glyphClassDef;
+    }
+
+    /**
+     * @return the mark attachment class definition, or null if there isn't
+     * one
+     */
+    public ClassDef getMarkAttachClassDef() {
+        return _markAttachClassDef;
+    }
+
+    /**
+     * @param glyphId the glyph ID
+     * @return the glyph's class, one of BASE, LIGATURE, MARK or COMPONENT, or
+     * zero if it doesn't have one
+     */
+    public int getGlyphClass(int glyphId) {
+        return glyphId < _glyphProperties.length
+                ? _glyphProperties[glyphId] & 0xff
+                : 0;
+    }
+
+    /**
+     * @param glyphId the glyph ID
+     * @return the mark attachment class of the glyph, or zero if it doesn't
+     * have one
+     */
+    public int getMarkAttachClass(int glyphId) {
+        return glyphId < _glyphProperties.length
+                ? _glyphProperties[glyphId] >>> 8
+                : 0;
+    }
+
+    public int getMarkGlyphSetCount() {
+        return _markGlyphSets.length;
+    }
+
+    /**
+     * @param set the index of the mark glyph set
+     * @param glyphId the glyph ID
+     * @return true if the glyph is in the set
+     */
+    public boolean isInMarkGlyphSet(int set, int glyphId) {
+        if (set >= _markGlyphSetBits.length) {
+            return false;
+        }
+        long[] bits = _markGlyphSetBits[set];
+        int word = glyphId >>> 6;
+        return word < bits.length && (bits[word] & (1L << glyphId)) != 0;
+    }
 
-    protected GdefTable(DataInput di) throws IOException {
+    @Override
+    public String toString() {
+        return "GDEF";
     }
 
 }
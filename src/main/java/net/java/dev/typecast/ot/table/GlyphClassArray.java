@@ -0,0 +1,74 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+/**
+ * Glyph classes held in an array indexed by glyph, from the first glyph that
+ * has a class.  Classes are held in bytes when they all fit, as they mostly
+ * do, and otherwise in chars.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+final class GlyphClassArray {
+
+    private final int _firstGlyph;
+    private final byte[] _byteClasses;
+    private final char[] _charClasses;
+    private final int _length;
+
+    /**
+     * @param firstGlyph the glyph with the first class
+     * @param classes the classes of consecutive glyphs
+     */
+    GlyphClassArray(int firstGlyph, int[] classes) {
+        _firstGlyph = firstGlyph;
+        _length = classes.length;
+        int maxClass = 0;
+        for (int glyphClass : classes) {
+            maxClass = Math.max(maxClass, glyphClass);
+        }
+        if (maxClass <= 0xff) {
+            _byteClasses = new byte[_length];
+            _charClasses = null;
+            for (int i = 0; i < _length; i++) {
+                _byteClasses[i] = (byte) classes[i];
+            }
+        } else {
+            _byteClasses = null;
+            _charClasses = new char[_length];
+            for (int i = 0; i < _length; i++) {
+                _charClasses[i] = (char) classes[i];
+            }
+        }
+    }
+
+    /**
+     * @return the last glyph in the array, or -1 if it is empty
+     */
+    int getLastGlyph() {
+        return _length > 0 ? _firstGlyph + _length - 1 : -1;
+    }
+
+    int getGlyphClass(int glyphId) {
+        int i = glyphId - _firstGlyph;
+        if (i < 0 || i >= _length) {
+            return 0;
+        }
+        return _byteClasses != null ? _byteClasses[i] & 0xff : _charClasses[i];
+    }
+}
@@ -18,26 +18,133 @@
 
 package net.java.dev.typecast.ot.table;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
 
 /**
- * TODO: To be implemented
+ * Glyph Positioning Table
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
-class GposTable implements Table {
+public class GposTable implements Table, LookupSubtableFactory {
 
-    protected GposTable(DataInput di) throws IOException {
+    private final ScriptList _scriptList;
+    private final FeatureList _featureList;
+    private final LookupList _lookupList;
+
+    public GposTable(DataInput di, int length) throws IOException {
+
+        // Load into a temporary buffer, and create another input stream
+        byte[] buf = new byte[length];
+        di.readFully(buf);
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(buf));
 
         // GPOS Header
-        int version = di.readInt();
-        int scriptList = di.readInt();
-        int featureList = di.readInt();
-        int lookupList = di.readInt();
+        int version = dis.readInt();
+        int scriptListOffset = dis.readUnsignedShort();
+        int featureListOffset = dis.readUnsignedShort();
+        int lookupListOffset = dis.readUnsignedShort();
+
+        // Script List
+        _scriptList = new ScriptList(dis, scriptListOffset);
+
+        // Feature List
+        _featureList = new FeatureList(dis, featureListOffset);
+
+        // Lookup List
+        _lookupList = new LookupList(dis, lookupListOffset, this);
+    }
+
+    /**
+     * 1 - Single adjustment - Adjust position of a single glyph
+     * 2 - Pair adjustment - Adjust position of a pair of glyphs
+     * 3 - Cursive attachment - Attach cursive glyphs
+     * 4 - MarkToBase attachment - Attach a combining mark to a base glyph
+     * 5 - MarkToLigature attachment - Attach a combining mark to a ligature
+     * 6 - MarkToMark attachment - Attach a combining mark to another mark
+     * 7 - Context positioning - Position one or more glyphs in context
+     * 8 - Chained Context positioning - Position one or more glyphs in
+     *     chained context
+     * 9 - Extension positioning - Extension mechanism for other positionings
+     */
+    @Override
+    public LookupSubtable read(
+            int type,
+            DataInputStream dis,
+            int offset) throws IOException {
+        LookupSubtable s = null;
+        switch (type) {
+        case 1:
+            s = SinglePos.read(dis, offset);
+            break;
+        case 2:
+            s = PairPos.read(dis, offset);
+            break;
+        case 3:
+            s = CursivePos.read(dis, offset);
+            break;
+        case 4:
+            s = MarkBasePos.read(dis, offset);
+            break;
+        case 5:
+            s = MarkLigPos.read(dis, offset);
+            break;
+        case 6:
+            s = MarkMarkPos.read(dis, offset);
+            break;
+        case 7:
+            s = SequenceContext.read(dis, offset, false);
+            break;
+        case 8:
+            s = SequenceContext.read(dis, offset, true);
+            break;
+        case 9:
+            s = GsubTable.readExtension(this, dis, offset);
+            break;
+        }
+        return s;
     }
 
+    public ScriptList getScriptList() {
+        return _scriptList;
+    }
+
+    public FeatureList getFeatureList() {
+        return _featureList;
+    }
+
+    public LookupList getLookupList() {
+        return _lookupList;
+    }
+
+    @Override
     public String toString() {
         return "GPOS";
     }
 
+    public static String lookupTypeAsString(int type) {
+        switch (type) {
+        case 1:
+            return "Single";
+        case 2:
+            return "Pair";
+        case 3:
+            return "Cursive";
+        case 4:
+            return "MarkToBase";
+        case 5:
+            return "MarkToLigature";
+        case 6:
+            return "MarkToMark";
+        case 7:
+            return "Context";
+        case 8:
+            return "Chained Context";
+        case 9:
+            return "Extension";
+        }
+        return "Unknown";
+    }
+
 }
@@ -65,7 +65,7 @@ public class GsubTable implements Table, LookupSubtableFactory {
     private FeatureList _featureList;
     private LookupList _lookupList;
     
-    protected GsubTable(DataInput di, int length) throws IOException {
+    public GsubTable(DataInput di, int length) throws IOException {
 
         // Load into a temporary buffer, and create another input stream
         byte[] buf = new byte[length];
@@ -95,6 +95,9 @@ public class GsubTable implements Table, LookupSubtableFactory {
      * 4 - Ligature - Replace multiple glyphs with one glyph 
      * 5 - Context - Replace one or more glyphs in context 
      * 6 - Chaining - Context Replace one or more glyphs in chained context
+     * 7 - Extension - Extension mechanism for other substitutions
+     * 8 - Reverse chaining context single - Applied in reverse order,
+     *     replace single glyph in chaining context
      */
     public LookupSubtable read(
             int type,
@@ -106,24 +109,49 @@ public class GsubTable implements Table, LookupSubtableFactory {
             s = SingleSubst.read(dis, offset);
             break;
         case 2:
-//            s = MultipleSubst.read(dis, offset);
+            s = MultipleSubst.read(dis, offset);
             break;
         case 3:
-//            s = AlternateSubst.read(dis, offset);
+            s = AlternateSubst.read(dis, offset);
             break;
         case 4:
             s = LigatureSubst.read(dis, offset);
             break;
         case 5:
-//            s = ContextSubst.read(dis, offset);
+            s = SequenceContext.read(dis, offset, false);
             break;
         case 6:
-//            s = ChainingSubst.read(dis, offset);
+            s = SequenceContext.read(dis, offset, true);
+            break;
+        case 7:
+            s = readExtension(this, dis, offset);
+            break;
+        case 8:
+            s = ReverseChainSingleSubst.read(dis, offset);
             break;
         }
         return s;
     }
 
+    /**
+     * Reads the subtable wrapped by an Extension subtable, so that lookups of
+     * the extension type hold the subtables of the wrapped type.
+     */
+    static LookupSubtable readExtension(
+            LookupSubtableFactory factory,
+            DataInputStream dis,
+            int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format != 1) {
+            return null;
+        }
+        int extensionLookupType = dis.readUnsignedShort();
+        int extensionOffset = dis.readInt();
+        return factory.read(extensionLookupType, dis, offset + extensionOffset);
+    }
+
     public ScriptList getScriptList() {
         return _scriptList;
     }
@@ -154,6 +182,10 @@ public class GsubTable implements Table, LookupSubtableFactory {
             return "Context";
         case 6:
             return "Chaining";
+        case 7:
+            return "Extension";
+        case 8:
+            return "Reverse Chaining";
         }
         return "Unknown";
     }
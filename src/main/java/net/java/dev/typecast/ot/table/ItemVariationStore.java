@@ -0,0 +1,184 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * An Item Variation Store, which holds the variation regions of a variable
+ * font, and the deltas that apply to values within those regions.  Regions
+ * are evaluated against normalized design-space coordinates, where each axis
+ * runs from -1 to 1.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class ItemVariationStore {
+
+    private final int _axisCount;
+    private final int _regionCount;
+
+    // start, peak and end F2DOT14 values per axis, per region
+    private final short[] _regionCoords;
+    private final int[][] _regionIndexes;
+    private final int[][] _deltas;
+
+    /**
+     * @param buf the buffer holding the store
+     * @param offset the position of the store within the buffer
+     * @throws IOException
+     */
+    public ItemVariationStore(byte[] buf, int offset) throws IOException {
+        DataInput di = getDataInput(buf, offset);
+        di.readUnsignedShort(); // format
+        int regionListOffset = di.readInt();
+        int dataCount = di.readUnsignedShort();
+        int[] dataOffsets = new int[dataCount];
+        for (int i = 0; i < dataCount; ++i) {
+            dataOffsets[i] = di.readInt();
+        }
+
+        // Variation Region List
+        di = getDataInput(buf, offset + regionListOffset);
+        _axisCount = di.readUnsignedShort();
+        _regionCount = di.readUnsignedShort();
+        _regionCoords = new short[_regionCount * _axisCount * 3];
+        for (int i = 0; i < _regionCoords.length; ++i) {
+            _regionCoords[i] = di.readShort();
+        }
+
+        // Item Variation Data
+        _regionIndexes = new int[dataCount][];
+        _deltas = new int[dataCount][];
+        for (int i = 0; i < dataCount; ++i) {
+            di = getDataInput(buf, offset + dataOffsets[i]);
+            int itemCount = di.readUnsignedShort();
+            int wordDeltaCount = di.readUnsignedShort();
+            boolean longWords = (wordDeltaCount & 0x8000) != 0;
+            wordDeltaCount &= 0x7fff;
+            int regionIndexCount = di.readUnsignedShort();
+            _regionIndexes[i] = new int[regionIndexCount];
+            for (int j = 0; j < regionIndexCount; ++j) {
+                _regionIndexes[i][j] = di.readUnsignedShort();
+            }
+            _deltas[i] = new int[itemCount * regionIndexCount];
+            for (int j = 0; j < _deltas[i].length; ++j) {
+                boolean word = j % regionIndexCount < wordDeltaCount;
+                if (longWords) {
+                    _deltas[i][j] = word ? di.readInt() : di.readShort();
+                } else {
+                    _deltas[i][j] = word ? di.readShort() : di.readByte();
+                }
+            }
+        }
+    }
+
+    public int getAxisCount() {
+        return _axisCount;
+    }
+
+    public int getRegionCount() {
+        return _regionCount;
+    }
+
+    public int getItemVariationDataCount() {
+        return _regionIndexes.length;
+    }
+
+    /**
+     * @param outer the index of the Item Variation Data
+     * @return the number of regions the data refers to
+     */
+    public int getRegionIndexCount(int outer) {
+        return _regionIndexes[outer].length;
+    }
+
+    /**
+     * @param region the index of the region
+     * @param coords the normalized coordinates of the instance
+     * @return the scalar by which deltas for the region are multiplied
+     */
+    public double getRegionScalar(int region, float[] coords) {
+        double scalar = 1.0;
+        int base = region * _axisCount * 3;
+        for (int axis = 0; axis < _axisCount; ++axis) {
+            double start = _regionCoords[base + 3 * axis] / 16384.0;
+            double peak = _regionCoords[base + 3 * axis + 1] / 16384.0;
+            double end = _regionCoords[base + 3 * axis + 2] / 16384.0;
+            double coord = axis < coords.length ? coords[axis] : 0;
+
+            // Axes that are invalid, or that the region doesn't depend upon,
+            // have no effect
+            if (start > peak || peak > end
+                    || (start < 0 && end > 0)
+                    || peak == 0
+                    || coord == peak) {
+                continue;
+            }
+            if (coord <= start || coord >= end) {
+                return 0;
+            }
+            if (coord < peak) {
+                scalar *= (coord - start) / (peak - start);
+            } else {
+                scalar *= (end - coord) / (end - peak);
+            }
+        }
+        return scalar;
+    }
+
+    /**
+     * @param outer the index of the Item Variation Data
+     * @param coords the normalized coordinates of the instance
+     * @return the scalars of each of the regions the data refers to
+     */
+    public double[] getScalars(int outer, float[] coords) {
+        int[] regionIndexes = _regionIndexes[outer];
+        double[] scalars = new double[regionIndexes.length];
+        for (int i = 0; i < scalars.length; ++i) {
+            scalars[i] = getRegionScalar(regionIndexes[i], coords);
+        }
+        return scalars;
+    }
+
+    /**
+     * @param outer the index of the Item Variation Data
+     * @param inner the index of the delta set within the data
+     * @param coords the normalized coordinates of the instance
+     * @return the interpolated delta
+     */
+    public double getDelta(int outer, int inner, float[] coords) {
+        int[] regionIndexes = _regionIndexes[outer];
+        int base = inner * regionIndexes.length;
+        double delta = 0;
+        for (int i = 0; i < regionIndexes.length; ++i) {
+            int d = _deltas[outer][base + i];
+            if (d != 0) {
+                delta += d * getRegionScalar(regionIndexes[i], coords);
+            }
+        }
+        return delta;
+    }
+
+    private static DataInput getDataInput(byte[] buf, int offset) {
+        return new DataInputStream(new ByteArrayInputStream(
+                buf, offset, buf.length - offset));
+    }
+}
@@ -17,14 +17,46 @@ import java.io.IOException;
  */
 public abstract class KernSubtable {
 
+    // Coverage bits
+    public static final int HORIZONTAL = 0x01;
+    public static final int MINIMUM = 0x02;
+    public static final int CROSS_STREAM = 0x04;
+    public static final int OVERRIDE = 0x08;
+
+    private int coverage;
+
     /** Creates new KernSubtable */
     KernSubtable() {
     }
     
+    /**
+     * @return the coverage field, of which the low byte holds the
+     * {@code HORIZONTAL}, {@code MINIMUM}, {@code CROSS_STREAM} and
+     * {@code OVERRIDE} bits, and the high byte the format
+     */
+    public int getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * @return true if the subtable holds horizontal kerning values, to be
+     * added to the advance widths
+     */
+    public boolean isHorizontalKerning() {
+        return (coverage & (HORIZONTAL | MINIMUM | CROSS_STREAM)) == HORIZONTAL;
+    }
+
     public abstract int getKerningPairCount();
 
     public abstract KerningPair getKerningPair(int i);
 
+    /**
+     * @param left the glyph ID of the left glyph
+     * @param right the glyph ID of the right glyph
+     * @return the kerning value of the pair, or zero if it has none
+     */
+    public abstract int getKerning(int left, int right);
+
     public static KernSubtable read(DataInput di) throws IOException {
         KernSubtable table = null;
         int version = di.readUnsignedShort();
@@ -37,11 +69,17 @@ public abstract class KernSubtable {
             table = new KernSubtableFormat0(di);
             break;
         case 2:
-            table = new KernSubtableFormat2(di);
+            table = new KernSubtableFormat2(di, length);
             break;
         default:
+
+            // Skip formats we can't read, so the next subtable can be
+            di.skipBytes(length - 6);
             break;
         }
+        if (table != null) {
+            table.coverage = coverage;
+        }
         return table;
     }
 
@@ -10,9 +10,12 @@ package net.java.dev.typecast.ot.table;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
- *
+ * A kerning subtable of ordered pairs.  Each pair is packed into an int key,
+ * with its sign bit flipped so that the keys sort as the pairs do, and
+ * looked up by binary search.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class KernSubtableFormat0 extends KernSubtable {
@@ -21,7 +24,8 @@ public class KernSubtableFormat0 extends KernSubtable {
     private int searchRange;
     private int entrySelector;
     private int rangeShift;
-    private KerningPair[] kerningPairs;
+    private int[] keys;
+    private short[] values;
 
     /** Creates new KernSubtableFormat0 */
     KernSubtableFormat0(DataInput di) throws IOException {
@@ -29,9 +33,37 @@ public class KernSubtableFormat0 extends KernSubtable {
         searchRange = di.readUnsignedShort();
         entrySelector = di.readUnsignedShort();
         rangeShift = di.readUnsignedShort();
-        kerningPairs = new KerningPair[nPairs];
+        keys = new int[nPairs];
+        values = new short[nPairs];
+        boolean sorted = true;
         for (int i = 0; i < nPairs; i++) {
-            kerningPairs[i] = new KerningPair(di);
+            keys[i] = key(di.readUnsignedShort(), di.readUnsignedShort());
+            values[i] = di.readShort();
+            if (i > 0 && keys[i] < keys[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            sort();
+        }
+    }
+
+    private static int key(int left, int right) {
+        return ((left << 16) | right) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * The pairs should be in order, but some fonts don't keep them so.
+     */
+    private void sort() {
+        long[] packed = new long[nPairs];
+        for (int i = 0; i < nPairs; i++) {
+            packed[i] = ((long) keys[i] << 32) | (values[i] & 0xffff);
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < nPairs; i++) {
+            keys[i] = (int) (packed[i] >> 32);
+            values[i] = (short) packed[i];
         }
     }
 
@@ -40,7 +72,14 @@ public class KernSubtableFormat0 extends KernSubtable {
     }
 
     public KerningPair getKerningPair(int i) {
-        return kerningPairs[i];
+        int pair = keys[i] ^ Integer.MIN_VALUE;
+        return new KerningPair(pair >>> 16, pair & 0xffff, values[i]);
+    }
+
+    @Override
+    public int getKerning(int left, int right) {
+        int index = Arrays.binarySearch(keys, key(left, right));
+        return index >= 0 ? values[index] : 0;
     }
 
 }
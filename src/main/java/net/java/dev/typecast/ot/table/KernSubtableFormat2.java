@@ -10,32 +10,134 @@ package net.java.dev.typecast.ot.table;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
- *
+ * A kerning subtable of classes of glyphs.  The class tables and the array
+ * of kerning values are expanded when the subtable is read, so that each
+ * glyph maps directly to a row or column of a compact matrix of values.
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
 public class KernSubtableFormat2 extends KernSubtable {
 
+    // The size of the subtable header, which the offsets include
+    private static final int HEADER_SIZE = 6;
+
     private int rowWidth;
     private int leftClassTable;
     private int rightClassTable;
     private int array;
 
+    private int leftFirstGlyph;
+    private char[] leftRows;
+    private int rightFirstGlyph;
+    private char[] rightColumns;
+    private int columnCount;
+    private short[] values;
+
+    // The pairs with non-zero values, as (left << 16 | right), made when
+    // first asked for
+    private int[] pairs;
+
     /** Creates new KernSubtableFormat2 */
-    KernSubtableFormat2(DataInput di) throws IOException {
-        rowWidth = di.readUnsignedShort();
-        leftClassTable = di.readUnsignedShort();
-        rightClassTable = di.readUnsignedShort();
-        array = di.readUnsignedShort();
+    KernSubtableFormat2(DataInput di, int length) throws IOException {
+        byte[] data = new byte[Math.max(length - HEADER_SIZE, 8)];
+        di.readFully(data, 0, length - HEADER_SIZE);
+        rowWidth = readUnsignedShort(data, 0);
+        leftClassTable = readUnsignedShort(data, 2);
+        rightClassTable = readUnsignedShort(data, 4);
+        array = readUnsignedShort(data, 6);
+        columnCount = Math.max(rowWidth / 2, 1);
+
+        // Left classes are offsets of rows from the start of the subtable,
+        // and right classes are offsets of values within a row
+        int offset = leftClassTable - HEADER_SIZE;
+        leftFirstGlyph = readUnsignedShort(data, offset);
+        leftRows = new char[readUnsignedShort(data, offset + 2)];
+        int rowCount = 1;
+        for (int i = 0; i < leftRows.length; i++) {
+            int row = rowWidth > 0
+                    ? (readUnsignedShort(data, offset + 4 + 2 * i) - array) / rowWidth
+                    : 0;
+            leftRows[i] = (char) Math.max(row, 0);
+            rowCount = Math.max(rowCount, leftRows[i] + 1);
+        }
+        offset = rightClassTable - HEADER_SIZE;
+        rightFirstGlyph = readUnsignedShort(data, offset);
+        rightColumns = new char[readUnsignedShort(data, offset + 2)];
+        for (int i = 0; i < rightColumns.length; i++) {
+            rightColumns[i] = (char) Math.min(
+                    readUnsignedShort(data, offset + 4 + 2 * i) / 2,
+                    columnCount - 1);
+        }
+
+        // Rows that run past the end of the subtable are left as zeros
+        values = new short[rowCount * columnCount];
+        offset = array - HEADER_SIZE;
+        int count = Math.min(values.length, (data.length - offset) / 2);
+        for (int i = 0; i < count; i++) {
+            values[i] = (short) readUnsignedShort(data, offset + 2 * i);
+        }
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    public int getRowWidth() {
+        return rowWidth;
+    }
+
+    public int getLeftClassTable() {
+        return leftClassTable;
+    }
+
+    public int getRightClassTable() {
+        return rightClassTable;
+    }
+
+    public int getArray() {
+        return array;
+    }
+
+    @Override
+    public int getKerning(int left, int right) {
+        int l = left - leftFirstGlyph;
+        int r = right - rightFirstGlyph;
+        if (l < 0 || l >= leftRows.length || r < 0 || r >= rightColumns.length) {
+            return 0;
+        }
+        return values[leftRows[l] * columnCount + rightColumns[r]];
     }
 
     public int getKerningPairCount() {
-        return 0;
+        return getPairs().length;
     }
 
     public KerningPair getKerningPair(int i) {
-        return null;
+        int pair = getPairs()[i];
+        return new KerningPair(
+                pair >>> 16, pair & 0xffff, (short) getKerning(pair >>> 16, pair & 0xffff));
+    }
+
+    private synchronized int[] getPairs() {
+        if (pairs == null) {
+            int count = 0;
+            int[] found = new int[16];
+            for (int l = 0; l < leftRows.length; l++) {
+                for (int r = 0; r < rightColumns.length; r++) {
+                    if (values[leftRows[l] * columnCount + rightColumns[r]] != 0) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, 2 * count);
+                        }
+                        found[count++] =
+                                ((leftFirstGlyph + l) << 16) | (rightFirstGlyph + r);
+                    }
+                }
+            }
+            pairs = Arrays.copyOf(found, count);
+        }
+        return pairs;
     }
 
 }
@@ -39,4 +39,28 @@ public class KernTable implements Table {
         return tables[i];
     }
 
+    /**
+     * The values of the horizontal subtables are summed, except where a
+     * subtable with the override bit set has a value for the pair, which
+     * replaces the sum so far.
+     * @param left the glyph ID of the left glyph
+     * @param right the glyph ID of the right glyph
+     * @return the horizontal kerning of the pair, in design units
+     */
+    public int getKerning(int left, int right) {
+        int kerning = 0;
+        for (KernSubtable table : tables) {
+            if (table == null || !table.isHorizontalKerning()) {
+                continue;
+            }
+            int value = table.getKerning(left, right);
+            if ((table.getCoverage() & KernSubtable.OVERRIDE) != 0 && value != 0) {
+                kerning = value;
+            } else {
+                kerning += value;
+            }
+        }
+        return kerning;
+    }
+
 }
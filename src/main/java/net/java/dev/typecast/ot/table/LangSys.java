@@ -52,6 +52,7 @@ package net.java.dev.typecast.ot.table;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  *
@@ -63,6 +64,9 @@ public class LangSys {
     private int _reqFeatureIndex;
     private int _featureCount;
     private int[] _featureIndex;
+
+    // The feature indexes in ascending order, for searching
+    private int[] _sortedFeatureIndex;
     
     /** Creates new LangSys */
     LangSys(DataInput di) throws IOException {
@@ -73,6 +77,8 @@ public class LangSys {
         for (int i = 0; i < _featureCount; i++) {
             _featureIndex[i] = di.readUnsignedShort();
         }
+        _sortedFeatureIndex = _featureIndex.clone();
+        Arrays.sort(_sortedFeatureIndex);
     }
     
     public int getLookupOrder() {
@@ -92,12 +98,7 @@ public class LangSys {
     }
 
     boolean isFeatureIndexed(int n) {
-        for (int i = 0; i < _featureCount; i++) {
-            if (_featureIndex[i] == n) {
-                return true;
-            }
-        }
-        return false;
+        return Arrays.binarySearch(_sortedFeatureIndex, n) >= 0;
     }
 
 }
@@ -57,7 +57,7 @@ import java.io.IOException;
  *
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
-class Ligature {
+public class Ligature {
 
     private int _ligGlyph;
     private int _compCount;
@@ -81,4 +81,20 @@ class Ligature {
         return (i == 0) ? _ligGlyph : _components[i-1];
     }
 
+    /**
+     * @return the glyph that replaces the components
+     */
+    public int getLigatureGlyph() {
+        return _ligGlyph;
+    }
+
+    /**
+     * @param i the index of the component, where zero is the second
+     * component, the first being matched by the coverage
+     * @return the component glyph
+     */
+    public int getComponent(int i) {
+        return _components[i];
+    }
+
 }
@@ -57,7 +57,7 @@ import java.io.IOException;
  *
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
-class LigatureSet {
+public class LigatureSet {
 
     private int _ligatureCount;
     private int[] _ligatureOffsets;
@@ -80,5 +80,11 @@ class LigatureSet {
         }
     }
 
-}
+    public int getLigatureCount() {
+        return _ligatureCount;
+    }
 
+    public Ligature getLigature(int i) {
+        return _ligatures[i];
+    }
+}
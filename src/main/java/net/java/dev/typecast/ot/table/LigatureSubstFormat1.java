@@ -64,6 +64,7 @@ public class LigatureSubstFormat1 extends LigatureSubst {
     private int[] _ligatureSetOffsets;
     private Coverage _coverage;
     private LigatureSet[] _ligatureSets;
+    private LigatureTrie _trie;
 
     /** Creates new LigatureSubstFormat1 */
     LigatureSubstFormat1(
@@ -82,12 +83,32 @@ public class LigatureSubstFormat1 extends LigatureSubst {
         for (int i = 0; i < _ligSetCount; i++) {
             _ligatureSets[i] = new LigatureSet(dis, offset + _ligatureSetOffsets[i]);
         }
+        _trie = new LigatureTrie(_ligatureSets);
     }
 
     public int getFormat() {
         return 1;
     }
 
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the first component glyph
+     * @return the ligatures starting with the glyph, in order of preference
+     */
+    public LigatureSet getLigatureSet(int coverageIndex) {
+        return _ligatureSets[coverageIndex];
+    }
+
+    /**
+     * @return the ligatures compiled into a trie
+     */
+    public LigatureTrie getTrie() {
+        return _trie;
+    }
+
     public String getTypeAsString() {
         return "LigatureSubstFormat1";
     }    
@@ -0,0 +1,191 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ligatures of a ligature substitution compiled into a trie, with a root
+ * for each first glyph, so that every ligature starting at a position is
+ * found in one walk along the following glyphs.
+ * <p>
+ * Each node is numbered, with the children of a node held as a run of
+ * sorted glyphs in one array, and their nodes in another.  A node that ends
+ * a ligature holds the ligature glyph, along with the ligature's index in
+ * its set, since the first ligature that matches in a set is the one that
+ * applies, rather than the longest.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class LigatureTrie {
+
+    private final int[] _childStarts;
+    private final int[] _childGlyphs;
+    private final int[] _childNodes;
+    private final int[] _ligatureGlyphs;
+    private final int[] _ligatureIndexes;
+    private final int _maxDepth;
+    private final int _rootCount;
+
+    /** A node during construction */
+    private static class Node {
+        final List<Integer> childGlyphs = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+        int ligatureGlyph = -1;
+        int ligatureIndex = -1;
+        int number;
+    }
+
+    /**
+     * @param ligatureSets the ligature sets, in coverage index order
+     */
+    LigatureTrie(LigatureSet[] ligatureSets) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < ligatureSets.length; i++) {
+            nodes.add(new Node());
+        }
+        int maxDepth = 0;
+        for (int i = 0; i < ligatureSets.length; i++) {
+            LigatureSet ligatureSet = ligatureSets[i];
+            for (int j = 0; j < ligatureSet.getLigatureCount(); j++) {
+                Ligature ligature = ligatureSet.getLigature(j);
+                Node node = nodes.get(i);
+                int componentCount = ligature.getGlyphCount() - 1;
+                for (int k = 0; k < componentCount; k++) {
+                    int glyphId = ligature.getComponent(k);
+                    int c = insertionPoint(node.childGlyphs, glyphId);
+                    if (c < node.childGlyphs.size()
+                            && node.childGlyphs.get(c) == glyphId) {
+                        node = node.children.get(c);
+                    } else {
+                        Node child = new Node();
+                        node.childGlyphs.add(c, glyphId);
+                        node.children.add(c, child);
+                        nodes.add(child);
+                        node = child;
+                    }
+                }
+                maxDepth = Math.max(maxDepth, componentCount);
+
+                // An earlier ligature of the same components takes precedence
+                if (node.ligatureIndex < 0) {
+                    node.ligatureGlyph = ligature.getLigatureGlyph();
+                    node.ligatureIndex = j;
+                }
+            }
+        }
+        _maxDepth = maxDepth;
+        _rootCount = ligatureSets.length;
+
+        int nodeCount = nodes.size();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.get(i).number = i;
+        }
+        _childStarts = new int[nodeCount + 1];
+        _ligatureGlyphs = new int[nodeCount];
+        _ligatureIndexes = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes.get(i);
+            _childStarts[i + 1] = _childStarts[i] + node.children.size();
+            _ligatureGlyphs[i] = node.ligatureGlyph;
+            _ligatureIndexes[i] = node.ligatureIndex;
+        }
+        _childGlyphs = new int[_childStarts[nodeCount]];
+        _childNodes = new int[_childStarts[nodeCount]];
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes.get(i);
+            for (int c = 0; c < node.children.size(); c++) {
+                _childGlyphs[_childStarts[i] + c] = node.childGlyphs.get(c);
+                _childNodes[_childStarts[i] + c] = node.children.get(c).number;
+            }
+        }
+    }
+
+    private static int insertionPoint(List<Integer> glyphs, int glyphId) {
+        int low = 0;
+        int high = glyphs.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (glyphs.get(mid) < glyphId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the first glyph
+     * @return the root node of the ligatures starting with the glyph, or -1
+     * if the subtable has no ligature set for the coverage index
+     */
+    public int getRoot(int coverageIndex) {
+        return coverageIndex >= 0 && coverageIndex < _rootCount
+                ? coverageIndex
+                : -1;
+    }
+
+    /**
+     * @param node the node
+     * @param glyphId the next component glyph
+     * @return the child node for the component, or -1 if there is none
+     */
+    public int findChild(int node, int glyphId) {
+        int low = _childStarts[node];
+        int high = _childStarts[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int childGlyph = _childGlyphs[mid];
+            if (childGlyph < glyphId) {
+                low = mid + 1;
+            } else if (childGlyph > glyphId) {
+                high = mid - 1;
+            } else {
+                return _childNodes[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param node the node
+     * @return the ligature glyph for the components leading to the node, or
+     * -1 if they don't form a ligature
+     */
+    public int getLigatureGlyph(int node) {
+        return _ligatureGlyphs[node];
+    }
+
+    /**
+     * @param node the node
+     * @return the index within its set of the ligature ending at the node,
+     * where the lowest index of those that match takes precedence
+     */
+    public int getLigatureIndex(int node) {
+        return _ligatureIndexes[node];
+    }
+
+    /**
+     * @return the greatest number of components following the first glyph
+     */
+    public int getMaxDepth() {
+        return _maxDepth;
+    }
+}
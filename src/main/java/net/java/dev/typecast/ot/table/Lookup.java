@@ -60,15 +60,18 @@ import java.io.IOException;
 public class Lookup {
 
     // LookupFlag bit enumeration
+    public static final int RIGHT_TO_LEFT = 0x0001;
     public static final int IGNORE_BASE_GLYPHS = 0x0002;
     public static final int IGNORE_BASE_LIGATURES = 0x0004;
     public static final int IGNORE_BASE_MARKS = 0x0008;
+    public static final int USE_MARK_FILTERING_SET = 0x0010;
     public static final int MARK_ATTACHMENT_TYPE = 0xFF00;
 
     private int _type;
     private int _flag;
     private int _subTableCount;
     private int[] _subTableOffsets;
+    private int _markFilteringSet;
     private LookupSubtable[] _subTables;
 
     /** Creates new Lookup */
@@ -88,6 +91,9 @@ public class Lookup {
         for (int i = 0; i < _subTableCount; i++) {
             _subTableOffsets[i] = dis.readUnsignedShort();
         }
+        if ((_flag & USE_MARK_FILTERING_SET) != 0) {
+            _markFilteringSet = dis.readUnsignedShort();
+        }
         for (int i = 0; i < _subTableCount; i++) {
             _subTables[i] = factory.read(_type, dis, offset + _subTableOffsets[i]);
         }
@@ -97,6 +103,18 @@ public class Lookup {
         return _type;
     }
 
+    public int getFlag() {
+        return _flag;
+    }
+
+    /**
+     * @return the index of the GDEF mark glyph set to which marks are
+     * filtered, which is only meaningful when USE_MARK_FILTERING_SET is set
+     */
+    public int getMarkFilteringSet() {
+        return _markFilteringSet;
+    }
+
     public int getSubtableCount() {
         return _subTableCount;
     }
@@ -0,0 +1,64 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * The class and anchor of each mark covered by a mark attachment subtable.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class MarkArray {
+
+    private final int[] _markClasses;
+    private final Anchor[] _anchors;
+
+    MarkArray(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int markCount = dis.readUnsignedShort();
+        _markClasses = new int[markCount];
+        int[] anchorOffsets = new int[markCount];
+        for (int i = 0; i < markCount; i++) {
+            _markClasses[i] = dis.readUnsignedShort();
+            anchorOffsets[i] = dis.readUnsignedShort();
+        }
+        _anchors = new Anchor[markCount];
+        for (int i = 0; i < markCount; i++) {
+            _anchors[i] = Anchor.read(dis, offset + anchorOffsets[i]);
+        }
+    }
+
+    /**
+     * @param coverageIndex the mark's coverage index
+     * @return the mark's class
+     */
+    public int getMarkClass(int coverageIndex) {
+        return _markClasses[coverageIndex];
+    }
+
+    /**
+     * @param coverageIndex the mark's coverage index
+     * @return the mark's anchor
+     */
+    public Anchor getAnchor(int coverageIndex) {
+        return _anchors[coverageIndex];
+    }
+}
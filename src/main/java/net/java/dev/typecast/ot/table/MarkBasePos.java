@@ -0,0 +1,88 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Mark-to-Base Attachment Positioning, which attaches the anchor of each
+ * mark to the anchor of its class on the preceding base glyph.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class MarkBasePos extends LookupSubtable {
+
+    private final Coverage _markCoverage;
+    private final Coverage _baseCoverage;
+    private final int _markClassCount;
+    private final MarkArray _markArray;
+    private final Anchor[][] _baseAnchors;
+
+    MarkBasePos(DataInputStream dis, int offset) throws IOException {
+        int markCoverageOffset = dis.readUnsignedShort();
+        int baseCoverageOffset = dis.readUnsignedShort();
+        _markClassCount = dis.readUnsignedShort();
+        int markArrayOffset = dis.readUnsignedShort();
+        int baseArrayOffset = dis.readUnsignedShort();
+        _markCoverage = SequenceContext.readCoverage(dis, offset + markCoverageOffset);
+        _baseCoverage = SequenceContext.readCoverage(dis, offset + baseCoverageOffset);
+        _markArray = new MarkArray(dis, offset + markArrayOffset);
+        _baseAnchors = Anchor.readArray(dis, offset + baseArrayOffset, _markClassCount);
+    }
+
+    public static MarkBasePos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new MarkBasePos(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getMarkCoverage() {
+        return _markCoverage;
+    }
+
+    public Coverage getBaseCoverage() {
+        return _baseCoverage;
+    }
+
+    public int getMarkClassCount() {
+        return _markClassCount;
+    }
+
+    public MarkArray getMarkArray() {
+        return _markArray;
+    }
+
+    /**
+     * @param coverageIndex the base glyph's coverage index
+     * @param markClass the class of the mark being attached
+     * @return the anchor, or null if the base has none for the class
+     */
+    public Anchor getBaseAnchor(int coverageIndex, int markClass) {
+        return _baseAnchors[coverageIndex][markClass];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "MarkBasePosFormat1";
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Mark-to-Ligature Attachment Positioning, which attaches the anchor of each
+ * mark to the anchor of its class on one of the components of the preceding
+ * ligature.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class MarkLigPos extends LookupSubtable {
+
+    private final Coverage _markCoverage;
+    private final Coverage _ligatureCoverage;
+    private final int _markClassCount;
+    private final MarkArray _markArray;
+    private final Anchor[][][] _ligatureAnchors;
+
+    private MarkLigPos(DataInputStream dis, int offset) throws IOException {
+        int markCoverageOffset = dis.readUnsignedShort();
+        int ligatureCoverageOffset = dis.readUnsignedShort();
+        _markClassCount = dis.readUnsignedShort();
+        int markArrayOffset = dis.readUnsignedShort();
+        int ligatureArrayOffset = dis.readUnsignedShort();
+        int ligatureArray = offset + ligatureArrayOffset;
+        dis.reset();
+        dis.skipBytes(ligatureArray);
+        int[] ligatureAttachOffsets = SequenceContext.readOffsets(dis);
+        _ligatureAnchors = new Anchor[ligatureAttachOffsets.length][][];
+        for (int i = 0; i < ligatureAttachOffsets.length; i++) {
+            _ligatureAnchors[i] = Anchor.readArray(
+                    dis, ligatureArray + ligatureAttachOffsets[i], _markClassCount);
+        }
+        _markCoverage = SequenceContext.readCoverage(dis, offset + markCoverageOffset);
+        _ligatureCoverage = SequenceContext.readCoverage(
+                dis, offset + ligatureCoverageOffset);
+        _markArray = new MarkArray(dis, offset + markArrayOffset);
+    }
+
+    public static MarkLigPos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new MarkLigPos(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getMarkCoverage() {
+        return _markCoverage;
+    }
+
+    public Coverage getLigatureCoverage() {
+        return _ligatureCoverage;
+    }
+
+    public int getMarkClassCount() {
+        return _markClassCount;
+    }
+
+    public MarkArray getMarkArray() {
+        return _markArray;
+    }
+
+    /**
+     * @param coverageIndex the ligature's coverage index
+     * @return the number of components in the ligature
+     */
+    public int getComponentCount(int coverageIndex) {
+        return _ligatureAnchors[coverageIndex].length;
+    }
+
+    /**
+     * @param coverageIndex the ligature's coverage index
+     * @param component the index of the component
+     * @param markClass the class of the mark being attached
+     * @return the anchor, or null if the component has none for the class
+     */
+    public Anchor getLigatureAnchor(int coverageIndex, int component, int markClass) {
+        return _ligatureAnchors[coverageIndex][component][markClass];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "MarkLigPosFormat1";
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Mark-to-Mark Attachment Positioning, which has the same structure as
+ * mark-to-base attachment, with the preceding mark taking the place of the
+ * base glyph.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class MarkMarkPos extends MarkBasePos {
+
+    private MarkMarkPos(DataInputStream dis, int offset) throws IOException {
+        super(dis, offset);
+    }
+
+    public static MarkMarkPos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new MarkMarkPos(dis, offset);
+        }
+        return null;
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "MarkMarkPosFormat1";
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Multiple Substitution, which replaces one glyph with a sequence of glyphs.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class MultipleSubst extends LookupSubtable {
+
+    private final Coverage _coverage;
+    private final int[][] _sequences;
+
+    MultipleSubst(DataInputStream dis, int offset) throws IOException {
+        int coverageOffset = dis.readUnsignedShort();
+        int sequenceCount = dis.readUnsignedShort();
+        int[] sequenceOffsets = new int[sequenceCount];
+        for (int i = 0; i < sequenceCount; i++) {
+            sequenceOffsets[i] = dis.readUnsignedShort();
+        }
+        _sequences = new int[sequenceCount][];
+        for (int i = 0; i < sequenceCount; i++) {
+            dis.reset();
+            dis.skipBytes(offset + sequenceOffsets[i]);
+            _sequences[i] = readGlyphArray(dis);
+        }
+        dis.reset();
+        dis.skipBytes(offset + coverageOffset);
+        _coverage = Coverage.read(dis);
+    }
+
+    public static MultipleSubst read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new MultipleSubst(dis, offset);
+        }
+        return null;
+    }
+
+    static int[] readGlyphArray(DataInputStream dis) throws IOException {
+        int glyphCount = dis.readUnsignedShort();
+        int[] glyphs = new int[glyphCount];
+        for (int i = 0; i < glyphCount; i++) {
+            glyphs[i] = dis.readUnsignedShort();
+        }
+        return glyphs;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the glyph to be replaced
+     * @return the replacement glyphs, which must not be modified
+     */
+    public int[] getSequence(int coverageIndex) {
+        return _sequences[coverageIndex];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "MultipleSubstFormat1";
+    }
+}
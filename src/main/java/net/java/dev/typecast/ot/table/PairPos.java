@@ -0,0 +1,91 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Pair Adjustment Positioning, which adjusts pairs of glyphs, such as for
+ * kerning.  The value records of each pair are unpacked into eight values:
+ * those of the first glyph followed by those of the second.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public abstract class PairPos extends LookupSubtable {
+
+    /** The number of values held for each pair */
+    public static final int PAIR_SIZE = 2 * ValueRecord.SIZE;
+
+    private final Coverage _coverage;
+    private final int _valueFormat1;
+    private final int _valueFormat2;
+
+    PairPos(Coverage coverage, int valueFormat1, int valueFormat2) {
+        _coverage = coverage;
+        _valueFormat1 = valueFormat1;
+        _valueFormat2 = valueFormat2;
+    }
+
+    public abstract int getFormat();
+
+    /**
+     * @return the unpacked value records, which must not be modified
+     */
+    public abstract short[] getValues();
+
+    /**
+     * @param coverageIndex the coverage index of the first glyph
+     * @param firstGlyphId the first glyph
+     * @param secondGlyphId the second glyph
+     * @return the index within the values of the pair's value records, or -1
+     * if the subtable doesn't adjust the pair
+     */
+    public abstract int findValues(
+            int coverageIndex,
+            int firstGlyphId,
+            int secondGlyphId);
+
+    public static PairPos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new PairPosFormat1(dis, offset);
+        } else if (format == 2) {
+            return new PairPosFormat2(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    public int getValueFormat1() {
+        return _valueFormat1;
+    }
+
+    /**
+     * @return the format of the second glyph's value records, where zero
+     * means the second glyph is left alone, and may begin the next pair
+     */
+    public int getValueFormat2() {
+        return _valueFormat2;
+    }
+}
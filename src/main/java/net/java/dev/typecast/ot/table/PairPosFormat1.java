@@ -0,0 +1,110 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Pair adjustments of individual glyphs.  The pair sets are flattened into
+ * one array of second glyphs, with the pairs of each first glyph found by
+ * binary search within their run.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class PairPosFormat1 extends PairPos {
+
+    private final int[] _pairSetStarts;
+    private final int[] _secondGlyphs;
+    private final short[] _values;
+
+    PairPosFormat1(DataInputStream dis, int offset) throws IOException {
+        this(dis, offset, dis.readUnsignedShort(), dis.readUnsignedShort(),
+                dis.readUnsignedShort());
+    }
+
+    private PairPosFormat1(
+            DataInputStream dis,
+            int offset,
+            int coverageOffset,
+            int valueFormat1,
+            int valueFormat2) throws IOException {
+        super(SequenceContext.readCoverage(dis, offset + coverageOffset),
+                valueFormat1, valueFormat2);
+        dis.reset();
+        dis.skipBytes(offset + 8);
+        int[] pairSetOffsets = SequenceContext.readOffsets(dis);
+        int pairSetCount = pairSetOffsets.length;
+        int[] pairValueCounts = new int[pairSetCount];
+        _pairSetStarts = new int[pairSetCount + 1];
+        for (int i = 0; i < pairSetCount; i++) {
+            dis.reset();
+            dis.skipBytes(offset + pairSetOffsets[i]);
+            pairValueCounts[i] = dis.readUnsignedShort();
+            _pairSetStarts[i + 1] = _pairSetStarts[i] + pairValueCounts[i];
+        }
+        _secondGlyphs = new int[_pairSetStarts[pairSetCount]];
+        _values = new short[_secondGlyphs.length * PAIR_SIZE];
+        for (int i = 0; i < pairSetCount; i++) {
+            dis.reset();
+            dis.skipBytes(offset + pairSetOffsets[i] + 2);
+            for (int j = _pairSetStarts[i]; j < _pairSetStarts[i + 1]; j++) {
+                _secondGlyphs[j] = dis.readUnsignedShort();
+                ValueRecord.read(dis, valueFormat1, _values, j * PAIR_SIZE);
+                ValueRecord.read(dis, valueFormat2, _values,
+                        j * PAIR_SIZE + ValueRecord.SIZE);
+            }
+        }
+    }
+
+    @Override
+    public int getFormat() {
+        return 1;
+    }
+
+    @Override
+    public short[] getValues() {
+        return _values;
+    }
+
+    @Override
+    public int findValues(int coverageIndex, int firstGlyphId, int secondGlyphId) {
+        if (coverageIndex < 0 || coverageIndex >= _pairSetStarts.length - 1) {
+            return -1;
+        }
+        int low = _pairSetStarts[coverageIndex];
+        int high = _pairSetStarts[coverageIndex + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int glyphId = _secondGlyphs[mid];
+            if (glyphId < secondGlyphId) {
+                low = mid + 1;
+            } else if (glyphId > secondGlyphId) {
+                high = mid - 1;
+            } else {
+                return mid * PAIR_SIZE;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "PairPosFormat1";
+    }
+}
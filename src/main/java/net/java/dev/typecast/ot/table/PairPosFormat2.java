@@ -0,0 +1,113 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Pair adjustments of classes of glyphs, held as a class 1 by class 2
+ * matrix.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class PairPosFormat2 extends PairPos {
+
+    private final ClassDef _classDef1;
+    private final ClassDef _classDef2;
+    private final int _class1Count;
+    private final int _class2Count;
+    private final short[] _values;
+
+    PairPosFormat2(DataInputStream dis, int offset) throws IOException {
+        this(dis, offset, dis.readUnsignedShort(), dis.readUnsignedShort(),
+                dis.readUnsignedShort());
+    }
+
+    private PairPosFormat2(
+            DataInputStream dis,
+            int offset,
+            int coverageOffset,
+            int valueFormat1,
+            int valueFormat2) throws IOException {
+        super(SequenceContext.readCoverage(dis, offset + coverageOffset),
+                valueFormat1, valueFormat2);
+        dis.reset();
+        dis.skipBytes(offset + 8);
+        int classDef1Offset = dis.readUnsignedShort();
+        int classDef2Offset = dis.readUnsignedShort();
+        _class1Count = dis.readUnsignedShort();
+        _class2Count = dis.readUnsignedShort();
+        _values = new short[_class1Count * _class2Count * PAIR_SIZE];
+        for (int i = 0; i < _class1Count * _class2Count; i++) {
+            ValueRecord.read(dis, valueFormat1, _values, i * PAIR_SIZE);
+            ValueRecord.read(dis, valueFormat2, _values,
+                    i * PAIR_SIZE + ValueRecord.SIZE);
+        }
+        dis.reset();
+        dis.skipBytes(offset + classDef1Offset);
+        _classDef1 = ClassDef.read(dis);
+        dis.reset();
+        dis.skipBytes(offset + classDef2Offset);
+        _classDef2 = ClassDef.read(dis);
+    }
+
+    @Override
+    public int getFormat() {
+        return 2;
+    }
+
+    public ClassDef getClassDef1() {
+        return _classDef1;
+    }
+
+    public ClassDef getClassDef2() {
+        return _classDef2;
+    }
+
+    public int getClass1Count() {
+        return _class1Count;
+    }
+
+    public int getClass2Count() {
+        return _class2Count;
+    }
+
+    @Override
+    public short[] getValues() {
+        return _values;
+    }
+
+    @Override
+    public int findValues(int coverageIndex, int firstGlyphId, int secondGlyphId) {
+        if (coverageIndex < 0) {
+            return -1;
+        }
+        int class1 = _classDef1 != null ? _classDef1.getGlyphClass(firstGlyphId) : 0;
+        int class2 = _classDef2 != null ? _classDef2.getGlyphClass(secondGlyphId) : 0;
+        if (class1 >= _class1Count || class2 >= _class2Count) {
+            return -1;
+        }
+        return (class1 * _class2Count + class2) * PAIR_SIZE;
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "PairPosFormat2";
+    }
+}
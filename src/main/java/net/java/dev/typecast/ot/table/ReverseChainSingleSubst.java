@@ -0,0 +1,81 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Reverse Chaining Contextual Single Substitution, which is applied from the
+ * end of the glyph run to the start, replacing single glyphs that are in a
+ * context of backtrack and lookahead coverages.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class ReverseChainSingleSubst extends LookupSubtable {
+
+    private final Coverage _coverage;
+    private final Coverage[] _backtrackCoverages;
+    private final Coverage[] _lookaheadCoverages;
+    private final int[] _substitutes;
+
+    ReverseChainSingleSubst(DataInputStream dis, int offset) throws IOException {
+        int coverageOffset = dis.readUnsignedShort();
+        int[] backtrackOffsets = SequenceContext.readOffsets(dis);
+        int[] lookaheadOffsets = SequenceContext.readOffsets(dis);
+        _substitutes = MultipleSubst.readGlyphArray(dis);
+        _coverage = SequenceContext.readCoverage(dis, offset + coverageOffset);
+        _backtrackCoverages = SequenceContext.readCoverages(dis, offset, backtrackOffsets);
+        _lookaheadCoverages = SequenceContext.readCoverages(dis, offset, lookaheadOffsets);
+    }
+
+    public static ReverseChainSingleSubst read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1) {
+            return new ReverseChainSingleSubst(dis, offset);
+        }
+        return null;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @return the backtrack coverages, in reverse logical order, starting with
+     * the glyph preceding the input glyph
+     */
+    public Coverage[] getBacktrackCoverages() {
+        return _backtrackCoverages;
+    }
+
+    public Coverage[] getLookaheadCoverages() {
+        return _lookaheadCoverages;
+    }
+
+    public int getSubstitute(int coverageIndex) {
+        return _substitutes[coverageIndex];
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "ReverseChainSingleSubstFormat1";
+    }
+}
@@ -64,6 +64,7 @@ public class Script {
     private LangSysRecord[] _langSysRecords;
     private LangSys _defaultLangSys;
     private LangSys[] _langSys;
+    private TagIndex _index;
     
     /** Creates new ScriptTable */
     Script(DataInputStream dis, int offset) throws IOException {
@@ -96,6 +97,11 @@ public class Script {
             dis.skipBytes(offset + _defaultLangSysOffset);
             _defaultLangSys = new LangSys(dis);
         }
+        int[] tags = new int[_langSysCount];
+        for (int i = 0; i < _langSysCount; i++) {
+            tags[i] = _langSysRecords[i].getTag();
+        }
+        _index = new TagIndex(tags);
     }
 
     public int getLangSysCount() {
@@ -113,5 +119,14 @@ public class Script {
     public LangSys getLangSys(int i) {
         return _langSys[i];
     }
+
+    /**
+     * @param tag the language system tag
+     * @return the language system, or null if the script doesn't have it
+     */
+    public LangSys findLangSys(int tag) {
+        int i = _index.find(tag);
+        return i >= 0 ? _langSys[i] : null;
+    }
 }
 
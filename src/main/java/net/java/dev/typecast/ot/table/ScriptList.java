@@ -62,6 +62,7 @@ public class ScriptList {
     private int _scriptCount;
     private ScriptRecord[] _scriptRecords;
     private Script[] _scripts;
+    private TagIndex _index;
     
     /** Creates new ScriptList */
     ScriptList(DataInputStream dis, int offset) throws IOException {
@@ -80,6 +81,11 @@ public class ScriptList {
         for (int i = 0; i < _scriptCount; i++) {
             _scripts[i] = new Script(dis, offset + _scriptRecords[i].getOffset());
         }
+        int[] tags = new int[_scriptCount];
+        for (int i = 0; i < _scriptCount; i++) {
+            tags[i] = _scriptRecords[i].getTag();
+        }
+        _index = new TagIndex(tags);
     }
 
     public int getScriptCount() {
@@ -94,20 +100,34 @@ public class ScriptList {
         return _scripts[i];
     }
     
+    /**
+     * @param tag the script tag, padded with spaces if it is shorter than
+     * four characters
+     * @return the script, or null if the list doesn't have it
+     * @see TagIndex#valueOf(String)
+     */
     public Script findScript(String tag) {
-        if (tag.length() != 4) {
-            return null;
-        }
-        int tagVal = ((tag.charAt(0)<<24)
-            | (tag.charAt(1)<<16)
-            | (tag.charAt(2)<<8)
-            | tag.charAt(3));
-        for (int i = 0; i < _scriptCount; i++) {
-            if (_scriptRecords[i].getTag() == tagVal) {
-                return _scripts[i];
-            }
-        }
-        return null;
+        return findScript(TagIndex.valueOf(tag));
+    }
+
+    /**
+     * @param tag the script tag
+     * @return the script, or null if the list doesn't have it
+     */
+    public Script findScript(int tag) {
+        int i = _index.find(tag);
+        return i >= 0 ? _scripts[i] : null;
+    }
+
+    /**
+     * @param scriptTag the script tag
+     * @param languageTag the language system tag
+     * @return the script's language system, or null if the list doesn't
+     * have the script, or the script doesn't have the language system
+     */
+    public LangSys findLangSys(int scriptTag, int languageTag) {
+        Script script = findScript(scriptTag);
+        return script != null ? script.findLangSys(languageTag) : null;
     }
 
 }
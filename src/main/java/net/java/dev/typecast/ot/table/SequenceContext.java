@@ -0,0 +1,326 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * A Sequence Context or Chained Sequence Context subtable, which GSUB
+ * (lookup types 5 and 6) and GPOS (lookup types 7 and 8) share.  It matches
+ * a sequence of input glyphs, and for chained contexts the glyphs behind and
+ * ahead of them, by glyph ID (format 1), by class (format 2) or by coverage
+ * (format 3), and then applies other lookups at positions within the input.
+ * <p>
+ * Sequence lookup records are held as pairs of sequence index and lookup
+ * list index.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class SequenceContext extends LookupSubtable {
+
+    /**
+     * A rule of a format 1 or 2 context, where the values are glyph IDs or
+     * classes respectively.  The input excludes its first glyph, which is
+     * the one matched by the coverage, and the backtrack is in reverse
+     * logical order.
+     */
+    public static class Rule {
+
+        private final int[] _backtrack;
+        private final int[] _input;
+        private final int[] _lookahead;
+        private final int[] _lookupRecords;
+
+        Rule(DataInputStream dis, boolean chained) throws IOException {
+            if (chained) {
+                _backtrack = MultipleSubst.readGlyphArray(dis);
+                _input = readInputSequence(dis, dis.readUnsignedShort());
+                _lookahead = MultipleSubst.readGlyphArray(dis);
+                _lookupRecords = readLookupRecords(dis, dis.readUnsignedShort());
+            } else {
+                int glyphCount = dis.readUnsignedShort();
+                int seqLookupCount = dis.readUnsignedShort();
+                _backtrack = new int[0];
+                _input = readInputSequence(dis, glyphCount);
+                _lookahead = new int[0];
+                _lookupRecords = readLookupRecords(dis, seqLookupCount);
+            }
+        }
+
+        public int[] getBacktrack() {
+            return _backtrack;
+        }
+
+        public int[] getInput() {
+            return _input;
+        }
+
+        public int[] getLookahead() {
+            return _lookahead;
+        }
+
+        public int[] getLookupRecords() {
+            return _lookupRecords;
+        }
+    }
+
+    private final boolean _chained;
+    private final int _format;
+
+    // Formats 1 and 2
+    private final Coverage _coverage;
+    private final Rule[][] _ruleSets;
+
+    // Format 2
+    private final ClassDef _backtrackClassDef;
+    private final ClassDef _inputClassDef;
+    private final ClassDef _lookaheadClassDef;
+
+    // Format 3
+    private final Coverage[] _backtrackCoverages;
+    private final Coverage[] _inputCoverages;
+    private final Coverage[] _lookaheadCoverages;
+    private final int[] _lookupRecords;
+
+    private final int _maxInputLength;
+
+    private SequenceContext(
+            DataInputStream dis,
+            int offset,
+            int format,
+            boolean chained) throws IOException {
+        _chained = chained;
+        _format = format;
+        if (format == 1 || format == 2) {
+            int coverageOffset = dis.readUnsignedShort();
+            int backtrackClassDefOffset = 0;
+            int inputClassDefOffset = 0;
+            int lookaheadClassDefOffset = 0;
+            if (format == 2) {
+                if (chained) {
+                    backtrackClassDefOffset = dis.readUnsignedShort();
+                }
+                inputClassDefOffset = dis.readUnsignedShort();
+                if (chained) {
+                    lookaheadClassDefOffset = dis.readUnsignedShort();
+                }
+            }
+            int[] ruleSetOffsets = readOffsets(dis);
+            int maxInputLength = 0;
+            _ruleSets = new Rule[ruleSetOffsets.length][];
+            for (int i = 0; i < ruleSetOffsets.length; i++) {
+                if (ruleSetOffsets[i] == 0) {
+                    continue;
+                }
+                int ruleSetOffset = offset + ruleSetOffsets[i];
+                dis.reset();
+                dis.skipBytes(ruleSetOffset);
+                int[] ruleOffsets = readOffsets(dis);
+                _ruleSets[i] = new Rule[ruleOffsets.length];
+                for (int j = 0; j < ruleOffsets.length; j++) {
+                    dis.reset();
+                    dis.skipBytes(ruleSetOffset + ruleOffsets[j]);
+                    _ruleSets[i][j] = new Rule(dis, chained);
+                    maxInputLength = Math.max(
+                            maxInputLength, _ruleSets[i][j].getInput().length + 1);
+                }
+            }
+            _coverage = readCoverage(dis, offset + coverageOffset);
+            _backtrackClassDef = readClassDef(dis, offset, backtrackClassDefOffset);
+            _inputClassDef = readClassDef(dis, offset, inputClassDefOffset);
+            _lookaheadClassDef = readClassDef(dis, offset, lookaheadClassDefOffset);
+            _backtrackCoverages = null;
+            _inputCoverages = null;
+            _lookaheadCoverages = null;
+            _lookupRecords = null;
+            _maxInputLength = maxInputLength;
+        } else {
+            int[] backtrackOffsets;
+            int[] inputOffsets;
+            int[] lookaheadOffsets;
+            if (chained) {
+                backtrackOffsets = readOffsets(dis);
+                inputOffsets = readOffsets(dis);
+                lookaheadOffsets = readOffsets(dis);
+                _lookupRecords = readLookupRecords(dis, dis.readUnsignedShort());
+            } else {
+                int glyphCount = dis.readUnsignedShort();
+                int seqLookupCount = dis.readUnsignedShort();
+                backtrackOffsets = new int[0];
+                inputOffsets = new int[glyphCount];
+                for (int i = 0; i < glyphCount; i++) {
+                    inputOffsets[i] = dis.readUnsignedShort();
+                }
+                lookaheadOffsets = new int[0];
+                _lookupRecords = readLookupRecords(dis, seqLookupCount);
+            }
+            _backtrackCoverages = readCoverages(dis, offset, backtrackOffsets);
+            _inputCoverages = readCoverages(dis, offset, inputOffsets);
+            _lookaheadCoverages = readCoverages(dis, offset, lookaheadOffsets);
+            _coverage = _inputCoverages.length > 0 ? _inputCoverages[0] : null;
+            _ruleSets = null;
+            _backtrackClassDef = null;
+            _inputClassDef = null;
+            _lookaheadClassDef = null;
+            _maxInputLength = _inputCoverages.length;
+        }
+    }
+
+    /**
+     * @param dis the stream holding the table
+     * @param offset the offset of the subtable
+     * @param chained true for a Chained Sequence Context
+     * @return the subtable, or null if it has an unknown format
+     * @throws IOException
+     */
+    public static SequenceContext read(
+            DataInputStream dis,
+            int offset,
+            boolean chained) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (1 <= format && format <= 3) {
+            return new SequenceContext(dis, offset, format, chained);
+        }
+        return null;
+    }
+
+    static int[] readOffsets(DataInputStream dis) throws IOException {
+        return MultipleSubst.readGlyphArray(dis);
+    }
+
+    static Coverage readCoverage(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        return Coverage.read(dis);
+    }
+
+    static Coverage[] readCoverages(
+            DataInputStream dis,
+            int offset,
+            int[] coverageOffsets) throws IOException {
+        Coverage[] coverages = new Coverage[coverageOffsets.length];
+        for (int i = 0; i < coverageOffsets.length; i++) {
+            coverages[i] = readCoverage(dis, offset + coverageOffsets[i]);
+        }
+        return coverages;
+    }
+
+    private static ClassDef readClassDef(
+            DataInputStream dis,
+            int offset,
+            int classDefOffset) throws IOException {
+        if (classDefOffset == 0) {
+            return null;
+        }
+        dis.reset();
+        dis.skipBytes(offset + classDefOffset);
+        return ClassDef.read(dis);
+    }
+
+    private static int[] readInputSequence(
+            DataInputStream dis,
+            int glyphCount) throws IOException {
+        int[] input = new int[Math.max(glyphCount - 1, 0)];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = dis.readUnsignedShort();
+        }
+        return input;
+    }
+
+    private static int[] readLookupRecords(
+            DataInputStream dis,
+            int seqLookupCount) throws IOException {
+        int[] records = new int[2 * seqLookupCount];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = dis.readUnsignedShort();
+        }
+        return records;
+    }
+
+    public boolean isChained() {
+        return _chained;
+    }
+
+    public int getFormat() {
+        return _format;
+    }
+
+    /**
+     * @return the coverage of the first input glyph
+     */
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @return the number of glyphs in the longest input sequence, including
+     * the first
+     */
+    public int getMaxInputLength() {
+        return _maxInputLength;
+    }
+
+    /**
+     * @param i the coverage index of the first input glyph (format 1), or
+     * its input class (format 2)
+     * @return the rules to try in order, or null if there are none
+     */
+    public Rule[] getRuleSet(int i) {
+        return i < _ruleSets.length ? _ruleSets[i] : null;
+    }
+
+    public ClassDef getBacktrackClassDef() {
+        return _backtrackClassDef;
+    }
+
+    public ClassDef getInputClassDef() {
+        return _inputClassDef;
+    }
+
+    public ClassDef getLookaheadClassDef() {
+        return _lookaheadClassDef;
+    }
+
+    public Coverage[] getBacktrackCoverages() {
+        return _backtrackCoverages;
+    }
+
+    public Coverage[] getInputCoverages() {
+        return _inputCoverages;
+    }
+
+    public Coverage[] getLookaheadCoverages() {
+        return _lookaheadCoverages;
+    }
+
+    /**
+     * @return the format 3 sequence lookup records
+     */
+    public int[] getLookupRecords() {
+        return _lookupRecords;
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return (_chained ? "ChainedSequenceContextFormat" : "SequenceContextFormat")
+                + _format;
+    }
+}
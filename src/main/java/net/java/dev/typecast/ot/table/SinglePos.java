@@ -0,0 +1,86 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Single Adjustment Positioning, which adjusts the placement or advance of
+ * single glyphs, either all by the same value (format 1) or each by its own
+ * (format 2).
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class SinglePos extends LookupSubtable {
+
+    private final int _format;
+    private final Coverage _coverage;
+    private final short[] _values;
+
+    private SinglePos(DataInputStream dis, int offset, int format) throws IOException {
+        _format = format;
+        int coverageOffset = dis.readUnsignedShort();
+        int valueFormat = dis.readUnsignedShort();
+        int valueCount = format == 1 ? 1 : dis.readUnsignedShort();
+        _values = new short[valueCount * ValueRecord.SIZE];
+        for (int i = 0; i < valueCount; i++) {
+            ValueRecord.read(dis, valueFormat, _values, i * ValueRecord.SIZE);
+        }
+        _coverage = SequenceContext.readCoverage(dis, offset + coverageOffset);
+    }
+
+    public static SinglePos read(DataInputStream dis, int offset) throws IOException {
+        dis.reset();
+        dis.skipBytes(offset);
+        int format = dis.readUnsignedShort();
+        if (format == 1 || format == 2) {
+            return new SinglePos(dis, offset, format);
+        }
+        return null;
+    }
+
+    public int getFormat() {
+        return _format;
+    }
+
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
+    /**
+     * @return the unpacked value records, which must not be modified
+     * @see ValueRecord
+     */
+    public short[] getValues() {
+        return _values;
+    }
+
+    /**
+     * @param coverageIndex the coverage index of the glyph
+     * @return the index within the values of the glyph's value record
+     */
+    public int getValueIndex(int coverageIndex) {
+        return _format == 1 ? 0 : coverageIndex * ValueRecord.SIZE;
+    }
+
+    @Override
+    public String getTypeAsString() {
+        return "SinglePosFormat" + _format;
+    }
+}
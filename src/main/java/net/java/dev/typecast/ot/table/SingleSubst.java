@@ -62,6 +62,8 @@ public abstract class SingleSubst extends LookupSubtable {
     public abstract int getFormat();
 
     public abstract int substitute(int glyphId);
+
+    public abstract Coverage getCoverage();
     
     public static SingleSubst read(DataInputStream dis, int offset) throws IOException {
         SingleSubst s = null;
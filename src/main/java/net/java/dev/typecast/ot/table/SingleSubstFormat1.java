@@ -84,6 +84,11 @@ public class SingleSubstFormat1 extends SingleSubst {
         return glyphId;
     }
     
+    @Override
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
     public String getTypeAsString() {
         return "SingleSubstFormat1";
     }
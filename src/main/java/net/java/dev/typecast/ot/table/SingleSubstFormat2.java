@@ -91,6 +91,11 @@ public class SingleSubstFormat2 extends SingleSubst {
         return glyphId;
     }
 
+    @Override
+    public Coverage getCoverage() {
+        return _coverage;
+    }
+
     @Override
     public String getTypeAsString() {
         return "SingleSubstFormat2";
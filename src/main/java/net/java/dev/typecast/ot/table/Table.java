@@ -25,6 +25,7 @@ public interface Table {
     // Table constants
     int BASE = 0x42415345; // Baseline data [OpenType]
     int CFF  = 0x43464620; // PostScript font program (compact font format) [PostScript]
+    int CFF2 = 0x43464632; // PostScript font program (compact font format version 2) [OpenType]
     int COLR = 0x434f4c52; // Color Table
     int CPAL = 0x4350414c; // Color Palette Table
     int DSIG = 0x44534947; // Digital signature
@@ -41,6 +42,7 @@ public interface Table {
     int OS_2 = 0x4f532f32; // OS/2 and Windows specific metrics [r]
     int PCLT = 0x50434c54; // PCL5
     int VDMX = 0x56444d58; // Vertical Device Metrics table
+    int VORG = 0x564f5247; // Vertical Origin [PostScript]
     int cmap = 0x636d6170; // character to glyph mapping [r]
     int cvt  = 0x63767420; // Control Value Table
     int fpgm = 0x6670676d; // font program
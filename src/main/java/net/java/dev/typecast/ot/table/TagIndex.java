@@ -0,0 +1,103 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.util.Arrays;
+
+/**
+ * The records of a list, such as a script or feature list, sorted by tag so
+ * that they may be found by binary search.  Lists should already be in tag
+ * order, but aren't relied upon to be, and tags may be repeated.
+ * <p>
+ * {@link #valueOf(String)} is the one conversion of tag strings to ints
+ * used by the table and layout classes.</p>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public final class TagIndex {
+
+    // Each entry is (tag << 32 | record index), with tags compared unsigned
+    private final long[] _entries;
+
+    TagIndex(int[] tags) {
+        _entries = new long[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            _entries[i] = ((long) tags[i] & 0xffffffffL) << 32 | i;
+        }
+        Arrays.sort(_entries);
+    }
+
+    /**
+     * @param tag the tag
+     * @return the position of the first entry with the tag, or of where it
+     * would be, from which entries may be iterated while they match
+     */
+    int first(int tag) {
+        long key = ((long) tag & 0xffffffffL) << 32;
+        int low = 0;
+        int high = _entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (_entries[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int size() {
+        return _entries.length;
+    }
+
+    int getTag(int position) {
+        return (int) (_entries[position] >>> 32);
+    }
+
+    int getIndex(int position) {
+        return (int) _entries[position];
+    }
+
+    /**
+     * @param tag the tag
+     * @return the index of the first record with the tag, or -1 if there is
+     * none
+     */
+    int find(int tag) {
+        int position = first(tag);
+        return position < _entries.length && getTag(position) == tag
+                ? getIndex(position)
+                : -1;
+    }
+
+    /**
+     * Tags shorter than four characters are padded with trailing spaces, as
+     * they are in the font, so "DFL" is the tag "DFL ".  Characters after
+     * the fourth are ignored.
+     * @param tag a tag of up to four characters
+     * @return the tag as an int
+     */
+    public static int valueOf(String tag) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (i < tag.length() ? tag.charAt(i) & 0xff : ' ');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * Reads GPOS value records, which are unpacked into runs of four values in
+ * a short array: x placement, y placement, x advance and y advance, with any
+ * values the record's format omits left as zero.  Device and variation
+ * tables are skipped, as they only apply to particular sizes and instances.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public final class ValueRecord {
+
+    // ValueFormat bit enumeration
+    public static final int X_PLACEMENT = 0x0001;
+    public static final int Y_PLACEMENT = 0x0002;
+    public static final int X_ADVANCE = 0x0004;
+    public static final int Y_ADVANCE = 0x0008;
+    public static final int X_PLACEMENT_DEVICE = 0x0010;
+    public static final int Y_PLACEMENT_DEVICE = 0x0020;
+    public static final int X_ADVANCE_DEVICE = 0x0040;
+    public static final int Y_ADVANCE_DEVICE = 0x0080;
+
+    /** The number of values each record is unpacked into */
+    public static final int SIZE = 4;
+
+    private ValueRecord() {
+    }
+
+    /**
+     * @param di the stream positioned at the record
+     * @param valueFormat the fields present in the record
+     * @param values the array to unpack the record into
+     * @param index the index within values of the record's x placement
+     * @throws IOException
+     */
+    static void read(
+            DataInput di,
+            int valueFormat,
+            short[] values,
+            int index) throws IOException {
+        for (int bit = 0; bit < 8; bit++) {
+            if ((valueFormat & (1 << bit)) != 0) {
+                if (bit < SIZE) {
+                    values[index + bit] = di.readShort();
+                } else {
+                    di.readUnsignedShort();
+                }
+            }
+        }
+    }
+}
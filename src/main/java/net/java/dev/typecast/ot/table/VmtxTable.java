@@ -25,12 +25,12 @@ import java.io.IOException;
  * Vertical Metrics Table
  * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
  */
-class VmtxTable implements Table {
+public class VmtxTable implements Table {
 
     private int[] _vMetrics;
     private short[] _topSideBearing;
 
-    protected VmtxTable(
+    public VmtxTable(
             DataInput di,
             VheaTable vhea,
             MaxpTable maxp) throws IOException {
@@ -42,32 +42,35 @@ class VmtxTable implements Table {
                     | di.readUnsignedByte()<<8
                     | di.readUnsignedByte();
         }
-        int tsbCount = maxp.getNumGlyphs() - vhea.getNumberOfLongVerMetrics();
+        int tsbCount = Math.max(
+                maxp.getNumGlyphs() - vhea.getNumberOfLongVerMetrics(), 0);
         _topSideBearing = new short[tsbCount];
         for (int i = 0; i < tsbCount; ++i) {
             _topSideBearing[i] = di.readShort();
         }
     }
 
-    private int getAdvanceHeight(int i) {
-        if (_vMetrics == null) {
+    public int getAdvanceHeight(int i) {
+        if (_vMetrics.length == 0) {
             return 0;
         }
         if (i < _vMetrics.length) {
-            return _vMetrics[i] >> 16;
+            return _vMetrics[i] >>> 16;
         } else {
-            return _vMetrics[_vMetrics.length - 1] >> 16;
+            return _vMetrics[_vMetrics.length - 1] >>> 16;
         }
     }
 
-    private short getTopSideBearing(int i) {
-        if (_vMetrics == null) {
+    public short getTopSideBearing(int i) {
+        if (_vMetrics.length == 0) {
             return 0;
         }
         if (i < _vMetrics.length) {
             return (short)(_vMetrics[i] & 0xffff);
-        } else {
+        } else if (i - _vMetrics.length < _topSideBearing.length) {
             return _topSideBearing[i - _vMetrics.length];
+        } else {
+            return 0;
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Vertical Origin Table, which gives the y coordinate of the vertical origin
+ * of the glyphs of a CFF font.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+public class VorgTable implements Table {
+
+    private final int _majorVersion;
+    private final int _minorVersion;
+    private final short _defaultVertOriginY;
+    private final int[] _glyphIndexes;
+    private final short[] _vertOriginYs;
+
+    public VorgTable(DataInput di) throws IOException {
+        _majorVersion = di.readUnsignedShort();
+        _minorVersion = di.readUnsignedShort();
+        _defaultVertOriginY = di.readShort();
+        int count = di.readUnsignedShort();
+        _glyphIndexes = new int[count];
+        _vertOriginYs = new short[count];
+        for (int i = 0; i < count; i++) {
+            _glyphIndexes[i] = di.readUnsignedShort();
+            _vertOriginYs[i] = di.readShort();
+        }
+    }
+
+    public int getMajorVersion() {
+        return _majorVersion;
+    }
+
+    public int getMinorVersion() {
+        return _minorVersion;
+    }
+
+    public short getDefaultVertOriginY() {
+        return _defaultVertOriginY;
+    }
+
+    /**
+     * @param glyphId the glyph ID
+     * @return the y coordinate of the glyph's vertical origin
+     */
+    public short getVertOriginY(int glyphId) {
+        int index = Arrays.binarySearch(_glyphIndexes, glyphId);
+        return index >= 0 ? _vertOriginYs[index] : _defaultVertOriginY;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("'VORG' Table - Vertical Origin\n------------------------------\n");
+        sb.append("  defaultVertOriginY: ").append(_defaultVertOriginY)
+            .append("\n  numVertOriginYMetrics: ").append(_glyphIndexes.length)
+            .append("\n");
+        for (int i = 0; i < _glyphIndexes.length; i++) {
+            sb.append("        ").append(_glyphIndexes[i])
+                .append(": ").append(_vertOriginYs[i])
+                .append("\n");
+        }
+        return sb.toString();
+    }
+}
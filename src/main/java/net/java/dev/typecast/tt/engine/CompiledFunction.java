@@ -0,0 +1,67 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.tt.engine;
+
+/**
+ * A function definition that has been translated by the
+ * {@link FunctionCompiler} into a flat, pre-decoded code array.  Each
+ * instruction occupies one slot for its opcode, followed by any inline
+ * operands:
+ * <ul>
+ * <li>Push instructions are all encoded as NPUSHB, followed by the value
+ * count and the already sign-extended values.</li>
+ * <li>IF and ELSE are followed by the code index to continue from when the
+ * branch is not taken.  EIF is not emitted at all.</li>
+ * <li>JMPR, JROT and JROF are followed by the instruction pointer of the
+ * jump within the original program, so that the relative offset can be
+ * resolved at run time.</li>
+ * </ul>
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+class CompiledFunction {
+
+    private final int[] _code;
+    private final int _start;
+    private final int[] _codeIndex;
+
+    CompiledFunction(int[] code, int start, int[] codeIndex) {
+        _code = code;
+        _start = start;
+        _codeIndex = codeIndex;
+    }
+
+    int[] getCode() {
+        return _code;
+    }
+
+    /**
+     * Maps an instruction pointer within the original program to the
+     * corresponding index in the compiled code.
+     * @param ip An instruction pointer within the original program
+     * @return The code index, or -1 if the instruction pointer doesn't lie on
+     * an instruction boundary within this function
+     */
+    int getCodeIndex(int ip) {
+        int i = ip - _start;
+        if (i < 0 || i >= _codeIndex.length) {
+            return -1;
+        }
+        return _codeIndex[i];
+    }
+}
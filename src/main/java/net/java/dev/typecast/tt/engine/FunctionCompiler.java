@@ -0,0 +1,145 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.tt.engine;
+
+import java.util.Arrays;
+import net.java.dev.typecast.ot.Mnemonic;
+
+/**
+ * Translates the body of a function definition (FDEF) into a
+ * {@link CompiledFunction} ahead of time, so that the Interpreter doesn't
+ * have to decode push data, search for matching ELSE/EIF instructions or
+ * walk its opcode ladder every time the function is called.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+class FunctionCompiler {
+
+    private static final boolean[] supported = new boolean[256];
+
+    static {
+        for (int i = Mnemonic.SVTCA; i <= Mnemonic.MIAP + 1; i++) {
+            supported[i] = true;
+        }
+        for (int i = Mnemonic.NPUSHB; i <= Mnemonic.INSTCTRL; i++) {
+            supported[i] = true;
+        }
+        for (int i = Mnemonic.PUSHB; i <= 0xff; i++) {
+            supported[i] = true;
+        }
+
+        // Undefined opcodes, and those that define other functions or
+        // instructions, are left for the Interpreter to deal with
+        supported[0x28] = false;
+        supported[0x7b] = false;
+        supported[0x83] = false;
+        supported[0x84] = false;
+        supported[Mnemonic.FDEF] = false;
+        supported[Mnemonic.IDEF] = false;
+    }
+
+    private FunctionCompiler() {
+    }
+
+    /**
+     * @param parser The parser holding the program that defines the function
+     * @param ip The instruction pointer of the first instruction of the
+     * function body (the one following the FDEF)
+     * @return The compiled function, or null if the function uses a construct
+     * that can't be compiled, in which case it should be interpreted instead
+     */
+    static CompiledFunction compile(Parser parser, int ip) {
+        int start = ip;
+        int end = (ip & 0xffff0000) | parser.getISLength(ip >> 16);
+        int[] code = new int[64];
+        int count = 0;
+        int[] codeIndex = new int[end - start];
+        Arrays.fill(codeIndex, -1);
+
+        // Pending IF and ELSE operands that are awaiting a branch target
+        int[] pending = new int[16];
+        int depth = 0;
+
+        while (ip < end) {
+            short opcode = parser.getOpcode(ip);
+            if (!supported[opcode]) {
+                return null;
+            }
+            codeIndex[ip - start] = count;
+            int[] pushData = null;
+            if (isPush(opcode)) {
+                pushData = parser.getPushData(ip);
+            }
+            int size = 2 + (pushData != null ? pushData.length : 0);
+            if (count + size > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, count + size));
+            }
+            if (pushData != null) {
+                code[count++] = Mnemonic.NPUSHB;
+                code[count++] = pushData.length;
+                for (int value : pushData) {
+                    code[count++] = value;
+                }
+            } else if (opcode == Mnemonic.IF) {
+                code[count++] = opcode;
+                if (depth == pending.length) {
+                    pending = Arrays.copyOf(pending, depth * 2);
+                }
+                pending[depth++] = count++;
+            } else if (opcode == Mnemonic.ELSE) {
+                if (depth == 0) {
+                    return null;
+                }
+                code[count++] = opcode;
+                code[pending[depth - 1]] = count + 1;
+                pending[depth - 1] = count++;
+            } else if (opcode == Mnemonic.EIF) {
+                if (depth == 0) {
+                    return null;
+                }
+                code[pending[--depth]] = count;
+            } else if (opcode == Mnemonic.JMPR
+                    || opcode == Mnemonic.JROT
+                    || opcode == Mnemonic.JROF) {
+                code[count++] = opcode;
+                code[count++] = ip;
+            } else if (opcode == Mnemonic.ENDF) {
+                if (depth != 0) {
+                    return null;
+                }
+                code[count++] = opcode;
+                return new CompiledFunction(
+                        Arrays.copyOf(code, count),
+                        start,
+                        Arrays.copyOf(codeIndex, ip - start + 1));
+            } else {
+                code[count++] = opcode;
+            }
+            ip = parser.advanceIP(ip);
+        }
+
+        // We ran off the end of the program without finding the ENDF
+        return null;
+    }
+
+    private static boolean isPush(short opcode) {
+        return opcode == Mnemonic.NPUSHB
+                || opcode == Mnemonic.NPUSHW
+                || (opcode >= Mnemonic.PUSHB && opcode < Mnemonic.MDRP);
+    }
+}
@@ -18,6 +18,7 @@
 
 package net.java.dev.typecast.tt.engine;
 
+import java.util.Arrays;
 import net.java.dev.typecast.ot.Mnemonic;
 import net.java.dev.typecast.ot.Point;
 
@@ -36,6 +37,7 @@ class Interpreter {
     private int[] store;
     private final int[] cvt = new int[256];
     private int[] functionMap;
+    private CompiledFunction[] compiledFunctions;
     private int stackIndex = 0;
     private boolean inFuncDef = false;
 
@@ -98,7 +100,7 @@ class Interpreter {
      * CALL function
      */
     private void _call() {
-        execute(functionMap[pop()]);
+        callFunction(pop());
     }
 
     /**
@@ -117,7 +119,8 @@ class Interpreter {
      * Copy the INDEXed element to the top of the stack
      */
     private void _cindex() {
-        push(stack[stackIndex - pop()]);
+        int k = pop();
+        push(stack[stackIndex - k]);
     }
 
     /**
@@ -247,7 +250,11 @@ class Interpreter {
      * Function DEFinition
      */
     private void _fdef(int instructionIndex) {
-        functionMap[pop()] = instructionIndex;
+        int n = pop();
+        functionMap[n] = instructionIndex;
+        if (compiledFunctions != null) {
+            compiledFunctions[n] = FunctionCompiler.compile(parser, instructionIndex);
+        }
         inFuncDef = true;
     }
 
@@ -448,34 +455,36 @@ class Interpreter {
 
     /**
      * JuMP Relative
+     * @return The instruction pointer to continue from
      */
     private int _jmpr(int instructionIndex) {
-        instructionIndex += pop() - 1;
-        return instructionIndex;
+        return instructionIndex + pop();
     }
 
     /**
      * Jump Relative On False
+     * @return The instruction pointer to continue from
      */
     private int _jrof(int instructionIndex) {
         boolean test = pop() != 0;
         int offset = pop();
         if (!test) {
-            instructionIndex += offset - 1;
+            return instructionIndex + offset;
         }
-        return instructionIndex;
+        return parser.advanceIP(instructionIndex);
     }
 
     /**
      * Jump Relative On True
+     * @return The instruction pointer to continue from
      */
     private int _jrot(int instructionIndex) {
         boolean test = pop() != 0;
         int offset = pop();
         if (test) {
-            instructionIndex += offset - 1;
+            return instructionIndex + offset;
         }
-        return instructionIndex;
+        return parser.advanceIP(instructionIndex);
     }
 
     /**
@@ -485,7 +494,7 @@ class Interpreter {
         int index = pop();
         int count = pop();
         for (int i = 0; i < count; i++) {
-            execute(functionMap[i]);
+            callFunction(index);
         }
     }
 
@@ -1217,8 +1226,8 @@ class Interpreter {
             else if (opcode >= Mnemonic.RDTG) _rdtg();
             else if (opcode >= Mnemonic.RUTG) _rutg();
             else if (opcode >= Mnemonic.ROFF) _roff();
-            else if (opcode >= Mnemonic.JROF) ip = _jrof(ip);
-            else if (opcode >= Mnemonic.JROT) ip = _jrot(ip);
+            else if (opcode >= Mnemonic.JROF) { ip = _jrof(ip); continue; }
+            else if (opcode >= Mnemonic.JROT) { ip = _jrot(ip); continue; }
             else if (opcode >= Mnemonic.S45ROUND) _s45round();
             else if (opcode >= Mnemonic.SROUND) _sround();
             else if (opcode >= Mnemonic.DELTAC3) _deltac3();
@@ -1294,7 +1303,7 @@ class Interpreter {
             else if (opcode >= Mnemonic.SSW) _ssw();
             else if (opcode >= Mnemonic.SSWCI) _sswci();
             else if (opcode >= Mnemonic.SCVTCI) _scvtci();
-            else if (opcode >= Mnemonic.JMPR) ip = _jmpr(ip);
+            else if (opcode >= Mnemonic.JMPR) { ip = _jmpr(ip); continue; }
             else if (opcode >= Mnemonic.ELSE) ip = _else(ip);
             else if (opcode >= Mnemonic.SMD) _smd();
             else if (opcode >= Mnemonic.RTHG) _rthg();
@@ -1322,6 +1331,238 @@ class Interpreter {
         }
     }
 
+    /**
+     * Execute a function that has been compiled ahead of time.  This
+     * dispatches directly on the opcode, with push data already decoded and
+     * IF/ELSE branch targets already resolved.
+     */
+    private void execute(CompiledFunction f) {
+        int[] code = f.getCode();
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc++];
+            if (opcode >= Mnemonic.MIRP) {
+                _mirp((short)(opcode & 31));
+                continue;
+            } else if (opcode >= Mnemonic.MDRP) {
+                _mdrp((short)(opcode & 31));
+                continue;
+            }
+            switch (opcode) {
+            case Mnemonic.SVTCA:
+            case Mnemonic.SVTCA + 1: _svtca((short)(opcode & 1)); break;
+            case Mnemonic.SPVTCA:
+            case Mnemonic.SPVTCA + 1: _spvtca((short)(opcode & 1)); break;
+            case Mnemonic.SFVTCA:
+            case Mnemonic.SFVTCA + 1: _sfvtca((short)(opcode & 1)); break;
+            case Mnemonic.SPVTL:
+            case Mnemonic.SPVTL + 1: _spvtl((short)(opcode & 1)); break;
+            case Mnemonic.SFVTL:
+            case Mnemonic.SFVTL + 1: _sfvtl((short)(opcode & 1)); break;
+            case Mnemonic.SPVFS: _spvfs(); break;
+            case Mnemonic.SFVFS: _sfvfs(); break;
+            case Mnemonic.GPV: _gpv(); break;
+            case Mnemonic.GFV: _gfv(); break;
+            case Mnemonic.SFVTPV: _sfvtpv(); break;
+            case Mnemonic.ISECT: _isect(); break;
+            case Mnemonic.SRP0: _srp0(); break;
+            case Mnemonic.SRP1: _srp1(); break;
+            case Mnemonic.SRP2: _srp2(); break;
+            case Mnemonic.SZP0: _szp0(); break;
+            case Mnemonic.SZP1: _szp1(); break;
+            case Mnemonic.SZP2: _szp2(); break;
+            case Mnemonic.SZPS: _szps(); break;
+            case Mnemonic.SLOOP: _sloop(); break;
+            case Mnemonic.RTG: _rtg(); break;
+            case Mnemonic.RTHG: _rthg(); break;
+            case Mnemonic.SMD: _smd(); break;
+            case Mnemonic.ELSE: pc = code[pc]; break;
+            case Mnemonic.JMPR:
+            case Mnemonic.JROT:
+            case Mnemonic.JROF: {
+                int ip = code[pc++];
+                int target;
+                if (opcode == Mnemonic.JMPR) {
+                    target = _jmpr(ip);
+                } else if (opcode == Mnemonic.JROT) {
+                    target = _jrot(ip);
+                } else {
+                    target = _jrof(ip);
+                }
+                int i = f.getCodeIndex(target);
+                if (i < 0) {
+
+                    // The target isn't somewhere we know about, so let the
+                    // interpreter take it from here
+                    execute(target);
+                    return;
+                }
+                pc = i;
+                break;
+            }
+            case Mnemonic.SCVTCI: _scvtci(); break;
+            case Mnemonic.SSWCI: _sswci(); break;
+            case Mnemonic.SSW: _ssw(); break;
+            case Mnemonic.DUP: _dup(); break;
+            case Mnemonic.POP: pop(); break;
+            case Mnemonic.CLEAR: _clear(); break;
+            case Mnemonic.SWAP: _swap(); break;
+            case Mnemonic.DEPTH: _depth(); break;
+            case Mnemonic.CINDEX: _cindex(); break;
+            case Mnemonic.MINDEX: _mindex(); break;
+            case Mnemonic.ALIGNPTS: _alignpts(); break;
+            case Mnemonic.UTP: _utp(); break;
+            case Mnemonic.LOOPCALL: _loopcall(); break;
+            case Mnemonic.CALL: _call(); break;
+            case Mnemonic.ENDF: return;
+            case Mnemonic.MDAP:
+            case Mnemonic.MDAP + 1: _mdap((short)(opcode & 1)); break;
+            case Mnemonic.IUP:
+            case Mnemonic.IUP + 1: _iup((short)(opcode & 1)); break;
+            case Mnemonic.SHP:
+            case Mnemonic.SHP + 1: _shp((short)(opcode & 1)); break;
+            case Mnemonic.SHC:
+            case Mnemonic.SHC + 1: _shc((short)(opcode & 1)); break;
+            case Mnemonic.SHZ:
+            case Mnemonic.SHZ + 1: _shz((short)(opcode & 1)); break;
+            case Mnemonic.SHPIX: _shpix(); break;
+            case Mnemonic.IP: _ip(); break;
+            case Mnemonic.MSIRP:
+            case Mnemonic.MSIRP + 1: _msirp((short)(opcode & 1)); break;
+            case Mnemonic.ALIGNRP: _alignrp(); break;
+            case Mnemonic.RTDG: _rtdg(); break;
+            case Mnemonic.MIAP:
+            case Mnemonic.MIAP + 1: _miap((short)(opcode & 1)); break;
+            case Mnemonic.NPUSHB: {
+                int n = code[pc++];
+                for (int i = 0; i < n; i++) {
+                    push(code[pc++]);
+                }
+                break;
+            }
+            case Mnemonic.WS: _ws(); break;
+            case Mnemonic.RS: _rs(); break;
+            case Mnemonic.WCVTP: _wcvtp(); break;
+            case Mnemonic.RCVT: _rcvt(); break;
+            case Mnemonic.GC:
+            case Mnemonic.GC + 1: _gc((short)(opcode & 1)); break;
+            case Mnemonic.SCFS: _scfs(); break;
+            case Mnemonic.MD:
+            case Mnemonic.MD + 1: _md((short)(opcode & 1)); break;
+            case Mnemonic.MPPEM: _mppem(); break;
+            case Mnemonic.MPS: _mps(); break;
+            case Mnemonic.FLIPON: _flipon(); break;
+            case Mnemonic.FLIPOFF: _flipoff(); break;
+            case Mnemonic.DEBUG: _debug(); break;
+            case Mnemonic.LT: _lt(); break;
+            case Mnemonic.LTEQ: _lteq(); break;
+            case Mnemonic.GT: _gt(); break;
+            case Mnemonic.GTEQ: _gteq(); break;
+            case Mnemonic.EQ: _eq(); break;
+            case Mnemonic.NEQ: _neq(); break;
+            case Mnemonic.ODD: _odd(); break;
+            case Mnemonic.EVEN: _even(); break;
+            case Mnemonic.IF: {
+                int target = code[pc++];
+                if (pop() == 0) {
+                    pc = target;
+                }
+                break;
+            }
+            case Mnemonic.AND: _and(); break;
+            case Mnemonic.OR: _or(); break;
+            case Mnemonic.NOT: _not(); break;
+            case Mnemonic.DELTAP1: _deltap1(); break;
+            case Mnemonic.SDB: _sdb(); break;
+            case Mnemonic.SDS: _sds(); break;
+            case Mnemonic.ADD: _add(); break;
+            case Mnemonic.SUB: _sub(); break;
+            case Mnemonic.DIV: _div(); break;
+            case Mnemonic.MUL: _mul(); break;
+            case Mnemonic.ABS: _abs(); break;
+            case Mnemonic.NEG: _neg(); break;
+            case Mnemonic.FLOOR: _floor(); break;
+            case Mnemonic.CEILING: _ceiling(); break;
+            case Mnemonic.ROUND:
+            case Mnemonic.ROUND + 1:
+            case Mnemonic.ROUND + 2:
+            case Mnemonic.ROUND + 3: _round((short)(opcode & 3)); break;
+            case Mnemonic.NROUND:
+            case Mnemonic.NROUND + 1:
+            case Mnemonic.NROUND + 2:
+            case Mnemonic.NROUND + 3: _nround((short)(opcode & 3)); break;
+            case Mnemonic.WCVTF: _wcvtf(); break;
+            case Mnemonic.DELTAP2: _deltap2(); break;
+            case Mnemonic.DELTAP3: _deltap3(); break;
+            case Mnemonic.DELTAC1: _deltac1(); break;
+            case Mnemonic.DELTAC2: _deltac2(); break;
+            case Mnemonic.DELTAC3: _deltac3(); break;
+            case Mnemonic.SROUND: _sround(); break;
+            case Mnemonic.S45ROUND: _s45round(); break;
+            case Mnemonic.ROFF: _roff(); break;
+            case Mnemonic.RUTG: _rutg(); break;
+            case Mnemonic.RDTG: _rdtg(); break;
+            case Mnemonic.SANGW: break; // SANGW (ignored)
+            case Mnemonic.AA: break; // AA (ignored)
+            case Mnemonic.FLIPPT: _flippt(); break;
+            case Mnemonic.FLIPRGON: _fliprgon(); break;
+            case Mnemonic.FLIPRGOFF: _fliprgoff(); break;
+            case Mnemonic.SCANCTRL: _scanctrl(); break;
+            case Mnemonic.SDPVTL:
+            case Mnemonic.SDPVTL + 1: _sdpvtl((short)(opcode & 1)); break;
+            case Mnemonic.GETINFO: _getinfo(); break;
+            case Mnemonic.ROLL: _roll(); break;
+            case Mnemonic.MAX: _max(); break;
+            case Mnemonic.MIN: _min(); break;
+            case Mnemonic.SCANTYPE: _scantype(); break;
+            case Mnemonic.INSTCTRL: _instctrl(); break;
+            default:
+                throw new IllegalStateException(
+                        "Opcode 0x" + Integer.toHexString(opcode) + " was not compiled");
+            }
+        }
+    }
+
+    private void callFunction(int n) {
+        CompiledFunction f = compiledFunctions != null ? compiledFunctions[n] : null;
+        if (f != null) {
+            execute(f);
+        } else {
+            execute(functionMap[n]);
+        }
+    }
+
+    /**
+     * When enabled, function definitions in the font program are compiled
+     * as they are defined, and calls to them are executed from the compiled
+     * form.  Functions that can't be compiled are interpreted as usual.
+     * This needs to be set before the font program is run.
+     * @param enabled true to compile function definitions
+     */
+    public void setFunctionCompilationEnabled(boolean enabled) {
+        compiledFunctions = enabled ? new CompiledFunction[functionMap.length] : null;
+    }
+
+    boolean isFunctionCompiled(int n) {
+        return compiledFunctions != null && compiledFunctions[n] != null;
+    }
+
+    int[] getStack() {
+        return Arrays.copyOf(stack, stackIndex);
+    }
+
+    int[] getStore() {
+        return store;
+    }
+
+    int[] getCvt() {
+        return cvt;
+    }
+
+    GraphicsState getGraphicsState() {
+        return gs;
+    }
+
     public Point[][] getZones() {
         return zone;
     }
@@ -94,19 +94,35 @@ class Parser {
             }
         } else if (Mnemonic.NPUSHW == instr) {
             for (int j = 0; j < count; j++) {
-                data[j] = (instructions[prog][i + j*2 + 2] << 8) | instructions[prog][i + j*2 + 3];
+                data[j] = (short) ((instructions[prog][i + j*2 + 2] << 8) | instructions[prog][i + j*2 + 3]);
             }
         } else if (Mnemonic.PUSHW == (instr & 0xf8)) {
             for (int j = 0; j < count; j++) {
-                data[j] = (instructions[prog][i + j*2 + 1] << 8) | instructions[prog][i + j*2 + 2];
+                data[j] = (short) ((instructions[prog][i + j*2 + 1] << 8) | instructions[prog][i + j*2 + 2]);
             }
         }
         return data;
     }
 
+    /**
+     * Skip over the remainder of an IF block, from the ELSE to the matching
+     * EIF.  IF-ELSE-EIF blocks can be nested.
+     * @param ip The instruction pointer of the ELSE instruction
+     * @return The instruction pointer of the matching EIF instruction
+     */
     public int handleElse(int ip) {
-        while (instructions[ip >> 16][ip & 0xffff] != Mnemonic.EIF) {
-            ip = advanceIP(ip);
+        int end = (ip & 0xffff0000) | getISLength(ip >> 16);
+        int depth = 0;
+        while ((ip = advanceIP(ip)) < end) {
+            short opcode = getOpcode(ip);
+            if (opcode == Mnemonic.IF) {
+                depth++;
+            } else if (opcode == Mnemonic.EIF) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
         }
         return ip;
     }
@@ -114,11 +130,22 @@ class Parser {
     public int handleIf(boolean test, int ip) {
         if (!test) {
             // The TrueType spec says that we merely jump to the *next* ELSE or EIF
-            // instruction in the instruction stream.  So therefore no nesting!
-            // Looking at actual code, IF-ELSE-EIF can be nested!
-            while ((instructions[ip >> 16][ip & 0xffff] != Mnemonic.ELSE)
-                    && (instructions[ip >> 16][ip & 0xffff] != Mnemonic.EIF)) {
-                ip = advanceIP(ip);
+            // instruction in the instruction stream.  Looking at actual code,
+            // IF-ELSE-EIF can be nested, so we look for the one that matches.
+            int end = (ip & 0xffff0000) | getISLength(ip >> 16);
+            int depth = 0;
+            while ((ip = advanceIP(ip)) < end) {
+                short opcode = getOpcode(ip);
+                if (opcode == Mnemonic.IF) {
+                    depth++;
+                } else if (opcode == Mnemonic.EIF) {
+                    if (depth == 0) {
+                        break;
+                    }
+                    depth--;
+                } else if (opcode == Mnemonic.ELSE && depth == 0) {
+                    break;
+                }
             }
         }
         return ip;
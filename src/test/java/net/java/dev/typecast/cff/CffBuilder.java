@@ -0,0 +1,378 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import net.java.dev.typecast.ot.table.CffTable;
+
+/**
+ * Assembles minimal CFF tables for testing, as there are no CFF-flavoured
+ * fonts among the test resources.
+ */
+public class CffBuilder {
+
+    private final ByteArrayOutputStream _out = new ByteArrayOutputStream();
+
+    /**
+     * Appends a charstring operand, using the shortest integer encoding.
+     */
+    public CffBuilder arg(int... values) {
+        for (int v : values) {
+            if (-107 <= v && v <= 107) {
+                _out.write(v + 139);
+            } else if (108 <= v && v <= 1131) {
+                v -= 108;
+                _out.write((v >> 8) + 247);
+                _out.write(v & 0xff);
+            } else if (-1131 <= v && v <= -108) {
+                v = -v - 108;
+                _out.write((v >> 8) + 251);
+                _out.write(v & 0xff);
+            } else {
+                _out.write(28);
+                _out.write((v >> 8) & 0xff);
+                _out.write(v & 0xff);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends a 16.16 fixed point charstring operand.
+     */
+    public CffBuilder fixed(double value) {
+        int v = (int) Math.round(value * 65536);
+        _out.write(255);
+        writeInt(_out, v);
+        return this;
+    }
+
+    /**
+     * Appends a DICT operand in the fixed-size five byte form, so that
+     * offsets can be patched in without changing the layout.
+     */
+    public CffBuilder dictInt(int... values) {
+        for (int v : values) {
+            _out.write(29);
+            writeInt(_out, v);
+        }
+        return this;
+    }
+
+    public CffBuilder op(int operator) {
+        _out.write(operator);
+        return this;
+    }
+
+    public CffBuilder escapedOp(int operator) {
+        _out.write(12);
+        _out.write(operator);
+        return this;
+    }
+
+    public byte[] bytes() {
+        return _out.toByteArray();
+    }
+
+    public static CffBuilder charstring() {
+        return new CffBuilder();
+    }
+
+    /**
+     * Encodes an INDEX with four byte offsets.
+     */
+    public static byte[] index(byte[]... items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(items.length >> 8);
+        out.write(items.length & 0xff);
+        if (items.length == 0) {
+            return out.toByteArray();
+        }
+        out.write(4);
+        int offset = 1;
+        writeInt(out, offset);
+        for (byte[] item : items) {
+            offset += item.length;
+            writeInt(out, offset);
+        }
+        for (byte[] item : items) {
+            out.write(item, 0, item.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a CFF2 INDEX, which has a four byte count, with four byte
+     * offsets.
+     */
+    public static byte[] index2(byte[]... items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeInt(out, items.length);
+        byte[] index = index(items);
+        out.write(index, 2, index.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a single-font, name-keyed CFF table.
+     * @param charstrings the charstrings, the first of which is .notdef
+     * @param globalSubrs the global subroutines
+     * @param localSubrs the local subroutines, or null for none
+     */
+    public static byte[] cff(byte[][] charstrings, byte[][] globalSubrs, byte[][] localSubrs) {
+        return cff(charstrings, globalSubrs, localSubrs, -1);
+    }
+
+    /**
+     * Builds a single-font, name-keyed CFF table.
+     * @param charstrings the charstrings, the first of which is .notdef
+     * @param globalSubrs the global subroutines
+     * @param localSubrs the local subroutines, or null for none
+     * @param predefinedCharset the offset of a predefined charset, 0 to 2,
+     * or -1 for a format 0 charset in the table
+     */
+    public static byte[] cff(
+            byte[][] charstrings,
+            byte[][] globalSubrs,
+            byte[][] localSubrs,
+            int predefinedCharset) {
+        byte[] header = { 1, 0, 4, 4 };
+        byte[] nameIndex = index("Test".getBytes());
+        byte[] stringIndex = index("Test".getBytes());
+        byte[] globalSubrIndex = index(globalSubrs);
+
+        // The top DICT is fixed in size, so its length is known before the
+        // offsets it holds
+        int topDictLength = 23;
+        int topDictIndexLength = index(new byte[topDictLength]).length;
+        int charsetOffset = header.length + nameIndex.length
+                + topDictIndexLength + stringIndex.length
+                + globalSubrIndex.length;
+        ByteArrayOutputStream charset = new ByteArrayOutputStream();
+        charset.write(0);
+        for (int i = 1; i < charstrings.length; ++i) {
+            charset.write(0);
+            charset.write(i);
+        }
+        int charStringsOffset = charsetOffset + charset.size();
+        byte[] charStringsIndex = index(charstrings);
+        int privateOffset = charStringsOffset + charStringsIndex.length;
+        byte[] privateDict = localSubrs != null
+                ? charstring().dictInt(6).op(19).bytes()
+                : new byte[0];
+        byte[] localSubrIndex = localSubrs != null
+                ? index(localSubrs)
+                : new byte[0];
+
+        byte[] topDict = charstring()
+                .dictInt(predefinedCharset >= 0 ? predefinedCharset : charsetOffset).op(15)
+                .dictInt(charStringsOffset).op(17)
+                .dictInt(privateDict.length, privateOffset).op(18)
+                .bytes();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header, 0, header.length);
+        out.write(nameIndex, 0, nameIndex.length);
+        byte[] topDictIndex = index(topDict);
+        out.write(topDictIndex, 0, topDictIndex.length);
+        out.write(stringIndex, 0, stringIndex.length);
+        out.write(globalSubrIndex, 0, globalSubrIndex.length);
+        out.write(charset.toByteArray(), 0, charset.size());
+        out.write(charStringsIndex, 0, charStringsIndex.length);
+        out.write(privateDict, 0, privateDict.length);
+        out.write(localSubrIndex, 0, localSubrIndex.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a single-font, CID-keyed CFF table, with a format 3 FDSelect.
+     * @param charstrings the charstrings, the first of which is .notdef
+     * @param globalSubrs the global subroutines
+     * @param localSubrs the local subroutines of each Font DICT
+     * @param fds the Font DICT index of each glyph
+     */
+    public static byte[] cidCff(
+            byte[][] charstrings,
+            byte[][] globalSubrs,
+            byte[][][] localSubrs,
+            int[] fds) {
+        byte[] header = { 1, 0, 4, 4 };
+        byte[] nameIndex = index("Test".getBytes());
+        byte[] stringIndex = index("Adobe".getBytes(), "Identity".getBytes());
+        byte[] globalSubrIndex = index(globalSubrs);
+
+        int topDictLength = 43;
+        int topDictIndexLength = index(new byte[topDictLength]).length;
+        int charsetOffset = header.length + nameIndex.length
+                + topDictIndexLength + stringIndex.length
+                + globalSubrIndex.length;
+
+        // Charset format 0, with CIDs the same as glyph IDs
+        ByteArrayOutputStream charset = new ByteArrayOutputStream();
+        charset.write(0);
+        for (int i = 1; i < charstrings.length; ++i) {
+            charset.write(0);
+            charset.write(i);
+        }
+
+        // FDSelect format 3
+        int fdSelectOffset = charsetOffset + charset.size();
+        ByteArrayOutputStream ranges = new ByteArrayOutputStream();
+        int rangeCount = 0;
+        for (int i = 0; i < fds.length; ++i) {
+            if (i == 0 || fds[i] != fds[i - 1]) {
+                ranges.write(i >> 8);
+                ranges.write(i & 0xff);
+                ranges.write(fds[i]);
+                ++rangeCount;
+            }
+        }
+        ByteArrayOutputStream fdSelect = new ByteArrayOutputStream();
+        fdSelect.write(3);
+        fdSelect.write(rangeCount >> 8);
+        fdSelect.write(rangeCount & 0xff);
+        fdSelect.write(ranges.toByteArray(), 0, ranges.size());
+        fdSelect.write(fds.length >> 8);
+        fdSelect.write(fds.length & 0xff);
+
+        int charStringsOffset = fdSelectOffset + fdSelect.size();
+        byte[] charStringsIndex = index(charstrings);
+        int fdArrayOffset = charStringsOffset + charStringsIndex.length;
+
+        // Each Font DICT is fixed in size, and each Private DICT is followed
+        // by its local subrs
+        int fdArrayLength = index(new byte[localSubrs.length][11]).length;
+        int privateOffset = fdArrayOffset + fdArrayLength;
+        byte[][] fontDicts = new byte[localSubrs.length][];
+        ByteArrayOutputStream privates = new ByteArrayOutputStream();
+        for (int i = 0; i < localSubrs.length; ++i) {
+            byte[] privateDict = charstring().dictInt(6).op(19).bytes();
+            fontDicts[i] = charstring()
+                    .dictInt(privateDict.length, privateOffset + privates.size())
+                    .op(18).bytes();
+            byte[] localSubrIndex = index(localSubrs[i]);
+            privates.write(privateDict, 0, privateDict.length);
+            privates.write(localSubrIndex, 0, localSubrIndex.length);
+        }
+        byte[] fdArray = index(fontDicts);
+
+        byte[] topDict = charstring()
+                .dictInt(391, 392, 0).escapedOp(30)
+                .dictInt(charsetOffset).op(15)
+                .dictInt(charStringsOffset).op(17)
+                .dictInt(fdArrayOffset).escapedOp(36)
+                .dictInt(fdSelectOffset).escapedOp(37)
+                .bytes();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header, 0, header.length);
+        out.write(nameIndex, 0, nameIndex.length);
+        byte[] topDictIndex = index(topDict);
+        out.write(topDictIndex, 0, topDictIndex.length);
+        out.write(stringIndex, 0, stringIndex.length);
+        out.write(globalSubrIndex, 0, globalSubrIndex.length);
+        out.write(charset.toByteArray(), 0, charset.size());
+        out.write(fdSelect.toByteArray(), 0, fdSelect.size());
+        out.write(charStringsIndex, 0, charStringsIndex.length);
+        out.write(fdArray, 0, fdArray.length);
+        out.write(privates.toByteArray(), 0, privates.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a CFF2 table for a variable font with a single axis, and a
+     * single region that peaks at the axis maximum.  The Private DICT has
+     * BlueValues of -20 0 at the default instance, blended with deltas of
+     * 5 1.
+     * @param charstrings the charstrings, the first of which is .notdef
+     * @param localSubrs the local subroutines
+     */
+    public static byte[] cff2(byte[][] charstrings, byte[][] localSubrs) {
+        int topDictLength = 19;
+        int header = 5;
+        byte[] globalSubrIndex = index2();
+        int vstoreOffset = header + topDictLength + globalSubrIndex.length;
+        ByteArrayOutputStream vstore = new ByteArrayOutputStream();
+        vstore.write(0);
+        vstore.write(30);
+
+        // Item Variation Store, with its Variation Region List at 12 and its
+        // single Item Variation Data at 22
+        vstore.write(0);
+        vstore.write(1);
+        writeInt(vstore, 12);
+        vstore.write(0);
+        vstore.write(1);
+        writeInt(vstore, 22);
+        byte[] regionList = { 0, 1, 0, 1, 0, 0, 0x40, 0, 0x40, 0 };
+        vstore.write(regionList, 0, regionList.length);
+        byte[] itemVariationData = { 0, 0, 0, 0, 0, 1, 0, 0 };
+        vstore.write(itemVariationData, 0, itemVariationData.length);
+
+        int charStringsOffset = vstoreOffset + vstore.size();
+        byte[] charStringsIndex = index2(charstrings);
+        int fdArrayOffset = charStringsOffset + charStringsIndex.length;
+        int fdArrayLength = index2(new byte[11]).length;
+        int privateOffset = fdArrayOffset + fdArrayLength;
+        byte[] privateDict = charstring()
+                .dictInt(-20, 0, 5, 1, 2).op(23).op(6)
+                .dictInt(33).op(19)
+                .bytes();
+        byte[] fdArray = index2(charstring()
+                .dictInt(privateDict.length, privateOffset).op(18).bytes());
+        byte[] localSubrIndex = index2(localSubrs);
+
+        byte[] topDict = charstring()
+                .dictInt(charStringsOffset).op(17)
+                .dictInt(vstoreOffset).op(24)
+                .dictInt(fdArrayOffset).escapedOp(36)
+                .bytes();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(2);
+        out.write(0);
+        out.write(header);
+        out.write(0);
+        out.write(topDict.length);
+        out.write(topDict, 0, topDict.length);
+        out.write(globalSubrIndex, 0, globalSubrIndex.length);
+        out.write(vstore.toByteArray(), 0, vstore.size());
+        out.write(charStringsIndex, 0, charStringsIndex.length);
+        out.write(fdArray, 0, fdArray.length);
+        out.write(privateDict, 0, privateDict.length);
+        out.write(localSubrIndex, 0, localSubrIndex.length);
+        return out.toByteArray();
+    }
+
+    public static CffTable table(byte[] cff) throws IOException {
+        return new CffTable(
+                new DataInputStream(new ByteArrayInputStream(cff)),
+                cff.length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write((v >> 24) & 0xff);
+        out.write((v >> 16) & 0xff);
+        out.write((v >> 8) & 0xff);
+        out.write(v & 0xff);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.Point;
+import net.java.dev.typecast.ot.table.Cff2Table;
+
+import static net.java.dev.typecast.cff.CffBuilder.charstring;
+
+public class CffFontTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CffFontTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(CffFontTest.class);
+    }
+
+    /**
+     * Glyphs of a font with the ISOAdobe charset are named by their IDs as
+     * SIDs, and those of a font with an Expert charset have no names.
+     */
+    public void testPredefinedCharsets() throws IOException {
+        byte[] glyph = charstring().op(T2Mnemonic.ENDCHAR).bytes();
+        byte[][] charstrings = { glyph, glyph, glyph };
+        byte[][] globalSubrs = new byte[0][];
+        CffFont font = CffBuilder.table(
+                CffBuilder.cff(charstrings, globalSubrs, null, 0)).getFont(0);
+        assertEquals(".notdef", font.getGlyphName(0));
+        assertEquals("exclam", font.getGlyphName(2));
+
+        font = CffBuilder.table(
+                CffBuilder.cff(charstrings, globalSubrs, null, 1)).getFont(0);
+        assertNull(font.getGlyphName(2));
+    }
+
+    /**
+     * Each glyph calls local subr 0, which in FD 0 draws a horizontal line
+     * and in FD 1 a vertical one.
+     */
+    public void testCIDKeyedFont() throws IOException {
+        byte[] glyph = charstring()
+                .arg(0, 0).op(T2Mnemonic.RMOVETO)
+                .arg(-107).op(T2Mnemonic.CALLSUBR)
+                .op(T2Mnemonic.ENDCHAR).bytes();
+        byte[][] charstrings = { glyph, glyph, glyph, glyph };
+        byte[][] globalSubrs = {
+            charstring().op(T2Mnemonic.RETURN).bytes()
+        };
+        byte[][][] localSubrs = {
+            { charstring().arg(10, 0).op(T2Mnemonic.RLINETO)
+                    .op(T2Mnemonic.RETURN).bytes() },
+            { charstring().arg(0, 10).op(T2Mnemonic.RLINETO)
+                    .op(T2Mnemonic.RETURN).bytes() }
+        };
+        int[] fds = { 0, 1, 1, 0 };
+        CffFont font = CffBuilder.table(
+                CffBuilder.cidCff(charstrings, globalSubrs, localSubrs, fds))
+                .getFont(0);
+
+        assertTrue(font.isCIDFont());
+        assertEquals(2, font.getFDCount());
+        assertEquals("cid2", font.getGlyphName(2));
+        T2Interpreter t2i = new T2Interpreter();
+        for (int gid = 0; gid < fds.length; ++gid) {
+            assertEquals(fds[gid], font.getFD(gid));
+            Point[] points = t2i.execute((CharstringType2) font.getCharstring(gid));
+            assertEquals(2, points.length);
+            assertEquals(fds[gid] == 0 ? 10 : 0, points[1].x);
+            assertEquals(fds[gid] == 0 ? 0 : 10, points[1].y);
+        }
+        assertSame(font.getLocalSubrIndex(1), font.getLocalSubrIndex(2));
+    }
+
+    /**
+     * A glyph whose starting point is blended, and which calls a local subr
+     * that, as is the way with CFF2, has no return.
+     */
+    public void testCff2Blend() throws IOException {
+        byte[][] charstrings = {
+            charstring().bytes(),
+            charstring()
+                .arg(100, 100, 50, 50, 2).op(T2Mnemonic.BLEND)
+                .op(T2Mnemonic.RMOVETO)
+                .arg(-107).op(T2Mnemonic.CALLSUBR)
+                .arg(10, 0).op(T2Mnemonic.RLINETO).bytes()
+        };
+        byte[][] localSubrs = {
+            charstring().arg(0, 10).op(T2Mnemonic.RLINETO).bytes()
+        };
+        byte[] data = CffBuilder.cff2(charstrings, localSubrs);
+        Cff2Table table = new Cff2Table(
+                new DataInputStream(new ByteArrayInputStream(data)),
+                data.length);
+        CffFont font = table.getFont();
+
+        assertTrue(font.isCff2());
+        assertEquals(2, font.getCharstringCount());
+        assertTrue(Arrays.equals(
+                new double[] { -20, 0 },
+                font.getPrivateDict().getDoubles(6)));
+
+        T2Outline outline = font.getOutline(1);
+        assertEquals(3, outline.getPointCount());
+        assertEquals(100, outline.getX(0));
+        assertEquals(110, outline.getY(1));
+        assertEquals(110, outline.getX(2));
+        assertTrue(outline.isEndOfContour(2));
+
+        outline = new CffInstance(font, new float[] { 1.0f }).getOutline(1);
+        assertEquals(150, outline.getX(0));
+        assertEquals(160, outline.getY(1));
+
+        CffInstance instance = new CffInstance(font, new float[] { 0.5f });
+        outline = instance.getOutline(1);
+        assertEquals(125, outline.getX(0));
+        assertEquals(135, outline.getX(2));
+        assertSame(outline, instance.getOutline(1));
+
+        // Charstrings that blend can still be desubroutinized
+        font.setDesubroutinized(true);
+        assertFalse(font.getCharstring(1).toString().contains("callsubr"));
+        assertEquals(135, new CffInstance(font, new float[] { 0.5f })
+                .getOutline(1).getX(2));
+    }
+}
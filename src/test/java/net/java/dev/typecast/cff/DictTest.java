@@ -0,0 +1,79 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DictTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public DictTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(DictTest.class);
+    }
+
+    public void testOperands() {
+        byte[] data = {
+            // -2.25 1.5E-3 0.001 0 200 -300 FontMatrix
+            30, (byte) 0xe2, (byte) 0xa2, 0x5f,
+            30, 0x1a, 0x5c, 0x3f,
+            30, 0x0a, 0x00, 0x1f,
+            (byte) 139,
+            (byte) 247, 92,
+            (byte) 251, (byte) 192,
+            12, 7,
+            // 1000 Private
+            28, 0x03, (byte) 0xe8,
+            29, 0x00, 0x01, 0x00, 0x00,
+            18,
+            // -1000 Subrs, overridden by 50 Subrs
+            28, (byte) 0xfc, 0x18, 19,
+            (byte) 189, 19
+        };
+        Dict dict = new Dict(data, 0, data.length);
+
+        double[] matrix = dict.getFontMatrix();
+        assertEquals(6, matrix.length);
+        assertEquals(-2.25, matrix[0], 1e-12);
+        assertEquals(0.0015, matrix[1], 1e-12);
+        assertEquals(0.001, matrix[2], 1e-12);
+        assertEquals(0.0, matrix[3]);
+        assertEquals(200.0, matrix[4]);
+        assertEquals(-300.0, matrix[5]);
+
+        assertEquals(1000, dict.getPrivateSize());
+        assertEquals(65536, dict.getPrivateOffset());
+        assertEquals(50, dict.getSubrsOffset());
+        assertFalse(dict.isCIDFont());
+        assertEquals(0, dict.getOperandCount(Dict.CHAR_STRINGS));
+        assertEquals(-1, dict.getInt(Dict.CHAR_STRINGS, -1));
+    }
+}
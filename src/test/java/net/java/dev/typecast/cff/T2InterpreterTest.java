@@ -0,0 +1,203 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.cff;
+
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.Point;
+import net.java.dev.typecast.ot.table.CffTable;
+
+import static net.java.dev.typecast.cff.CffBuilder.charstring;
+
+public class T2InterpreterTest extends TestCase {
+
+    private CffFont _font;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public T2InterpreterTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(T2InterpreterTest.class);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        byte[][] charstrings = {
+            // .notdef
+            charstring().op(T2Mnemonic.ENDCHAR).bytes(),
+
+            // A square, with a width value beneath the rmoveto arguments
+            charstring()
+                .arg(500, 100, 100).op(T2Mnemonic.RMOVETO)
+                .arg(50, 0, 0, 50).op(T2Mnemonic.RLINETO)
+                .arg(-50).op(T2Mnemonic.HLINETO)
+                .op(T2Mnemonic.ENDCHAR).bytes(),
+
+            // Local and global subroutine calls, then an hvcurveto with a
+            // final odd argument
+            charstring()
+                .arg(0, 0).op(T2Mnemonic.RMOVETO)
+                .arg(-107).op(T2Mnemonic.CALLSUBR)
+                .arg(-107).op(T2Mnemonic.CALLGSUBR)
+                .arg(10, 20, 30, 40, 50).op(T2Mnemonic.HVCURVETO)
+                .op(T2Mnemonic.ENDCHAR).bytes(),
+
+            // Stack manipulation
+            charstring()
+                .arg(0, 0).op(T2Mnemonic.RMOVETO)
+                .arg(1, 2, 3, 4, 4, 1).escapedOp(T2Mnemonic.ROLL)
+                .op(T2Mnemonic.RLINETO)
+                .arg(5, 7, 1).escapedOp(T2Mnemonic.INDEX)
+                .arg(0).escapedOp(T2Mnemonic.INDEX)
+                .op(T2Mnemonic.RLINETO)
+                .op(T2Mnemonic.ENDCHAR).bytes(),
+
+            // Stem hints and flex
+            charstring()
+                .arg(500, 10, 20, 30, 40).op(T2Mnemonic.HSTEM)
+                .arg(5, 15).op(T2Mnemonic.VSTEM)
+                .arg(0, 0).op(T2Mnemonic.RMOVETO)
+                .arg(10, 0, 10, 10, 10, 0, 10, 0, 10, -10, 10, 0, 50)
+                .escapedOp(T2Mnemonic.FLEX)
+                .op(T2Mnemonic.ENDCHAR).bytes(),
+
+            // Fractional operands
+            charstring()
+                .fixed(0.5).fixed(0.5).op(T2Mnemonic.RMOVETO)
+                .fixed(0.5).fixed(1.5).op(T2Mnemonic.RLINETO)
+                .op(T2Mnemonic.ENDCHAR).bytes()
+        };
+        byte[][] globalSubrs = {
+            charstring().arg(0, 100).op(T2Mnemonic.RLINETO)
+                .op(T2Mnemonic.RETURN).bytes()
+        };
+        byte[][] localSubrs = {
+            charstring().arg(100, 0).op(T2Mnemonic.RLINETO)
+                .op(T2Mnemonic.RETURN).bytes()
+        };
+        CffTable table = CffBuilder.table(
+                CffBuilder.cff(charstrings, globalSubrs, localSubrs));
+        _font = table.getFont(0);
+    }
+
+    public void testCharstrings() {
+        assertEquals(6, _font.getCharstringCount());
+        Charstring cs = _font.getCharstring(2);
+        assertEquals(2, cs.getIndex());
+        assertEquals("exclam", cs.getName());
+    }
+
+    public void testLines() {
+        Point[] points = execute(new T2Interpreter(), 1);
+        assertPoints(new int[] { 100, 100, 150, 100, 150, 150, 100, 150 }, points);
+        assertTrue(points[3].endOfContour);
+    }
+
+    public void testSubroutinesAndCurves() {
+        Point[] points = execute(new T2Interpreter(), 2);
+        assertPoints(
+                new int[] { 0, 0, 100, 0, 100, 100, 110, 100, 130, 130, 180, 170 },
+                points);
+        assertFalse(points[3].onCurve);
+        assertFalse(points[4].onCurve);
+        assertTrue(points[5].onCurve);
+    }
+
+    public void testStackOperators() {
+        Point[] points = execute(new T2Interpreter(), 3);
+        assertPoints(new int[] { 0, 0, 4, 1, 6, 4, 11, 11, 16, 16 }, points);
+    }
+
+    public void testHintsAndFlex() {
+        T2Interpreter t2i = new T2Interpreter();
+        Point[] points = execute(t2i, 4);
+        assertTrue(Arrays.equals(new int[] { 10, 20, 30, 40 }, t2i.getHStems()));
+        assertTrue(Arrays.equals(new int[] { 5, 15 }, t2i.getVStems()));
+        assertPoints(
+                new int[] { 0, 0, 10, 0, 20, 10, 30, 10, 40, 10, 50, 0, 60, 0 },
+                points);
+    }
+
+    public void testFractionalOperands() {
+        Point[] points = execute(new T2Interpreter(), 5);
+        assertPoints(new int[] { 0, 0, 1, 2 }, points);
+    }
+
+    public void testReuse() {
+        T2Interpreter t2i = new T2Interpreter();
+        execute(t2i, 4);
+        Point[] points = execute(t2i, 1);
+        assertPoints(new int[] { 100, 100, 150, 100, 150, 150, 100, 150 }, points);
+        assertEquals(0, t2i.getHStems().length);
+    }
+
+    public void testDesubroutinize() {
+        _font.setDesubroutinized(true);
+        Charstring cs = _font.getCharstring(2);
+        assertFalse(cs.toString().contains("callsubr"));
+        assertFalse(cs.toString().contains("callgsubr"));
+        testSubroutinesAndCurves();
+        testHintsAndFlex();
+
+        // Charstrings using the arithmetic operators are left as they are
+        testStackOperators();
+    }
+
+    public void testOutlineCache() {
+        T2Outline outline = _font.getOutline(1);
+        assertSame(outline, _font.getOutline(1));
+        assertEquals(4, outline.getPointCount());
+        assertEquals(150, outline.getX(1));
+        assertNotSame(outline.getPoints()[0], outline.getPoints()[0]);
+
+        // Shrinking the cache keeps the most recently used outlines
+        T2Outline other = _font.getOutline(2);
+        _font.getOutline(1);
+        _font.setOutlineCacheSize(1);
+        assertSame(outline, _font.getOutline(1));
+        assertNotSame(other, _font.getOutline(2));
+
+        _font.setOutlineCacheSize(0);
+        assertNotSame(_font.getOutline(1), _font.getOutline(1));
+    }
+
+    private Point[] execute(T2Interpreter t2i, int gid) {
+        return t2i.execute((CharstringType2) _font.getCharstring(gid));
+    }
+
+    private static void assertPoints(int[] expected, Point[] points) {
+        assertEquals(expected.length / 2, points.length);
+        for (int i = 0; i < points.length; ++i) {
+            assertEquals(expected[2 * i], points[i].x);
+            assertEquals(expected[2 * i + 1], points[i].y);
+        }
+    }
+}
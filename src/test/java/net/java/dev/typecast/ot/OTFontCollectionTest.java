@@ -25,6 +25,8 @@ import java.net.URL;
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.table.GposTable;
+import net.java.dev.typecast.ot.table.GsubTable;
 
 public class OTFontCollectionTest extends TestCase {
     /**
@@ -51,4 +53,19 @@ public class OTFontCollectionTest extends TestCase {
         OTFont font = fontCollection.getFont(0);
         assertNotNull(font);
     }
+
+    public void testLayoutTables() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        OTFont font = new OTFontCollection(file).getFont(0);
+        GsubTable gsub = font.getGsubTable();
+        assertNotNull(gsub);
+        assertSame(gsub, font.getGsubTable());
+        assertTrue(gsub.getLookupList().getLookupCount() > 0);
+        assertNotNull(gsub.getScriptList().findScript("latn"));
+        GposTable gpos = font.getGposTable();
+        assertNotNull(gpos);
+        assertTrue(gpos.getFeatureList().getFeatureCount() > 0);
+        assertNull(font.getGdefTable());
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.cff.CffBuilder;
+import net.java.dev.typecast.ot.table.Table;
+import net.java.dev.typecast.ot.table.TableDirectory;
+
+import static net.java.dev.typecast.cff.CffBuilder.charstring;
+
+public class T2FontTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public T2FontTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(T2FontTest.class);
+    }
+
+    public void testLoadCffFont() throws URISyntaxException, IOException {
+        File file = File.createTempFile("typecast", ".otf");
+        try {
+            Files.write(file.toPath(), createFontData());
+            OTFontCollection fontCollection = new OTFontCollection(file);
+            OTFont font = fontCollection.getFont(0);
+            assertEquals(T2Font.class, font.getClass());
+
+            T2Glyph glyph = (T2Glyph) font.getGlyph(1);
+            assertEquals(4, glyph.getPointCount());
+            assertEquals(100, glyph.getPoint(0).x);
+            assertEquals(150, glyph.getPoint(2).y);
+            assertEquals(font.getHmtxTable().getAdvanceWidth(1), glyph.getAdvanceWidth());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Borrows the common tables from the TrueType test font, and replaces its
+     * outlines with a small CFF table.
+     */
+    static byte[] createFontData() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        byte[] ttf = Files.readAllBytes(new File(url.toURI()).toPath());
+        TableDirectory tableDirectory = new TableDirectory(ttf);
+
+        int[] tags = {
+            Table.CFF, Table.OS_2, Table.cmap, Table.head, Table.hhea,
+            Table.hmtx, Table.maxp, Table.name, Table.post
+        };
+        byte[][] tables = new byte[tags.length][];
+        for (int i = 0; i < tags.length; ++i) {
+            if (tags[i] == Table.CFF) {
+                tables[i] = CffBuilder.cff(
+                        new byte[][] {
+                            charstring().op(14).bytes(),
+                            charstring()
+                                .arg(100, 100).op(21)
+                                .arg(50, 0, 0, 50, -50, 0).op(5)
+                                .op(14).bytes()
+                        },
+                        new byte[][] { charstring().op(11).bytes() },
+                        null);
+            } else {
+                TableDirectory.Entry entry = tableDirectory.getEntryByTag(tags[i]);
+                tables[i] = new byte[entry.getLength()];
+                System.arraycopy(ttf, entry.getOffset(), tables[i], 0, entry.getLength());
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(T2Font.OTTO);
+        dos.writeShort(tags.length);
+        dos.writeShort(0);
+        dos.writeShort(0);
+        dos.writeShort(0);
+        int offset = 12 + 16 * tags.length;
+        for (int i = 0; i < tags.length; ++i) {
+            dos.writeInt(tags[i]);
+            dos.writeInt(0);
+            dos.writeInt(offset);
+            dos.writeInt(tables[i].length);
+            offset += (tables[i].length + 3) & ~3;
+        }
+        for (byte[] table : tables) {
+            dos.write(table);
+            dos.write(new byte[((table.length + 3) & ~3) - table.length]);
+        }
+        return out.toByteArray();
+    }
+}
@@ -52,4 +52,57 @@ public class TTFontTest extends TestCase {
         TTFont font = new TTFont(fontData, 0);
         assertEquals(HeadTable.class, font.getHeadTable().getClass());
     }
+
+    /**
+     * Text is measured by its advance widths, and kerned pairs are closer.
+     */
+    public void testMeasure() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        TTFont font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+        float scale = 10f / font.getHeadTable().getUnitsPerEm();
+        int a = font.mapChar('A');
+        int v = font.mapChar('V');
+        assertEquals(3, a);
+
+        float[] positions = new float[4];
+        float width = font.measure("xAV", 1, 3, 10, false, positions);
+        assertEquals(0f, positions[0]);
+        assertEquals(font.getHmtxTable().getAdvanceWidth(a) * scale, positions[1], 1e-4f);
+        assertEquals(positions[2], width);
+        assertEquals(width, font.measureGlyphs(new int[] { a, v }, 0, 2, 10, false, null));
+
+        float kerned = font.measure("AV", 10, true);
+        assertTrue(kerned < width);
+        assertEquals(kerned, font.measureGlyphs(new int[] { a, v }, 0, 2, 10, true, null));
+
+        // Surrogate pairs share a position
+        positions = new float[4];
+        font.measure("\ud83d\ude00A", 0, 3, 10, false, positions);
+        assertEquals(positions[0], positions[1]);
+        assertTrue(positions[2] > 0);
+    }
+
+    /**
+     * Lato has no vertical metrics, so each glyph has the height of the
+     * typographic ascender and descender.
+     */
+    public void testMeasureVertical() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        TTFont font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+        assertNull(font.getVmtxTable());
+        assertNull(font.getVorgTable());
+        int height = font.getOS2Table().getTypoAscender()
+                - font.getOS2Table().getTypoDescender();
+        assertEquals(height, font.getAdvanceHeight(3));
+        assertEquals(font.getOS2Table().getTypoAscender(), font.getVerticalOriginY(3));
+
+        float[] positions = new float[4];
+        float scale = 10f / font.getHeadTable().getUnitsPerEm();
+        float total = font.measureVertical("AVe", 0, 3, 10, positions);
+        assertEquals(3 * height * scale, total, 1e-4f);
+        assertEquals(height * scale, positions[1], 1e-4f);
+        assertEquals(total, font.measureGlyphsVertical(new int[] { 3, 40, 59 }, 0, 3, 10, null));
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.TTFont;
+
+public class GlyphPositionerTest extends TestCase {
+
+    // Lato glyph IDs
+    private static final int A = 3;
+    private static final int T = 36;
+    private static final int V = 40;
+    private static final int E = 59;
+    private static final int O = 111;
+    private static final int ACUTE_COMB = 1577;
+
+    private TTFont _font;
+    private GlyphPositioner _positioner;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public GlyphPositionerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(GlyphPositionerTest.class);
+    }
+
+    @Override
+    protected void setUp() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        byte[] fontData = Files.readAllBytes(file.toPath());
+        _font = new TTFont(fontData, 0);
+        _positioner = new GlyphPositioner(_font.getGposTable(), _font.getGdefTable());
+    }
+
+    /**
+     * Lato's kern lookup has pair adjustments of glyphs and of classes, and
+     * its mark lookups attach marks to bases, all wrapped in extension
+     * subtables.
+     */
+    public void testKerningAndMarks() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { A, V, E, ACUTE_COMB, T, O });
+        buf.resetPositions(_font.getHmtxTable());
+        int[] advances = buf.getXAdvances().clone();
+        _positioner.apply(buf, new int[] { 0, 1, 2, 3, 4 });
+
+        // A and V, V and e, and T and o are kerned
+        assertTrue(buf.getXAdvances()[0] < advances[0]);
+        assertTrue(buf.getXAdvances()[1] < advances[1]);
+        assertEquals(advances[2], buf.getXAdvances()[2]);
+        assertTrue(buf.getXAdvances()[4] < advances[4]);
+        assertEquals(advances[5], buf.getXAdvances()[5]);
+
+        // The acute is placed back over the e, relative to its own origin
+        int xOffset = buf.getXOffsets()[3];
+        assertTrue(xOffset < 0 && xOffset > -advances[2]);
+        assertEquals(0, buf.getXOffsets()[2]);
+    }
+
+    /**
+     * A long cursively joined run resolves each glyph's offset from the
+     * glyph it hangs from, without recursing along the chain.
+     */
+    public void testLongCursiveChain() {
+        int length = 100000;
+        GlyphBuffer buf = new GlyphBuffer(new int[length]);
+        for (int i = 0; i < length - 1; i++) {
+            buf.getYOffsets()[i] = 1;
+            buf.getAttachments()[i] = 1;
+            buf.getAttachmentTypes()[i] = GlyphBuffer.ATTACH_CURSIVE;
+        }
+        _positioner.apply(buf, new int[0]);
+        assertEquals(0, buf.getYOffsets()[length - 1]);
+        assertEquals(1, buf.getYOffsets()[length - 2]);
+        assertEquals(length - 1, buf.getYOffsets()[0]);
+        assertEquals(0, buf.getAttachments()[0]);
+    }
+
+    /**
+     * Pairs are kerned the same whether they are found in the matrix, or
+     * with a glyph outside the matrix, looked up in the lookups.
+     */
+    public void testKerningMatrix() {
+        ShapingPlan plan = _font.getShapingPlan(
+                ShapingPlan.tag("latn"), ShapingPlan.tag("dflt"),
+                new int[] { ShapingPlan.tag("kern") });
+        KerningMatrix matrix = KerningMatrix.forLatin1(_font, plan);
+        assertTrue(matrix.contains(A));
+        assertFalse(matrix.contains(ACUTE_COMB));
+
+        GlyphBuffer buf = new GlyphBuffer(new int[] { A, V, E, ACUTE_COMB });
+        buf.resetPositions(_font.getHmtxTable());
+        int[] advances = buf.getXAdvances().clone();
+        _positioner.apply(buf, plan.getPositioningLookups());
+        assertEquals(buf.getXAdvances()[0] - advances[0], matrix.getKerning(A, V));
+        assertEquals(buf.getXAdvances()[1] - advances[1], matrix.getKerning(V, E));
+        assertEquals(_positioner.getPairKerning(
+                E, ACUTE_COMB, plan.getPositioningLookups()),
+                matrix.getKerning(E, ACUTE_COMB));
+        assertEquals(0, matrix.getKerning(O, O));
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.TTFont;
+import net.java.dev.typecast.ot.table.GdefTable;
+import net.java.dev.typecast.ot.table.GsubTable;
+import net.java.dev.typecast.ot.table.LigatureSubstFormat1;
+import net.java.dev.typecast.ot.table.LigatureTrie;
+
+public class GlyphSubstitutorTest extends TestCase {
+
+    // Lato glyph IDs
+    private static final int F = 61;
+    private static final int I = 98;
+    private static final int L = 1140;
+    private static final int A = 3;
+    private static final int ONE = 400;
+    private static final int SLASH = 326;
+    private static final int TWO = 401;
+
+    // Synthetic lookups, given as the words of their lookup tables, whose
+    // subtable offsets are in bytes from the start of the lookup
+
+    // Single substitution of glyphs 2 and 3 by 12 and 13
+    private static final int SINGLE = 0;
+
+    // Multiple substitution deleting glyph 1, and replacing 2 with 3 4
+    private static final int MULTIPLE = 1;
+
+    // Alternate substitution of glyph 6 by 7 or 8
+    private static final int ALTERNATE = 2;
+
+    // Contexts substituting the glyph following glyph 1 with SINGLE, where
+    // it is glyph 2 (format 1) or of class 2, glyphs 2 and 3 (format 2)
+    private static final int CONTEXT1 = 3;
+    private static final int CONTEXT2 = 4;
+
+    // Reverse chaining substitution of glyph 2 by 12 ahead of glyph 5 or 12
+    private static final int REVERSE = 5;
+
+    // CONTEXT1 ignoring marks, and ignoring marks other than glyph 11
+    private static final int CONTEXT1_IGNORE_MARKS = 6;
+    private static final int CONTEXT1_MARK_SET = 7;
+
+    // Ligatures of glyph 1 followed by 1 (20), 1 2 (21) and 3 2 2 (22), with
+    // glyph 4 covered but lacking a ligature set
+    private static final int LIGATURE = 8;
+
+    // Marks 10 and 11, with a mark glyph set of glyph 11
+    private static final int[] GDEF = {
+        1, 2, 14, 0, 0, 0, 24,
+        2, 1, 10, 11, 3,
+        1, 1, 0, 8,
+        1, 1, 11
+    };
+
+    private static final int[][] LOOKUPS = {
+        { 1, 0, 1, 8,
+            1, 6, 10,
+            1, 2, 2, 3 },
+        { 2, 0, 1, 8,
+            1, 18, 2, 10, 12,
+            0,
+            2, 3, 4,
+            1, 2, 1, 2 },
+        { 3, 0, 1, 8,
+            1, 14, 1, 8,
+            2, 7, 8,
+            1, 1, 6 },
+        { 5, 0, 1, 8,
+            1, 22, 1, 8,
+            1, 4,
+            2, 1, 2, 1, SINGLE,
+            1, 1, 1 },
+        { 5, 0, 1, 8,
+            2, 26, 32, 2, 0, 12,
+            1, 4,
+            2, 1, 2, 1, SINGLE,
+            1, 1, 1,
+            2, 2, 1, 1, 1, 2, 3, 2 },
+        { 8, 0, 1, 8,
+            1, 14, 0, 1, 20, 1, 12,
+            1, 1, 2,
+            1, 2, 5, 12 },
+        { 5, 0x0008, 1, 8,
+            1, 22, 1, 8,
+            1, 4,
+            2, 1, 2, 1, SINGLE,
+            1, 1, 1 },
+        { 5, 0x0010, 1, 10, 0,
+            1, 22, 1, 8,
+            1, 4,
+            2, 1, 2, 1, SINGLE,
+            1, 1, 1 },
+        { 4, 0, 1, 8,
+            1, 40, 1, 8,
+            3, 8, 14, 22,
+            20, 2, 1,
+            21, 3, 1, 2,
+            22, 4, 3, 2, 2,
+            1, 2, 1, 4 }
+    };
+
+    private GlyphSubstitutor _substitutor;
+    private GlyphSubstitutor _synthetic;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public GlyphSubstitutorTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(GlyphSubstitutorTest.class);
+    }
+
+    @Override
+    protected void setUp() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        byte[] fontData = Files.readAllBytes(file.toPath());
+        TTFont font = new TTFont(fontData, 0);
+        _substitutor = new GlyphSubstitutor(font.getGsubTable(), font.getGdefTable());
+        _synthetic = new GlyphSubstitutor(gsub(LOOKUPS), gdef(GDEF));
+    }
+
+    /**
+     * Lato's liga lookups, which are wrapped in extension subtables.
+     */
+    public void testLigatures() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { F, I, F, L, A });
+        _substitutor.apply(buf, new int[] { 30, 31 });
+        assertEquals(3, buf.getLength());
+        assertTrue(Arrays.equals(new int[] { 67, 89, A }, buf.toArray()));
+        assertEquals(0, buf.getCluster(0));
+        assertEquals(2, buf.getCluster(1));
+        assertEquals(4, buf.getCluster(2));
+    }
+
+    /**
+     * Lato's frac lookups, which are chained contexts that apply single
+     * substitutions to the numerator, slash and denominator.
+     */
+    public void testChainedContext() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { ONE, SLASH, TWO, A, ONE });
+        _substitutor.apply(buf, new int[] { 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 16, 17 });
+        assertTrue(Arrays.equals(
+                new int[] { 1280, 432, 424, A, ONE }, buf.toArray()));
+    }
+
+    /**
+     * Deleting a glyph leaves the one that follows it to be substituted by
+     * the same lookup.
+     */
+    public void testMultiple() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 1, 1, 2, 5, 1 });
+        _synthetic.applyLookup(buf, MULTIPLE);
+        assertTrue(Arrays.equals(new int[] { 3, 4, 5 }, buf.toArray()));
+        assertEquals(2, buf.getCluster(0));
+        assertEquals(2, buf.getCluster(1));
+        assertEquals(3, buf.getCluster(2));
+    }
+
+    public void testAlternate() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 6, 5 });
+        _synthetic.applyLookup(buf, ALTERNATE);
+        assertTrue(Arrays.equals(new int[] { 7, 5 }, buf.toArray()));
+    }
+
+    public void testContext() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 1, 2, 1, 3, 2 });
+        _synthetic.applyLookup(buf, CONTEXT1);
+        assertTrue(Arrays.equals(new int[] { 1, 12, 1, 3, 2 }, buf.toArray()));
+
+        buf = new GlyphBuffer(new int[] { 1, 2, 1, 3, 4, 3 });
+        _synthetic.applyLookup(buf, CONTEXT2);
+        assertTrue(Arrays.equals(new int[] { 1, 12, 1, 13, 4, 3 }, buf.toArray()));
+    }
+
+    /**
+     * Substituting from the end of the buffer lets each substitution
+     * provide the lookahead of the one before it.
+     */
+    public void testReverseChain() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 2, 2, 2, 5, 2 });
+        _synthetic.applyLookup(buf, REVERSE);
+        assertTrue(Arrays.equals(new int[] { 12, 12, 12, 5, 2 }, buf.toArray()));
+    }
+
+    public void testLookupFlags() {
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 1, 10, 2, 1, 11, 2 });
+        _synthetic.applyLookup(buf, CONTEXT1);
+        assertTrue(Arrays.equals(new int[] { 1, 10, 2, 1, 11, 2 }, buf.toArray()));
+        _synthetic.applyLookup(buf, CONTEXT1_IGNORE_MARKS);
+        assertTrue(Arrays.equals(new int[] { 1, 10, 12, 1, 11, 12 }, buf.toArray()));
+
+        buf = new GlyphBuffer(new int[] { 1, 10, 2, 1, 11, 2 });
+        _synthetic.applyLookup(buf, CONTEXT1_MARK_SET);
+        assertTrue(Arrays.equals(new int[] { 1, 10, 12, 1, 11, 2 }, buf.toArray()));
+    }
+
+    /**
+     * The first ligature listed that matches applies, rather than the
+     * longest.
+     */
+    public void testLigatureTrie() {
+        LigatureSubstFormat1 subst = (LigatureSubstFormat1)
+                _synthetic.getLookupList().getLookup(LIGATURE).getSubtable(0);
+        LigatureTrie trie = subst.getTrie();
+        assertEquals(3, trie.getMaxDepth());
+        assertEquals(0, trie.getRoot(0));
+        assertEquals(-1, trie.getRoot(1));
+
+        GlyphBuffer buf = new GlyphBuffer(new int[] { 1, 1, 2, 4, 1, 3, 2, 2, 1 });
+        _synthetic.applyLookup(buf, LIGATURE);
+        assertTrue(Arrays.equals(new int[] { 20, 2, 4, 22, 1 }, buf.toArray()));
+        assertEquals(4, buf.getCluster(3));
+    }
+
+    public void testBufferReplace() {
+        GlyphBuffer buf = new GlyphBuffer(1);
+        buf.add(1, 0);
+        buf.add(2, 1);
+        buf.replace(0, new int[] { 3, 4, 5 });
+        assertTrue(Arrays.equals(new int[] { 3, 4, 5, 2 }, buf.toArray()));
+        assertEquals(0, buf.getCluster(2));
+        assertEquals(1, buf.getCluster(3));
+        buf.replace(3, new int[0]);
+        assertEquals(3, buf.getLength());
+    }
+
+    /**
+     * @param lookups the words of each lookup table
+     * @return a GSUB table with no scripts or features, holding the lookups
+     */
+    private static GsubTable gsub(int[]... lookups) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bytes);
+        dos.writeInt(0x00010000);
+        dos.writeShort(10); // scriptListOffset
+        dos.writeShort(12); // featureListOffset
+        dos.writeShort(14); // lookupListOffset
+        dos.writeShort(0);  // scriptCount
+        dos.writeShort(0);  // featureCount
+        dos.writeShort(lookups.length);
+        int offset = 2 + 2 * lookups.length;
+        for (int[] lookup : lookups) {
+            dos.writeShort(offset);
+            offset += 2 * lookup.length;
+        }
+        for (int[] lookup : lookups) {
+            for (int value : lookup) {
+                dos.writeShort(value);
+            }
+        }
+        byte[] data = bytes.toByteArray();
+        return new GsubTable(
+                new DataInputStream(new ByteArrayInputStream(data)), data.length);
+    }
+
+    private static GdefTable gdef(int... words) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bytes);
+        for (int value : words) {
+            dos.writeShort(value);
+        }
+        byte[] data = bytes.toByteArray();
+        return new GdefTable(
+                new DataInputStream(new ByteArrayInputStream(data)), data.length);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.TTFont;
+
+public class LineBreakerTest extends TestCase {
+
+    private static final String PARAGRAPH = "aaa bb cc ddd";
+
+    private TTFont _font;
+    private float _width;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public LineBreakerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(LineBreakerTest.class);
+    }
+
+    @Override
+    protected void setUp() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        _font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+        _width = _font.measure("aaa bb", 12, true);
+    }
+
+    /**
+     * Filling the first line leaves a short second line, where breaking
+     * earlier leaves two lines of more even length.
+     */
+    public void testGreedyAndOptimal() {
+        LineBreaker greedy = new LineBreaker(_font, 12, true, LineBreaker.GREEDY);
+        assertTrue(Arrays.equals(
+                new int[] { 7, 10, 13 }, greedy.breakLines(PARAGRAPH, _width)));
+        LineBreaker optimal = new LineBreaker(_font, 12, true, LineBreaker.OPTIMAL);
+        assertTrue(Arrays.equals(
+                new int[] { 4, 10, 13 }, optimal.breakLines(PARAGRAPH, _width)));
+
+        // A word wider than a line has a line of its own
+        for (LineBreaker breaker : new LineBreaker[] { greedy, optimal }) {
+            assertTrue(Arrays.equals(
+                    new int[] { 3, 19, 21 },
+                    breaker.breakLines("aa aaaaaaaaaaaaaaa-bb", _width / 2)));
+        }
+    }
+
+    public void testParallel() {
+        LineBreaker breaker = new LineBreaker(_font, 12, true, LineBreaker.OPTIMAL);
+        List<String> paragraphs = Collections.nCopies(100, PARAGRAPH);
+        List<int[]> breaks = breaker.breakLines(paragraphs, _width, ForkJoinPool.commonPool());
+        assertEquals(100, breaks.size());
+        for (int[] b : breaks) {
+            assertTrue(Arrays.equals(new int[] { 4, 10, 13 }, b));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.TTFont;
+
+import static net.java.dev.typecast.ot.layout.ShapingPlan.tag;
+
+public class ShapedRunCacheTest extends TestCase {
+
+    private static final int[] FEATURES = { tag("kern"), tag("liga") };
+
+    private TTFont _font;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ShapedRunCacheTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ShapedRunCacheTest.class);
+    }
+
+    @Override
+    protected void setUp() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        _font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+    }
+
+    public void testShape() {
+        TextShaper shaper = new TextShaper(_font);
+        ShapedRun run = shaper.shape("fit", tag("latn"), tag("dflt"), FEATURES, 12);
+        assertEquals(2, run.getGlyphCount());
+        assertEquals(0, run.getCluster(0));
+        assertEquals(2, run.getCluster(1));
+        assertEquals(run.getXAdvance(0) + run.getXAdvance(1), run.getAdvanceWidth());
+        assertEquals(run.getAdvanceWidth() * 12f / _font.getHeadTable().getUnitsPerEm(),
+                run.getScaledAdvanceWidth(), 0.001f);
+    }
+
+    public void testCache() {
+        ShapedRunCache cache = new ShapedRunCache();
+        TextShaper shaper = new TextShaper(_font, cache);
+        ShapedRun run = shaper.shape("AV", tag("latn"), tag("dflt"), FEATURES, 12);
+        assertSame(run, shaper.shape(
+                new StringBuilder("AV"), tag("latn"), tag("dflt"),
+                new int[] { tag("liga"), tag("kern") }, 12));
+        assertNotSame(run, shaper.shape("AV", tag("latn"), tag("dflt"), FEATURES, 10));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+
+        // Shrinking the cache evicts the least recently used run
+        cache.setMaxBytes(cache.getBytes() - 1);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotSame(run, shaper.shape("AV", tag("latn"), tag("dflt"), FEATURES, 12));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.TTFont;
+import net.java.dev.typecast.ot.table.Feature;
+import net.java.dev.typecast.ot.table.FeatureList;
+import net.java.dev.typecast.ot.table.LangSys;
+import net.java.dev.typecast.ot.table.Script;
+import net.java.dev.typecast.ot.table.ScriptList;
+
+import static net.java.dev.typecast.ot.layout.ShapingPlan.tag;
+
+public class ShapingPlanTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ShapingPlanTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ShapingPlanTest.class);
+    }
+
+    public void testPlan() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        TTFont font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+
+        ShapingPlan plan = font.getShapingPlan(
+                tag("latn"), tag("dflt"), new int[] { tag("kern"), tag("liga"), tag("mark") });
+        assertTrue(Arrays.equals(new int[] { 30, 31 }, plan.getSubstitutionLookups()));
+        assertTrue(Arrays.equals(new int[] { 0, 1, 2, 3, 4 }, plan.getPositioningLookups()));
+        assertEquals(5, plan.getPositioningFlags().length);
+
+        // Plans are cached by feature set, whatever the order of the features
+        assertSame(plan, font.getShapingPlan(
+                tag("latn"), tag("dflt"), new int[] { tag("mark"), tag("liga"), tag("kern"), tag("liga") }));
+
+        // A script the font doesn't have falls back to 'DFLT'
+        plan = font.getShapingPlan(tag("zzzz"), tag("dflt"), new int[] { tag("liga") });
+        assertTrue(plan.getSubstitutionLookups().length > 0);
+        assertEquals(0, plan.getPositioningLookups().length);
+    }
+
+    public void testTagIndexes() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        File file = new File(url.toURI());
+        TTFont font = new TTFont(Files.readAllBytes(file.toPath()), 0);
+        ScriptList scriptList = font.getGsubTable().getScriptList();
+        FeatureList featureList = font.getGsubTable().getFeatureList();
+
+        Script latn = scriptList.findScript(tag("latn"));
+        assertNotNull(latn);
+        assertSame(latn, scriptList.findScript("latn"));
+        assertNull(scriptList.findScript(tag("zzzz")));
+
+        // Short tags are padded with spaces, however they are given
+        assertEquals(0x44464c20, tag("DFL"));
+        assertSame(scriptList.findScript(tag("DFL")), scriptList.findScript("DFL"));
+        assertNull(scriptList.findLangSys(tag("latn"), tag("zzzz")));
+
+        LangSys langSys = latn.getDefaultLangSys();
+        Feature liga = featureList.findFeature(langSys, tag("liga"));
+        assertNotNull(liga);
+        assertSame(liga, featureList.findFeature(langSys, "liga"));
+        assertEquals(tag("liga"), featureList.getFeatureRecord(
+                featureList.findFeatureIndex(langSys, tag("liga"))).getTag());
+        assertNull(featureList.findFeature(langSys, tag("zzzz")));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ClassDefTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ClassDefTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ClassDefTest.class);
+    }
+
+    public void testFormat1() throws IOException {
+        ClassDef classDef = ClassDef.read(TableData.bytes(0, 1, 10, 3, 1, 0, 300), 2);
+        assertEquals(1, classDef.getFormat());
+        assertEquals(0, classDef.getGlyphClass(9));
+        assertEquals(1, classDef.getGlyphClass(10));
+        assertEquals(0, classDef.getGlyphClass(11));
+        assertEquals(300, classDef.getGlyphClass(12));
+        assertEquals(0, classDef.getGlyphClass(13));
+        assertEquals(12, classDef.getLastGlyph());
+
+        // An empty class array gives no glyph a class
+        classDef = ClassDef.read(TableData.bytes(1, 300, 0), 0);
+        assertEquals(0, classDef.getGlyphClass(300));
+        assertEquals(-1, classDef.getLastGlyph());
+    }
+
+    /**
+     * Ranges close together are expanded into an array, and those far apart
+     * are searched, with the same results.
+     */
+    public void testFormat2() throws IOException {
+        for (int last : new int[] { 40, 40000 }) {
+            ClassDef classDef = ClassDef.read(
+                    TableData.bytes(2, 3, 10, 12, 1, 20, 20, 2, last, last, 3), 0);
+            assertEquals(2, classDef.getFormat());
+            assertEquals(0, classDef.getGlyphClass(9));
+            assertEquals(1, classDef.getGlyphClass(10));
+            assertEquals(1, classDef.getGlyphClass(12));
+            assertEquals(0, classDef.getGlyphClass(13));
+            assertEquals(2, classDef.getGlyphClass(20));
+            assertEquals(3, classDef.getGlyphClass(last));
+            assertEquals(0, classDef.getGlyphClass(last + 1));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class CoverageTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CoverageTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(CoverageTest.class);
+    }
+
+    public void testFormat1() throws IOException {
+        Coverage coverage = read(1, 4, 3, 70, 130, 131);
+        assertTrue(Arrays.equals(new int[] { 3, 70, 130, 131 }, coverage.getGlyphIds()));
+        assertFindGlyph(coverage);
+        coverage.compile();
+        assertTrue(coverage.isCompiled());
+        assertFindGlyph(coverage);
+    }
+
+    /**
+     * Range ends are inclusive.
+     */
+    public void testFormat2() throws IOException {
+        Coverage coverage = read(2, 3, 3, 3, 0, 70, 70, 1, 130, 131, 2);
+        assertTrue(Arrays.equals(new int[] { 3, 70, 130, 131 }, coverage.getGlyphIds()));
+        assertFindGlyph(coverage);
+        for (int i = 0; i < Coverage.COMPILE_THRESHOLD; i++) {
+            coverage.findGlyph(i);
+        }
+        assertTrue(coverage.isCompiled());
+        assertFindGlyph(coverage);
+    }
+
+    private static void assertFindGlyph(Coverage coverage) {
+        assertEquals(0, coverage.findGlyph(3));
+        assertEquals(1, coverage.findGlyph(70));
+        assertEquals(2, coverage.findGlyph(130));
+        assertEquals(3, coverage.findGlyph(131));
+        assertEquals(-1, coverage.findGlyph(0));
+        assertEquals(-1, coverage.findGlyph(69));
+        assertEquals(-1, coverage.findGlyph(132));
+        assertEquals(-1, coverage.findGlyph(65535));
+    }
+
+    private static Coverage read(int... values) throws IOException {
+        return Coverage.read(TableData.stream(TableData.bytes(values)));
+    }
+}
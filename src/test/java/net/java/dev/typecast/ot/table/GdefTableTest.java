@@ -0,0 +1,71 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class GdefTableTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public GdefTableTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(GdefTableTest.class);
+    }
+
+    /**
+     * Glyphs 10 to 12 are bases and 20 and 21 marks, in mark attachment
+     * classes 1 and 2, and only glyph 21 is in the mark glyph set.
+     */
+    public void testGlyphProperties() throws IOException {
+        byte[] data = TableData.bytes(
+                1, 2, 14, 0, 0, 30, 40,
+                2, 2, 10, 12, 1, 20, 21, 3,
+                1, 20, 2, 1, 2,
+                1, 1, 0, 8,
+                1, 1, 21);
+        GdefTable gdef = new GdefTable(
+                TableData.stream(data), data.length);
+        assertEquals(0, gdef.getGlyphClass(9));
+        assertEquals(GdefTable.BASE, gdef.getGlyphClass(10));
+        assertEquals(GdefTable.BASE, gdef.getGlyphClass(12));
+        assertEquals(GdefTable.MARK, gdef.getGlyphClass(21));
+        assertEquals(0, gdef.getGlyphClass(1000));
+        assertEquals(0, gdef.getMarkAttachClass(10));
+        assertEquals(1, gdef.getMarkAttachClass(20));
+        assertEquals(2, gdef.getMarkAttachClass(21));
+        assertEquals(1, gdef.getMarkGlyphSetCount());
+        assertFalse(gdef.isInMarkGlyphSet(0, 20));
+        assertTrue(gdef.isInMarkGlyphSet(0, 21));
+        assertFalse(gdef.isInMarkGlyphSet(0, 85));
+        assertFalse(gdef.isInMarkGlyphSet(1, 21));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class KernTableTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public KernTableTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(KernTableTest.class);
+    }
+
+    /**
+     * Pairs are found whatever order the font lists them in, including those
+     * with left glyph IDs above 32767.
+     */
+    public void testFormat0() throws IOException {
+        KernTable kern = read(
+                0, 1,
+                0, 14 + 3 * 6, 0x0001,
+                3, 12, 1, 6,
+                5, 7, -50,
+                40000, 2, 30,
+                3, 4, -20);
+        KernSubtable table = kern.getSubtable(0);
+        assertTrue(table.isHorizontalKerning());
+        assertEquals(3, table.getKerningPairCount());
+        assertEquals(3, table.getKerningPair(0).getLeft());
+        assertEquals(40000, table.getKerningPair(2).getLeft());
+        assertEquals(-50, table.getKerning(5, 7));
+        assertEquals(-20, kern.getKerning(3, 4));
+        assertEquals(30, kern.getKerning(40000, 2));
+        assertEquals(0, kern.getKerning(4, 3));
+        assertEquals(0, kern.getKerning(40000, 3));
+    }
+
+    /**
+     * Glyphs 10 and 11 are in rows 1 and 2, and glyphs 20 to 22 in columns 1,
+     * 2 and 1.  A format 0 subtable follows, to check that the format 2
+     * subtable is read to its end.
+     */
+    public void testFormat2() throws IOException {
+        KernTable kern = read(
+                0, 2,
+                0, 50, 0x0201,
+                6, 14, 22, 32,
+                10, 2, 38, 44,
+                20, 3, 2, 4, 2,
+                0, 0, 0,
+                0, -10, -20,
+                0, 30, 0,
+                0, 20, 0x0001,
+                1, 6, 0, 0,
+                1, 2, -5);
+        KernSubtable table = kern.getSubtable(0);
+        assertTrue(table instanceof KernSubtableFormat2);
+        assertTrue(table.isHorizontalKerning());
+        assertEquals(-10, table.getKerning(10, 20));
+        assertEquals(-20, table.getKerning(10, 21));
+        assertEquals(-10, table.getKerning(10, 22));
+        assertEquals(30, table.getKerning(11, 20));
+        assertEquals(0, table.getKerning(11, 21));
+        assertEquals(0, table.getKerning(12, 20));
+        assertEquals(0, table.getKerning(9, 20));
+        assertEquals(5, table.getKerningPairCount());
+        assertEquals(11, table.getKerningPair(4).getLeft());
+        assertEquals(22, table.getKerningPair(4).getRight());
+        assertEquals(30, table.getKerningPair(4).getValue());
+        assertEquals(-5, kern.getKerning(1, 2));
+    }
+
+    private static KernTable read(int... values) throws IOException {
+        return new KernTable(TableData.stream(TableData.bytes(values)));
+    }
+}
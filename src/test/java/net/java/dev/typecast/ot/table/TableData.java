@@ -0,0 +1,53 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+/**
+ * Synthetic table data for tests, written as 16-bit big-endian words.
+ * @author <a href="mailto:david.schweinsberg@gmail.com">David Schweinsberg</a>
+ */
+final class TableData {
+
+    private TableData() {
+    }
+
+    /**
+     * @param values the words of the table
+     * @return the table's bytes
+     */
+    static byte[] bytes(int... values) {
+        byte[] data = new byte[2 * values.length];
+        for (int i = 0; i < values.length; i++) {
+            data[2 * i] = (byte) (values[i] >> 8);
+            data[2 * i + 1] = (byte) values[i];
+        }
+        return data;
+    }
+
+    /**
+     * @param data the table's bytes
+     * @return a stream over the bytes, which can be reset to their start
+     */
+    static DataInputStream stream(byte[] data) {
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class VmtxTableTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public VmtxTableTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VmtxTableTest.class);
+    }
+
+    /**
+     * Two long metrics, the second with an advance height above 32767,
+     * followed by the top side bearings of two more glyphs.
+     */
+    public void testMetrics() throws IOException {
+        VmtxTable vmtx = read(2, 4, 1000, 50, 0xa000, -20, 30, -5);
+        assertEquals(1000, vmtx.getAdvanceHeight(0));
+        assertEquals(40960, vmtx.getAdvanceHeight(1));
+        assertEquals(40960, vmtx.getAdvanceHeight(3));
+        assertEquals(50, vmtx.getTopSideBearing(0));
+        assertEquals(-20, vmtx.getTopSideBearing(1));
+        assertEquals(30, vmtx.getTopSideBearing(2));
+        assertEquals(-5, vmtx.getTopSideBearing(3));
+        assertEquals(0, vmtx.getTopSideBearing(4));
+    }
+
+    /**
+     * A font with fewer glyphs than long metrics has no top side bearings
+     * following them.
+     */
+    public void testShortTopSideBearings() throws IOException {
+        VmtxTable vmtx = read(2, 1, 1000, 50, 0xa000, -20);
+        assertEquals(40960, vmtx.getAdvanceHeight(1));
+        assertEquals(-20, vmtx.getTopSideBearing(1));
+        assertEquals(0, vmtx.getTopSideBearing(2));
+    }
+
+    /**
+     * @param longMetricCount the vhea numberOfLongVerMetrics
+     * @param glyphCount the maxp numGlyphs
+     * @param values the words of the vmtx table
+     */
+    private static VmtxTable read(
+            int longMetricCount,
+            int glyphCount,
+            int... values) throws IOException {
+        VheaTable vhea = new VheaTable(TableData.stream(TableData.bytes(
+                1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                longMetricCount)));
+        MaxpTable maxp = new MaxpTable(TableData.stream(TableData.bytes(
+                0, 0x5000, glyphCount)));
+        return new VmtxTable(
+                TableData.stream(TableData.bytes(values)), vhea, maxp);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.ot.table;
+
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class VorgTableTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public VorgTableTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VorgTableTest.class);
+    }
+
+    /**
+     * Glyphs 5, 10 and 300 have their own vertical origins, and the rest
+     * take the default.
+     */
+    public void testVertOriginY() throws IOException {
+        VorgTable vorg = new VorgTable(TableData.stream(TableData.bytes(
+                1, 0, 880, 3,
+                5, 900,
+                10, -10,
+                300, 700)));
+        assertEquals(1, vorg.getMajorVersion());
+        assertEquals(880, vorg.getDefaultVertOriginY());
+        assertEquals(900, vorg.getVertOriginY(5));
+        assertEquals(-10, vorg.getVertOriginY(10));
+        assertEquals(700, vorg.getVertOriginY(300));
+        assertEquals(880, vorg.getVertOriginY(0));
+        assertEquals(880, vorg.getVertOriginY(6));
+        assertEquals(880, vorg.getVertOriginY(1000));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Typecast
+ *
+ * Copyright © 2004-2019 David Schweinsberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.java.dev.typecast.tt.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.java.dev.typecast.ot.Mnemonic;
+import net.java.dev.typecast.ot.table.MaxpTable;
+import net.java.dev.typecast.ot.table.Table;
+import net.java.dev.typecast.ot.table.TableDirectory;
+
+/**
+ * Differential tests, running the same programs with and without function
+ * compilation and comparing the resulting interpreter state.
+ */
+public class FunctionCompilerTest extends TestCase {
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public FunctionCompilerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(FunctionCompilerTest.class);
+    }
+
+    public void testSyntheticProgram() {
+        short[] fpgm = fontProgram();
+        short[] prep = {
+            Mnemonic.PUSHB + 1, 15, 0, Mnemonic.CALL,
+            Mnemonic.PUSHB + 1, 25, 0, Mnemonic.CALL,
+            Mnemonic.PUSHB + 1, 5, 0, Mnemonic.CALL,
+            Mnemonic.PUSHB + 1, 10, 1, Mnemonic.CALL,
+            Mnemonic.PUSHB + 1, 5, 2, Mnemonic.LOOPCALL,
+            Mnemonic.PUSHB, 3, Mnemonic.CALL
+        };
+        Interpreter interpreted = run(fpgm, prep, false, 64, 16, 8);
+        Interpreter compiled = run(fpgm, prep, true, 64, 16, 8);
+
+        assertTrue(compiled.isFunctionCompiled(0));
+        assertTrue(compiled.isFunctionCompiled(1));
+        assertTrue(compiled.isFunctionCompiled(2));
+        assertFalse(compiled.isFunctionCompiled(3));
+
+        assertTrue(Arrays.equals(new int[] { 2, 3, 1, 55 }, interpreted.getStack()));
+        assertEquals(5, interpreted.getCvt()[0]);
+        assertSameState(interpreted, compiled);
+    }
+
+    public void testFontPrograms() throws URISyntaxException, IOException {
+        URL url = ClassLoader.getSystemResource("Lato-Regular.ttf");
+        byte[] fontData = Files.readAllBytes(new File(url.toURI()).toPath());
+        TableDirectory tableDirectory = new TableDirectory(fontData);
+        MaxpTable maxp = new MaxpTable(tableStream(fontData, tableDirectory, Table.maxp));
+        short[] fpgm = readProgram(fontData, tableDirectory, Table.fpgm);
+        short[] prep = readProgram(fontData, tableDirectory, Table.prep);
+
+        Interpreter interpreted = run(fpgm, prep, false,
+                maxp.getMaxStackElements(), maxp.getMaxStorage(), maxp.getMaxFunctionDefs());
+        Interpreter compiled = run(fpgm, prep, true,
+                maxp.getMaxStackElements(), maxp.getMaxStorage(), maxp.getMaxFunctionDefs());
+
+        int compiledCount = 0;
+        for (int i = 0; i < maxp.getMaxFunctionDefs(); i++) {
+            if (compiled.isFunctionCompiled(i)) {
+                compiledCount++;
+            }
+        }
+        assertTrue(compiledCount > 0);
+        assertSameState(interpreted, compiled);
+    }
+
+    /**
+     * Function 0 returns 1, 2 or 3 from nested IF-ELSE blocks, function 1
+     * sums 1..n with a backwards JROT loop, function 2 increments cvt[0], and
+     * function 3 contains an undefined opcode and so can't be compiled.
+     */
+    private static short[] fontProgram() {
+        short[] f0 = {
+            Mnemonic.PUSHB, 0, Mnemonic.FDEF,
+            Mnemonic.DUP, Mnemonic.PUSHB, 10, Mnemonic.GT, Mnemonic.IF,
+                Mnemonic.PUSHB, 20, Mnemonic.GT, Mnemonic.IF,
+                    Mnemonic.PUSHB, 3,
+                Mnemonic.ELSE,
+                    Mnemonic.PUSHB, 2,
+                Mnemonic.EIF,
+            Mnemonic.ELSE,
+                Mnemonic.POP, Mnemonic.PUSHB, 1,
+            Mnemonic.EIF,
+            Mnemonic.ENDF
+        };
+        short[] f1 = {
+            Mnemonic.PUSHB, 1, Mnemonic.FDEF,
+            Mnemonic.PUSHB, 0,
+            // Loop start
+            Mnemonic.PUSHB, 2, Mnemonic.CINDEX, Mnemonic.ADD,
+            Mnemonic.SWAP, Mnemonic.PUSHB, 1, Mnemonic.SUB, Mnemonic.SWAP,
+            Mnemonic.PUSHB, 2, Mnemonic.CINDEX,
+            Mnemonic.PUSHW, 0xff, 0xf0, Mnemonic.SWAP, Mnemonic.JROT,
+            Mnemonic.SWAP, Mnemonic.POP,
+            Mnemonic.ENDF
+        };
+        short[] f2 = {
+            Mnemonic.PUSHB, 2, Mnemonic.FDEF,
+            Mnemonic.PUSHB + 1, 0, 0, Mnemonic.RCVT,
+            Mnemonic.PUSHB, 1, Mnemonic.ADD, Mnemonic.WCVTP,
+            Mnemonic.ENDF
+        };
+        short[] f3 = {
+            Mnemonic.PUSHB, 3, Mnemonic.FDEF,
+            0x7b,
+            Mnemonic.ENDF
+        };
+        short[] program = new short[f0.length + f1.length + f2.length + f3.length];
+        int i = 0;
+        for (short[] f : new short[][] { f0, f1, f2, f3 }) {
+            System.arraycopy(f, 0, program, i, f.length);
+            i += f.length;
+        }
+        return program;
+    }
+
+    private static Interpreter run(
+            short[] fpgm,
+            short[] prep,
+            boolean compile,
+            int stackMax,
+            int storeMax,
+            int funcMax) {
+        Parser parser = new Parser();
+        parser.setFontProgram(fpgm);
+        parser.setCvtProgram(prep);
+        parser.setGlyphProgram(new short[0]);
+        Interpreter interpreter = new Interpreter(stackMax, storeMax, funcMax);
+        interpreter.setParser(parser);
+        interpreter.setFunctionCompilationEnabled(compile);
+        interpreter.runFontProgram();
+        interpreter.runCvtProgram();
+        return interpreter;
+    }
+
+    private static void assertSameState(Interpreter expected, Interpreter actual) {
+        assertTrue(Arrays.equals(expected.getStack(), actual.getStack()));
+        assertTrue(Arrays.equals(expected.getStore(), actual.getStore()));
+        assertTrue(Arrays.equals(expected.getCvt(), actual.getCvt()));
+        GraphicsState egs = expected.getGraphicsState();
+        GraphicsState ags = actual.getGraphicsState();
+        assertEquals(egs.round_state, ags.round_state);
+        assertEquals(egs.loop, ags.loop);
+        assertEquals(egs.minimum_distance, ags.minimum_distance);
+        assertEquals(egs.control_value_cut_in, ags.control_value_cut_in);
+        assertEquals(egs.single_width_cut_in, ags.single_width_cut_in);
+        assertEquals(egs.single_width_value, ags.single_width_value);
+        assertEquals(egs.delta_base, ags.delta_base);
+        assertEquals(egs.delta_shift, ags.delta_shift);
+        assertEquals(egs.instruction_control, ags.instruction_control);
+        assertEquals(egs.scan_control, ags.scan_control);
+        assertEquals(egs.zp0, ags.zp0);
+        assertEquals(egs.zp1, ags.zp1);
+        assertEquals(egs.zp2, ags.zp2);
+        assertEquals(egs.rp0, ags.rp0);
+        assertEquals(egs.rp1, ags.rp1);
+        assertEquals(egs.rp2, ags.rp2);
+        assertTrue(Arrays.equals(egs.freedom_vector, ags.freedom_vector));
+        assertTrue(Arrays.equals(egs.projection_vector, ags.projection_vector));
+    }
+
+    private static DataInputStream tableStream(
+            byte[] fontData,
+            TableDirectory tableDirectory,
+            int tag) {
+        TableDirectory.Entry entry = tableDirectory.getEntryByTag(tag);
+        return new DataInputStream(new ByteArrayInputStream(
+                fontData, entry.getOffset(), entry.getLength()));
+    }
+
+    private static short[] readProgram(
+            byte[] fontData,
+            TableDirectory tableDirectory,
+            int tag) {
+        TableDirectory.Entry entry = tableDirectory.getEntryByTag(tag);
+        short[] program = new short[entry.getLength()];
+        for (int i = 0; i < program.length; i++) {
+            program[i] = (short) (fontData[entry.getOffset() + i] & 0xff);
+        }
+        return program;
+    }
+}